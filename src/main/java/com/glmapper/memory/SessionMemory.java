@@ -1,5 +1,6 @@
 package com.glmapper.memory;
 
+import com.glmapper.memory.compression.SummaryTreeStore;
 import com.glmapper.memory.compression.WorkingMemoryCompression;
 import com.glmapper.memory.config.ArtisanMemoryProperties;
 import com.glmapper.memory.management.StorageClientManager;
@@ -7,8 +8,12 @@ import com.glmapper.memory.model.MessagePair;
 import com.glmapper.memory.model.Msg;
 import com.glmapper.memory.model.MsgRole;
 import com.glmapper.memory.model.Pin;
+import com.glmapper.memory.model.SummaryNode;
 import com.glmapper.memory.model.ToolUseBlock;
 import com.glmapper.memory.model.WorkingMemory;
+import com.glmapper.memory.storage.OriginalChangeBatch;
+import com.glmapper.memory.storage.OriginalSearchHit;
+import com.glmapper.memory.storage.OriginalSessionStats;
 import com.glmapper.memory.storage.OriginalStorage;
 import com.glmapper.memory.storage.WorkingMemoryStorage;
 import jakarta.annotation.PreDestroy;
@@ -16,6 +21,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
@@ -60,6 +66,7 @@ public class SessionMemory {
     private final StorageClientManager clientManager;
     private final ArtisanMemoryProperties.WorkingMemory memoryConfig;
     private final WorkingMemoryCompression workingMemoryCompression;
+    private final SummaryTreeStore summaryTreeStore;
 
     private final ConcurrentHashMap<String, SessionContext> contexts;
     private final ScheduledExecutorService sharedScheduler;
@@ -77,7 +84,21 @@ public class SessionMemory {
      * @param workingMemoryCompression 工作记忆压缩执行器
      */
     public SessionMemory(ArtisanMemoryProperties properties, StorageClientManager clientManager, WorkingMemoryCompression workingMemoryCompression) {
+        this(properties, clientManager, workingMemoryCompression, null);
+    }
+
+    /**
+     * 构造一个新的 ArtisanMemory 服务实例，并支持摘要树的查询与展开。
+     *
+     * @param properties               配置属性，包含记忆服务的所有配置参数
+     * @param clientManager            存储客户端管理器，管理工作存储和原始存储
+     * @param workingMemoryCompression 工作记忆压缩执行器
+     * @param summaryTreeStore         摘要树存储，为 null 时摘要树相关方法返回空结果
+     */
+    public SessionMemory(ArtisanMemoryProperties properties, StorageClientManager clientManager,
+                         WorkingMemoryCompression workingMemoryCompression, SummaryTreeStore summaryTreeStore) {
         this.clientManager = clientManager;
+        this.summaryTreeStore = summaryTreeStore;
         this.memoryConfig = properties.getWorkingMemory();
         this.keyPrefix = "session::";
         this.workingMemoryCompression = workingMemoryCompression;
@@ -188,12 +209,17 @@ public class SessionMemory {
         // 3. 更新 Head/Tail，获取从 Tail 移出的消息对（如果有）
         MessagePair evictedPair = updateHeadAndTail(workingMemory, currentPair, sessionId);
 
-        // 4. 保存初始 WorkingMemory（包含 Head/Tail 更新）
-        workingMemoryStorage.save(workingMemory);
+        // 4. 只保存 Head/Tail，TCW 和 Pins 由压缩链路保存，避免覆盖并发提交的压缩结果
+        workingMemoryStorage.saveHeadAndTail(workingMemory);
 
         // 5. 提交压缩任务到队列（异步执行）
         workingMemoryCompression.submitTask(sessionId, currentPair, evictedPair);
 
+        // 6. Tail 已满时，最旧的一轮会在下一轮被移出，提前生成它的摘要
+        if (workingMemory.getTail() != null && workingMemory.getTail().size() >= tailSize) {
+            workingMemoryCompression.speculate(sessionId, workingMemory.getTail().peekFirst());
+        }
+
         context.clearCurrentPair();
         log.debug("[MEMORY]-[{}] 会话上下文已提交", sessionId);
     }
@@ -317,9 +343,122 @@ public class SessionMemory {
         return messages;
     }
 
+    /**
+     * 获取原始记忆的统计信息（轮次数、序号范围、token 估算、最后写入时间）。
+     *
+     * <p>由存储层维护的会话计数直接读取，不随历史长度增长，适合分页等频繁调用的场景。
+     *
+     * @param sessionId 会话标识符
+     * @return 原始记忆统计信息
+     */
+    public OriginalSessionStats getOriginalStats(String sessionId) {
+        SessionContext context = getSessionContext(sessionId);
+        context.updateLastAccessTime();
+        return clientManager.getOriginalStorage().getStats(context.getStorageKey());
+    }
+
+    /**
+     * 在原始记忆中全文检索（例如"用户之前关于 X 说过什么"）。
+     *
+     * @param sessionId 会话标识符
+     * @param query     检索文本
+     * @param limit     最多返回的结果数
+     * @return 按相关度排序的检索结果，包含对话轮次在会话中的序号
+     */
+    public List<OriginalSearchHit> searchOriginalMessages(String sessionId, String query, int limit) {
+        SessionContext context = getSessionContext(sessionId);
+        context.updateLastAccessTime();
+        return clientManager.getOriginalStorage().search(context.getStorageKey(), query, limit);
+    }
+
+    /**
+     * 获取摘要树的概要：各层尚未合并到上一层的节点，按覆盖的序号范围排序。
+     *
+     * <p>概要从最早的高层摘要到最新的底层摘要，整体覆盖所有已移出 Tail 的轮次，
+     * 需要细节时再用 {@link #expandSummary(String, String)} 逐层展开。
+     *
+     * @param sessionId 会话标识符
+     * @return 摘要节点列表，未启用 SUMMARY_TREE 策略时为空
+     */
+    public List<SummaryNode> getSummaryOutline(String sessionId) {
+        if (summaryTreeStore == null) {
+            return Collections.emptyList();
+        }
+        SessionContext context = getSessionContext(sessionId);
+        context.updateLastAccessTime();
+        return summaryTreeStore.outline(sessionId);
+    }
+
+    /**
+     * 展开摘要节点，返回其下一层的子节点。
+     *
+     * @param sessionId 会话标识符
+     * @param nodeId    摘要节点 ID
+     * @return 子节点列表，节点不存在或为第 0 层时为空
+     */
+    public List<SummaryNode> expandSummary(String sessionId, String nodeId) {
+        if (summaryTreeStore == null) {
+            return Collections.emptyList();
+        }
+        SummaryNode node = summaryTreeStore.get(sessionId, nodeId);
+        return node == null ? Collections.emptyList() : summaryTreeStore.children(sessionId, node);
+    }
+
+    /**
+     * 读取摘要节点覆盖的原始对话轮次。
+     *
+     * @param sessionId 会话标识符
+     * @param nodeId    摘要节点 ID
+     * @return 按序号排列的原始对话轮次，节点不存在时为空
+     */
+    public List<MessagePair> getSummarySource(String sessionId, String nodeId) {
+        if (summaryTreeStore == null) {
+            return Collections.emptyList();
+        }
+        SummaryNode node = summaryTreeStore.get(sessionId, nodeId);
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        SessionContext context = getSessionContext(sessionId);
+        context.updateLastAccessTime();
+        return clientManager.getOriginalStorage()
+                .getSequenceRange(context.getStorageKey(), node.getFromSequence(), node.getToSequence());
+    }
+
+    /**
+     * 按全局追加序号读取所有会话新写入的对话轮次（变更流）。
+     *
+     * <p>供分析、向量索引、审计导出等下游消费者增量拉取，开销只与新数据量相关。
+     * 消费者应保存返回的 nextCursor，下次从该游标继续。调用前应先通过 {@link #supportsOriginalChanges()} 确认可用。
+     *
+     * @param cursor 上次处理到的全局序号，从头开始时为 0
+     * @param limit  最多返回的变更数
+     * @return 变更批次
+     * @throws UnsupportedOperationException 原始存储不支持变更流时
+     */
+    public OriginalChangeBatch getOriginalChanges(long cursor, int limit) {
+        OriginalStorage originalStorage = clientManager.getOriginalStorage();
+        if (!originalStorage.supportsChangeFeed()) {
+            throw new UnsupportedOperationException(
+                    "Change feed is not supported by " + originalStorage.getClass().getSimpleName());
+        }
+        return originalStorage.changesSince(cursor, limit);
+    }
+
+    /**
+     * 当前原始存储是否支持变更流（{@link #getOriginalChanges(long, int)}）。
+     *
+     * @return 支持时返回 true
+     */
+    public boolean supportsOriginalChanges() {
+        return clientManager.getOriginalStorage().supportsChangeFeed();
+    }
+
     /**
      * 获取原始记忆中的交互消息（用户和最终助手响应）。
      *
+     * <p>只读取不含中间消息的投影视图，工具调用和工具结果不会被加载。
+     *
      * @param sessionId 会话标识符
      * @return 交互消息列表
      */
@@ -328,7 +467,7 @@ public class SessionMemory {
         context.updateLastAccessTime();
 
         OriginalStorage originalStorage = clientManager.getOriginalStorage();
-        List<MessagePair> pairs = originalStorage.getAll(context.getStorageKey());
+        List<MessagePair> pairs = originalStorage.getInteractionPairs(context.getStorageKey());
 
         List<Msg> interactions = new ArrayList<>();
         for (MessagePair pair : pairs) {
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.compression;
+
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 后台通道的待处理任务，每个会话一个 Redis Set（key: artisan:wm:bg:{sessionId}），成员为事件类型。
+ *
+ * <p>后台任务（Pin 聚合、历史摘要）都是"检查并按需压缩"，同一类型重复提交只需执行一次，用 Set 天然去重。
+ * 取出使用 SPOP，处理期间新提交的任务会留在 Set 中，由调度器重新登记。
+ */
+public class BackgroundTaskSet {
+
+    private static final String KEY_PREFIX = "artisan:wm:bg:";
+    /**
+     * 单次取出的最大任务数，后台事件类型只有少数几种，足够一次取完。
+     */
+    private static final int MAX_POP = 16;
+
+    private final StringRedisTemplate redisTemplate;
+
+    public BackgroundTaskSet(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * 提交后台任务。
+     *
+     * @param sessionId 会话标识符
+     * @param eventType 事件类型
+     */
+    public void add(String sessionId, String eventType) {
+        redisTemplate.opsForSet().add(KEY_PREFIX + sessionId, eventType);
+    }
+
+    /**
+     * 取出会话的全部后台任务。
+     *
+     * @param sessionId 会话标识符
+     * @return 事件类型列表
+     */
+    public List<String> popAll(String sessionId) {
+        List<String> eventTypes = redisTemplate.opsForSet().pop(KEY_PREFIX + sessionId, MAX_POP);
+        return eventTypes != null ? new ArrayList<>(eventTypes) : new ArrayList<>();
+    }
+
+    /**
+     * 会话是否有待处理的后台任务。
+     *
+     * @param sessionId 会话标识符
+     * @return 有待处理任务时返回 true
+     */
+    public boolean hasPending(String sessionId) {
+        Long size = redisTemplate.opsForSet().size(KEY_PREFIX + sessionId);
+        return size != null && size > 0;
+    }
+
+    /**
+     * 遍历有待处理后台任务的会话。
+     *
+     * @param action 会话标识符消费者
+     */
+    public void forEachPendingSession(Consumer<String> action) {
+        ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(500).build();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                action.accept(cursor.next().substring(KEY_PREFIX.length()));
+            }
+        }
+    }
+}
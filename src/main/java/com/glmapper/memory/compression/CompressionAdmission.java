@@ -0,0 +1,189 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.compression;
+
+import com.glmapper.memory.config.ArtisanMemoryProperties;
+import com.glmapper.memory.model.MessagePair;
+import com.glmapper.memory.util.MsgUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 压缩积压的准入控制。
+ *
+ * <p>{@link WorkingMemoryCompression} 定期把就绪集合的大小写入 {@link #refresh(long)}，
+ * 这里按水位计算积压等级，压缩链路上的各处理器据此降级：
+ * <ul>
+ *   <li>{@link CompressionLoadLevel#ELEVATED}：跳过 Pin 聚合</li>
+ *   <li>{@link CompressionLoadLevel#CRITICAL}：当前轮次摘要改为确定性截断，低价值轮次不做 Pin 判定</li>
+ * </ul>
+ *
+ * <p>降级只影响摘要质量，不影响工作记忆收缩：被截断的轮次同样写入 TCW，历史摘要照常触发。
+ * 等级变化带滞回，避免积压在水位附近时反复切换。
+ */
+@Slf4j
+@Component
+public class CompressionAdmission {
+
+    private final ArtisanMemoryProperties.Admission config;
+    private volatile CompressionLoadLevel level = CompressionLoadLevel.NORMAL;
+    private volatile long backlog;
+    private final AtomicLong truncatedTurns = new AtomicLong();
+    private final AtomicLong shedPinJudgments = new AtomicLong();
+    private final AtomicLong skippedAggregations = new AtomicLong();
+
+    public CompressionAdmission(ArtisanMemoryProperties properties) {
+        this.config = properties.getCompression().getAdmission();
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * 根据最新的积压量更新等级。
+     *
+     * @param currentBacklog 等待调度的会话数
+     */
+    public void refresh(long currentBacklog) {
+        this.backlog = currentBacklog;
+        CompressionLoadLevel previous = level;
+        CompressionLoadLevel next = previous;
+        if (currentBacklog >= config.getCriticalWatermark()) {
+            next = CompressionLoadLevel.CRITICAL;
+        } else if (currentBacklog >= config.getHighWatermark()) {
+            if (previous == CompressionLoadLevel.NORMAL) {
+                next = CompressionLoadLevel.ELEVATED;
+            }
+        } else if (currentBacklog <= config.getLowWatermark()) {
+            next = CompressionLoadLevel.NORMAL;
+        } else if (previous == CompressionLoadLevel.CRITICAL) {
+            next = CompressionLoadLevel.ELEVATED;
+        }
+        if (next != previous) {
+            level = next;
+            if (next.ordinal() > previous.ordinal()) {
+                log.warn("[MEMORY]-[ADMISSION] 压缩积压 {}，降级: {} -> {}", currentBacklog, previous, next);
+            } else {
+                log.info("[MEMORY]-[ADMISSION] 压缩积压 {}，恢复: {} -> {}", currentBacklog, previous, next);
+            }
+        }
+    }
+
+    /**
+     * 当前积压等级，未启用时始终为 NORMAL。
+     *
+     * @return 积压等级
+     */
+    public CompressionLoadLevel getLevel() {
+        return config.isEnabled() ? level : CompressionLoadLevel.NORMAL;
+    }
+
+    /**
+     * 是否跳过 Pin 聚合。
+     *
+     * @param sessionId 会话标识符
+     * @return 需要跳过时返回 true
+     */
+    public boolean skipPinAggregation(String sessionId) {
+        if (getLevel().ordinal() < CompressionLoadLevel.ELEVATED.ordinal()) {
+            return false;
+        }
+        skippedAggregations.incrementAndGet();
+        log.info("[MEMORY]-[{}] 压缩积压，跳过 Pin 聚合", sessionId);
+        return true;
+    }
+
+    /**
+     * 是否用确定性截断代替 LLM 生成当前轮次摘要。
+     *
+     * @param sessionId 会话标识符
+     * @param pairs     待摘要的轮次数
+     * @return 需要截断时返回 true
+     */
+    public boolean truncateInsteadOfSummarize(String sessionId, int pairs) {
+        if (getLevel() != CompressionLoadLevel.CRITICAL) {
+            return false;
+        }
+        truncatedTurns.addAndGet(pairs);
+        log.info("[MEMORY]-[{}] 压缩积压严重，当前轮次摘要改为截断, pairs: {}", sessionId, pairs);
+        return true;
+    }
+
+    /**
+     * 过滤需要做 Pin 判定的轮次，积压严重时去掉低价值轮次。
+     *
+     * @param sessionId 会话标识符
+     * @param pairs     待判定的轮次
+     * @return 需要判定的轮次
+     */
+    public List<MessagePair> filterPinCandidates(String sessionId, List<MessagePair> pairs) {
+        if (getLevel() != CompressionLoadLevel.CRITICAL) {
+            return pairs;
+        }
+        List<MessagePair> kept = new ArrayList<>();
+        for (MessagePair pair : pairs) {
+            if (isLowValue(pair)) {
+                shedPinJudgments.incrementAndGet();
+            } else {
+                kept.add(pair);
+            }
+        }
+        if (kept.size() < pairs.size()) {
+            log.info("[MEMORY]-[{}] 压缩积压严重，跳过 {} 个低价值轮次的 Pin 判定", sessionId, pairs.size() - kept.size());
+        }
+        return kept;
+    }
+
+    /**
+     * 确定性截断时每条消息保留的字符数。
+     *
+     * @return 字符数
+     */
+    public int getTruncateChars() {
+        return config.getTruncateChars();
+    }
+
+    /**
+     * 准入控制状态。
+     *
+     * @return 状态
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", config.isEnabled());
+        stats.put("level", getLevel());
+        stats.put("backlog", backlog);
+        stats.put("truncatedTurns", truncatedTurns.get());
+        stats.put("shedPinJudgments", shedPinJudgments.get());
+        stats.put("skippedAggregations", skippedAggregations.get());
+        return stats;
+    }
+
+    private boolean isLowValue(MessagePair pair) {
+        if (pair == null) {
+            return true;
+        }
+        String text = MsgUtils.extractPlainText(pair.getAllMessages());
+        return text == null || text.strip().length() < config.getLowValueTurnChars();
+    }
+}
@@ -0,0 +1,520 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.compression;
+
+import com.glmapper.memory.config.ArtisanMemoryProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 压缩任务调度器。
+ *
+ * <p>替代"每个会话一个 BRPOP 消费线程"的模型：
+ * <ul>
+ *   <li>有待处理任务的会话登记在 Redis 就绪集合（ZSET，score 为登记时间）中</li>
+ *   <li>固定数量的轮询线程通过 Lua 脚本原子取出一个已到期的会话（ZRANGEBYSCORE + ZREM），
+ *       未到期的会话始终留在集合中，不会被取出后再放回</li>
+ *   <li>取出的会话交给有界工作线程池处理，信号量保证工作线程满时轮询线程不再取出会话</li>
+ *   <li>同一会话在本节点同一时刻只由一个工作线程处理，保证任务顺序</li>
+ * </ul>
+ *
+ * <p>工作线程可以是平台线程或虚拟线程（见 {@link CompressionExecutors}），两种模式下同时处理的会话数
+ * 都受 {@code workerThreads} 信号量限制；压缩链路上的事件处理器在工作线程上同步执行，随之继承线程模式。
+ *
+ * <p>会话处理期间再次到达的就绪信号会被丢弃，由正在处理的工作线程继续消费；
+ * 工作线程结束后重新检查队列，仍有任务时重新登记，因此不会遗漏任务。
+ *
+ * <p>多节点部署时可以启用 {@link CompressionLeaseManager}：处理会话前先获取租约，取不到说明其他节点正在处理，
+ * 按租约剩余时间延迟重新登记（就绪集合的 score 为最早可调度时间）。租约在释放后才检查队列，
+ * 保证被持有者丢弃的信号由持有者补登记。
+ *
+ * <p>启用租户公平调度（{@link TenantFairQueue}）后，轮询线程取出的会话先进入本节点的租户队列
+ * （容量为工作线程数的两倍），由单独的调度线程按加权赤字轮转分配工作线程，并限制每个租户的并发数。
+ * 停止调度时尚未分配的会话重新登记到就绪集合。
+ *
+ * <p>每个 {@link CompressionLane} 一个调度器实例，使用各自的就绪集合和线程，
+ * 后台通道的慢任务不会占用快速通道的工作线程。
+ */
+@Slf4j
+public class CompressionDispatcher {
+
+    private static final String READY_KEY = "artisan:wm:ready";
+    private static final String BACKGROUND_READY_KEY = "artisan:wm:ready:background";
+    /**
+     * 就绪集合中没有到期的会话时，轮询线程的等待时间，避免期间新登记的会话等待过久。
+     */
+    private static final long DELAYED_RECHECK_MILLIS = 200;
+    /**
+     * 排空超时中断工作线程后，等待其放回任务并退出的时间。
+     */
+    private static final long INTERRUPT_GRACE_SECONDS = 2;
+    /**
+     * 取出一个到期（score 不大于 ARGV[1]）的会话，返回"score 空格 会话标识符"，没有到期会话时返回 nil。
+     */
+    private static final DefaultRedisScript<String> POP_DUE_SCRIPT = new DefaultRedisScript<>(
+            "local due = redis.call('zrangebyscore', KEYS[1], '-inf', ARGV[1], 'WITHSCORES', 'LIMIT', 0, 1) "
+                    + "if #due == 0 then return false end "
+                    + "redis.call('zrem', KEYS[1], due[1]) "
+                    + "return due[2] .. ' ' .. due[1]", String.class);
+    /**
+     * 防抖登记：已到期的会话保持不变；否则到期时间改为 min(now + idle, 截止时间)。
+     * 截止时间在首次登记时写入 KEYS[2]，处理开始时删除。
+     */
+    private static final DefaultRedisScript<Long> DEBOUNCE_SCRIPT = new DefaultRedisScript<>(
+            "local score = redis.call('zscore', KEYS[1], ARGV[1]) "
+                    + "if ARGV[5] == '1' and not score then return 0 end "
+                    + "local now = tonumber(ARGV[2]) "
+                    + "if score and tonumber(score) <= now then return 0 end "
+                    + "local deadline = tonumber(redis.call('get', KEYS[2]) or '0') "
+                    + "if deadline == 0 then "
+                    + "  deadline = now + tonumber(ARGV[4]) "
+                    + "  redis.call('set', KEYS[2], string.format('%d', deadline), 'PX', tonumber(ARGV[4]) + tonumber(ARGV[3]) + 60000) "
+                    + "end "
+                    + "local due = math.min(now + tonumber(ARGV[3]), deadline) "
+                    + "redis.call('zadd', KEYS[1], string.format('%d', due), ARGV[1]) "
+                    + "return 1", Long.class);
+
+    /**
+     * 会话任务处理器。
+     */
+    public interface SessionProcessor {
+
+        /**
+         * 处理会话的待处理任务（单次最多处理若干条）。
+         *
+         * @param sessionId 会话标识符
+         * @param lease     会话租约，未启用租约时为 null
+         */
+        void process(String sessionId, CompressionLease lease);
+
+        /**
+         * 会话是否仍有待处理任务。
+         *
+         * @param sessionId 会话标识符
+         * @return 有待处理任务时返回 true
+         */
+        boolean hasPending(String sessionId);
+
+        /**
+         * 处理结束后仍有待处理任务时，重新登记的延迟。
+         *
+         * @param sessionId 会话标识符
+         * @return 延迟毫秒数
+         */
+        default long resignalDelayMillis(String sessionId) {
+            return 0;
+        }
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final CompressionLane lane;
+    private final String readyKey;
+    private final ArtisanMemoryProperties.Dispatcher config;
+    private final SessionProcessor processor;
+    private final CompressionLeaseManager leaseManager;
+    private final ExecutorService pollerExecutor;
+    private final ExecutorService workerExecutor;
+    private final Semaphore workerPermits;
+    private final TenantFairQueue tenantQueue;
+    private final Semaphore bufferPermits;
+    private final Thread schedulerThread;
+    private final ConcurrentHashMap<String, Boolean> inFlight = new ConcurrentHashMap<>();
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong dispatched = new AtomicLong();
+    private final AtomicLong totalWaitMillis = new AtomicLong();
+    private final AtomicLong maxWaitMillis = new AtomicLong();
+
+    public CompressionDispatcher(StringRedisTemplate redisTemplate,
+                                 CompressionLane lane,
+                                 ArtisanMemoryProperties.Dispatcher config,
+                                 SessionProcessor processor,
+                                 CompressionLeaseManager leaseManager,
+                                 ArtisanMemoryProperties.TenantScheduling tenantConfig) {
+        this.redisTemplate = redisTemplate;
+        this.lane = lane;
+        this.readyKey = lane == CompressionLane.BACKGROUND ? BACKGROUND_READY_KEY : READY_KEY;
+        this.config = config;
+        String threadPrefix = lane == CompressionLane.BACKGROUND ? "artisan-memory-bg" : "artisan-memory";
+        this.processor = processor;
+        this.leaseManager = leaseManager;
+        int workers = Math.max(1, config.getWorkerThreads());
+        this.workerPermits = new Semaphore(workers);
+        this.pollerExecutor = Executors.newFixedThreadPool(Math.max(1, config.getPollerThreads()), r -> {
+            Thread t = new Thread(r, threadPrefix + "-poller");
+            t.setDaemon(true);
+            return t;
+        });
+        this.workerExecutor = CompressionExecutors.newExecutor(config.getExecutorMode(), workers, threadPrefix + "-worker");
+        if (tenantConfig != null && tenantConfig.isEnabled()) {
+            this.tenantQueue = new TenantFairQueue(tenantConfig);
+            this.bufferPermits = new Semaphore(workers * 2);
+            this.schedulerThread = new Thread(this::scheduleLoop, threadPrefix + "-scheduler");
+            this.schedulerThread.setDaemon(true);
+        } else {
+            this.tenantQueue = null;
+            this.bufferPermits = null;
+            this.schedulerThread = null;
+        }
+    }
+
+    /**
+     * 启动轮询线程。
+     */
+    public void start() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        int pollers = Math.max(1, config.getPollerThreads());
+        for (int i = 0; i < pollers; i++) {
+            pollerExecutor.submit(this::pollLoop);
+        }
+        if (schedulerThread != null) {
+            schedulerThread.start();
+        }
+        log.info("[MEMORY]-[DISPATCHER] 压缩调度器已启动, lane: {}, pollers: {}, workers: {}, mode: {}, tenantScheduling: {}",
+                lane, pollers, Math.max(1, config.getWorkerThreads()), config.getExecutorMode(), tenantQueue != null);
+    }
+
+    /**
+     * 登记有待处理任务的会话。已登记的会话保持原有排队位置。
+     *
+     * @param sessionId 会话标识符
+     */
+    public void signal(String sessionId) {
+        signal(sessionId, 0);
+    }
+
+    /**
+     * 延迟登记会话，到期前轮询线程不会调度该会话。已登记的会话保持原有排队位置。
+     *
+     * @param sessionId   会话标识符
+     * @param delayMillis 延迟毫秒数
+     */
+    public void signal(String sessionId, long delayMillis) {
+        redisTemplate.opsForZSet().addIfAbsent(readyKey, sessionId, System.currentTimeMillis() + Math.max(0, delayMillis));
+    }
+
+    /**
+     * 防抖登记会话：到期时间推迟到 {@code now + idleMillis}，但不晚于首次登记后 {@code maxDelayMillis}。
+     *
+     * <p>到期时间保存在就绪集合的 score 中、截止时间保存在独立的 key 中，节点重启后仍然有效。
+     * 已到期（等待调度）的会话不再推迟；{@code idleMillis} 为 0 时立即到期。
+     *
+     * @param sessionId      会话标识符
+     * @param idleMillis     空闲等待毫秒数
+     * @param maxDelayMillis 首次登记后的最长延迟毫秒数
+     * @param onlyIfPending  为 true 时只推迟已登记的会话（会话有新活动时使用）
+     */
+    public void debounce(String sessionId, long idleMillis, long maxDelayMillis, boolean onlyIfPending) {
+        redisTemplate.execute(DEBOUNCE_SCRIPT, List.of(readyKey, deadlineKey(sessionId)), sessionId,
+                String.valueOf(System.currentTimeMillis()), String.valueOf(Math.max(0, idleMillis)),
+                String.valueOf(Math.max(0, maxDelayMillis)), onlyIfPending ? "1" : "0");
+    }
+
+    /**
+     * 清除会话的防抖截止时间，会话开始处理时调用。
+     *
+     * @param sessionId 会话标识符
+     */
+    public void clearDeadline(String sessionId) {
+        redisTemplate.delete(deadlineKey(sessionId));
+    }
+
+    private String deadlineKey(String sessionId) {
+        return readyKey + ":deadline:" + sessionId;
+    }
+
+    /**
+     * 就绪集合中等待调度的会话数。
+     *
+     * @return 等待调度的会话数
+     */
+    public long readyCount() {
+        Long size = redisTemplate.opsForZSet().zCard(readyKey);
+        return size != null ? size : 0;
+    }
+
+    /**
+     * 就绪集合中已到期、可以立即调度的会话数，不含防抖或租约退避而延迟登记的会话。
+     *
+     * @return 已到期的会话数
+     */
+    public long dueCount() {
+        Long count = redisTemplate.opsForZSet().count(readyKey, Double.NEGATIVE_INFINITY, System.currentTimeMillis());
+        return count != null ? count : 0;
+    }
+
+    /**
+     * 本节点正在处理的会话。
+     *
+     * @return 会话标识符列表
+     */
+    public List<String> inFlightSessions() {
+        return new ArrayList<>(inFlight.keySet());
+    }
+
+    /**
+     * 通道调度指标。
+     *
+     * @return 通道指标
+     */
+    public LaneStats laneStats() {
+        long count = dispatched.get();
+        return LaneStats.builder()
+                .lane(lane)
+                .ready(readyCount())
+                .inFlight(inFlight.size())
+                .workerThreads(Math.max(1, config.getWorkerThreads()))
+                .dispatched(count)
+                .avgWaitMillis(count > 0 ? totalWaitMillis.get() / count : 0)
+                .maxWaitMillis(maxWaitMillis.get())
+                .build();
+    }
+
+    /**
+     * 各租户的调度指标，未启用租户公平调度时返回空列表。
+     *
+     * @return 租户指标列表
+     */
+    public List<TenantStats> tenantStats() {
+        return tenantQueue != null ? tenantQueue.stats() : new ArrayList<>();
+    }
+
+    private void pollLoop() {
+        int timeoutSeconds = Math.max(1, config.getPollTimeoutSeconds());
+        // 启用租户调度时占用的是租户队列名额，由调度线程分配工作线程
+        Semaphore permits = tenantQueue != null ? bufferPermits : workerPermits;
+        while (running.get()) {
+            boolean acquired = false;
+            try {
+                // 1、先占用工作线程（或租户队列）名额，名额用完时不从 Redis 取出会话
+                acquired = permits.tryAcquire(timeoutSeconds, TimeUnit.SECONDS);
+                if (!acquired) {
+                    continue;
+                }
+
+                // 2、原子取出一个已到期的会话，没有到期的会话时稍后再查
+                String ready = redisTemplate.execute(POP_DUE_SCRIPT, List.of(readyKey),
+                        String.valueOf(System.currentTimeMillis()));
+                if (ready == null) {
+                    TimeUnit.MILLISECONDS.sleep(DELAYED_RECHECK_MILLIS);
+                    continue;
+                }
+                int separator = ready.indexOf(' ');
+                long score = (long) Double.parseDouble(ready.substring(0, separator));
+                String sessionId = ready.substring(separator + 1);
+
+                // 3、会话正在本节点处理，由当前工作线程继续消费
+                if (inFlight.putIfAbsent(sessionId, Boolean.TRUE) != null) {
+                    log.debug("[MEMORY]-[{}] 会话正在处理，忽略就绪信号", sessionId);
+                    continue;
+                }
+
+                // 4、交给工作线程（或租户队列），名额由工作线程（或调度线程）释放
+                recordWait(score);
+                acquired = false;
+                if (tenantQueue != null) {
+                    tenantQueue.offer(sessionId, score);
+                } else {
+                    workerExecutor.execute(() -> runSession(sessionId, null));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                if (running.get()) {
+                    log.error("[MEMORY]-[DISPATCHER] 轮询就绪集合失败", e);
+                    sleepQuietly(timeoutSeconds);
+                }
+            } finally {
+                if (acquired) {
+                    permits.release();
+                }
+            }
+        }
+        log.info("[MEMORY]-[DISPATCHER] 轮询线程退出");
+    }
+
+    private void scheduleLoop() {
+        while (running.get()) {
+            boolean acquired = false;
+            try {
+                workerPermits.acquire();
+                acquired = true;
+                TenantFairQueue.Entry entry = tenantQueue.take();
+                bufferPermits.release();
+                acquired = false;
+                workerExecutor.execute(() -> runSession(entry.getSessionId(), entry.getTenant()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                if (running.get()) {
+                    log.error("[MEMORY]-[DISPATCHER] 租户调度失败", e);
+                }
+            } finally {
+                if (acquired) {
+                    workerPermits.release();
+                }
+            }
+        }
+        log.info("[MEMORY]-[DISPATCHER] 调度线程退出");
+    }
+
+    private void runSession(String sessionId, String tenant) {
+        CompressionLease lease = null;
+        boolean leaseDenied = false;
+        try {
+            if (leaseManager != null) {
+                lease = leaseManager.tryAcquire(sessionId);
+                leaseDenied = lease == null;
+            }
+            if (!leaseDenied) {
+                processor.process(sessionId, lease);
+            }
+        } catch (Exception e) {
+            log.error("[MEMORY]-[{}] 处理压缩任务失败", sessionId, e);
+        } finally {
+            if (lease != null) {
+                leaseManager.release(lease);
+            }
+            inFlight.remove(sessionId);
+            workerPermits.release();
+            if (tenant != null) {
+                tenantQueue.complete(tenant);
+            }
+            try {
+                if (leaseDenied) {
+                    // 其他节点正在处理，租约到期后再检查（持有者崩溃时由本节点接管）
+                    long delay = leaseManager.remainingMillis(sessionId);
+                    log.debug("[MEMORY]-[{}] 会话租约被其他节点持有，{} ms 后重试", sessionId, delay);
+                    signal(sessionId, delay);
+                } else if (processor.hasPending(sessionId)) {
+                    // 处理期间到达的信号已被丢弃，或单次处理达到上限，需要重新登记
+                    signal(sessionId, processor.resignalDelayMillis(sessionId));
+                }
+            } catch (Exception e) {
+                log.error("[MEMORY]-[{}] 重新登记会话失败", sessionId, e);
+            }
+        }
+    }
+
+    /**
+     * 停止接收：轮询线程不再从就绪集合取出会话，已取出但尚未分配工作线程的会话重新登记，由其他节点处理。
+     * 正在处理的会话不受影响。可以重复调用。
+     *
+     * @return 重新登记的会话数
+     */
+    public int stopAccepting() {
+        running.set(false);
+        pollerExecutor.shutdownNow();
+        if (schedulerThread == null) {
+            return 0;
+        }
+        schedulerThread.interrupt();
+        return requeueUnscheduled();
+    }
+
+    /**
+     * 停止调度：不再取出新的会话，在截止时间内等待正在处理的会话完成；
+     * 到达截止时间后中断工作线程，被中断的会话把未完成的任务放回队列后退出。
+     *
+     * @param timeout 等待时长
+     * @param unit    时间单位
+     * @return 排空统计（requeuedTasks 由调用方填写）
+     */
+    public DrainStats shutdown(long timeout, TimeUnit unit) {
+        long start = System.currentTimeMillis();
+        int resignalled = stopAccepting();
+        int inFlightAtStart = inFlight.size();
+        int interrupted = 0;
+        workerExecutor.shutdown();
+        try {
+            if (!workerExecutor.awaitTermination(timeout, unit)) {
+                interrupted = inFlight.size();
+                log.warn("[MEMORY]-[DISPATCHER] 排空超时，中断 {} 个正在处理的会话, lane: {}", interrupted, lane);
+                workerExecutor.shutdownNow();
+                workerExecutor.awaitTermination(INTERRUPT_GRACE_SECONDS, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            workerExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        // 中断后仍未退出的会话重新登记，租约停止续期后由其他节点接管
+        List<String> abandoned = inFlightSessions();
+        for (String sessionId : abandoned) {
+            try {
+                signal(sessionId);
+            } catch (Exception e) {
+                log.error("[MEMORY]-[{}] 重新登记未完成会话失败", sessionId, e);
+            }
+        }
+        if (leaseManager != null) {
+            leaseManager.shutdown();
+        }
+        log.info("[MEMORY]-[DISPATCHER] 压缩调度器已停止, lane: {}", lane);
+        return DrainStats.builder()
+                .lane(lane)
+                .inFlightSessions(inFlightAtStart)
+                .completedSessions(Math.max(0, inFlightAtStart - interrupted))
+                .interruptedSessions(interrupted)
+                .resignalledSessions(resignalled)
+                .abandonedSessions(abandoned.size())
+                .durationMillis(System.currentTimeMillis() - start)
+                .timedOut(interrupted > 0)
+                .build();
+    }
+
+    private void recordWait(long readyAt) {
+        long wait = Math.max(0, System.currentTimeMillis() - readyAt);
+        dispatched.incrementAndGet();
+        totalWaitMillis.addAndGet(wait);
+        maxWaitMillis.accumulateAndGet(wait, Math::max);
+    }
+
+    private int requeueUnscheduled() {
+        int count = 0;
+        for (TenantFairQueue.Entry entry : tenantQueue.drain()) {
+            try {
+                inFlight.remove(entry.getSessionId());
+                signal(entry.getSessionId());
+                count++;
+            } catch (Exception e) {
+                log.error("[MEMORY]-[{}] 重新登记未调度会话失败", entry.getSessionId(), e);
+            }
+        }
+        return count;
+    }
+
+    private void sleepQuietly(int seconds) {
+        try {
+            TimeUnit.SECONDS.sleep(seconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
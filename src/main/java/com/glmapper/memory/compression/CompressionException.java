@@ -0,0 +1,28 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.compression;
+
+/**
+ * 压缩策略执行失败（LLM 调用失败、存储读写失败等），由 {@link WorkingMemoryCompression} 按重试策略重试。
+ */
+public class CompressionException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CompressionException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
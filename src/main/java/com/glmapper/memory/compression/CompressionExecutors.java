@@ -0,0 +1,77 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.compression;
+
+import com.glmapper.memory.config.ArtisanMemoryProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 压缩相关线程池的创建工具。
+ *
+ * <p>项目以 Java 17 编译，虚拟线程执行器通过反射获取，运行在 Java 21+ 时生效，否则回退到平台线程池。
+ * 虚拟线程模式下并发度不由线程数限制，调用方需要自行用信号量等方式限制同时执行的任务数，
+ * 避免把 LLM 接口和 Redis 连接池压垮。
+ *
+ * <p>注意：Java 21 中虚拟线程在 {@code synchronized} 块内阻塞会钉住载体线程，
+ * 压缩链路上的并发控制应使用 {@link java.util.concurrent.locks.ReentrantLock}、
+ * {@link java.util.concurrent.Semaphore} 等 j.u.c 工具，而不是 {@code synchronized}。
+ */
+@Slf4j
+public class CompressionExecutors {
+
+    private CompressionExecutors() {
+        // Utility class
+    }
+
+    /**
+     * 创建执行阻塞任务的线程池。
+     *
+     * @param mode    线程模式
+     * @param threads 平台线程模式下的线程数
+     * @param name    线程名前缀，平台线程名为 {@code name-序号}
+     * @return 线程池
+     */
+    public static ExecutorService newExecutor(ArtisanMemoryProperties.ExecutorMode mode, int threads, String name) {
+        if (mode == ArtisanMemoryProperties.ExecutorMode.VIRTUAL) {
+            ExecutorService virtual = newVirtualThreadExecutor();
+            if (virtual != null) {
+                log.info("[MEMORY]-[EXECUTOR] {} 使用虚拟线程", name);
+                return virtual;
+            }
+            log.warn("[MEMORY]-[EXECUTOR] 当前 Java 版本不支持虚拟线程，{} 回退到平台线程池", name);
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, name + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.compression;
+
+/**
+ * 压缩任务的优先级通道。
+ *
+ * <p>两个通道各有独立的就绪集合、轮询线程和工作线程，后台通道的慢任务不会阻塞快速通道。
+ */
+public enum CompressionLane {
+
+    /** 影响下一轮对话正确性的策略：Pin 判定、当前轮次摘要 */
+    FAST,
+
+    /** 只影响 token 效率、可以延后的策略：Pin 聚合、历史摘要 */
+    BACKGROUND
+}
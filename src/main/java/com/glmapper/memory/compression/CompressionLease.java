@@ -0,0 +1,64 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.compression;
+
+/**
+ * 会话压缩租约。
+ *
+ * <p>由 {@link CompressionLeaseManager} 发放，持有期间本节点拥有该会话的压缩权。
+ * 每次获取都会分配一个全局单调递增的 fencing token，较大的 token 代表较新的持有者。
+ */
+public class CompressionLease {
+
+    private final String sessionId;
+    private final long fencingToken;
+    private final String value;
+    private volatile boolean lost;
+
+    CompressionLease(String sessionId, long fencingToken, String value) {
+        this.sessionId = sessionId;
+        this.fencingToken = fencingToken;
+        this.value = value;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public long getFencingToken() {
+        return fencingToken;
+    }
+
+    String getValue() {
+        return value;
+    }
+
+    /**
+     * 续约失败（租约已过期或被其他节点取得）时标记为丢失。
+     */
+    void markLost() {
+        this.lost = true;
+    }
+
+    /**
+     * 根据最近一次续约结果判断租约是否仍然有效（不访问 Redis）。
+     *
+     * @return 未丢失时返回 true
+     */
+    public boolean isHeld() {
+        return !lost;
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.compression;
+
+import com.glmapper.memory.config.ArtisanMemoryProperties;
+import com.glmapper.memory.storage.WriteFence;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于 Redis 的会话压缩租约管理。
+ *
+ * <p>租约键为 {@code artisan:wm:lease:{sessionId}}，值为"节点标识:fencing token"：
+ * <ul>
+ *   <li>获取：INCR 全局计数器得到 fencing token，再 SET NX PX 写入租约</li>
+ *   <li>续约：后台线程按固定间隔对本节点持有的租约执行"值相同才 PEXPIRE"，失败则标记租约丢失</li>
+ *   <li>释放：值相同才 DEL，避免删除其他节点在本节点过期后取得的租约</li>
+ * </ul>
+ *
+ * <p>租约只在处理会话期间持有，会话空闲时不占用租约，工作可以在节点间自然再平衡。
+ */
+@Slf4j
+public class CompressionLeaseManager {
+
+    private static final String LEASE_KEY_PREFIX = "artisan:wm:lease:";
+    private static final String FENCE_KEY = "artisan:wm:lease:fence";
+
+    private static final DefaultRedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then "
+                    + "return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end", Long.class);
+
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then "
+                    + "return redis.call('del', KEYS[1]) else return 0 end", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ArtisanMemoryProperties.Lease config;
+    private final String keyPrefix;
+    private final String nodeId;
+    private final ConcurrentHashMap<String, CompressionLease> heldLeases = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService renewer;
+
+    public CompressionLeaseManager(StringRedisTemplate redisTemplate, ArtisanMemoryProperties.Lease config) {
+        this(redisTemplate, config, LEASE_KEY_PREFIX);
+    }
+
+    /**
+     * @param keyPrefix 租约 key 前缀，不同压缩通道使用不同前缀，互不阻塞
+     */
+    public CompressionLeaseManager(StringRedisTemplate redisTemplate, ArtisanMemoryProperties.Lease config, String keyPrefix) {
+        this.redisTemplate = redisTemplate;
+        this.config = config;
+        this.keyPrefix = keyPrefix;
+        this.nodeId = ManagementFactory.getRuntimeMXBean().getName() + ":"
+                + UUID.randomUUID().toString().substring(0, 8);
+        this.renewer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "artisan-memory-lease-renewer");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = Math.max(1, config.getRenewIntervalSeconds());
+        this.renewer.scheduleWithFixedDelay(this::renewAll, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 尝试获取会话租约。
+     *
+     * @param sessionId 会话标识符
+     * @return 租约，会话已被其他持有者占用时返回 null
+     */
+    public CompressionLease tryAcquire(String sessionId) {
+        Long token = redisTemplate.opsForValue().increment(FENCE_KEY);
+        if (token == null) {
+            return null;
+        }
+        String value = nodeId + ":" + token;
+        Boolean acquired = redisTemplate.opsForValue()
+                .setIfAbsent(keyPrefix + sessionId, value, ttlMillis(), TimeUnit.MILLISECONDS);
+        if (!Boolean.TRUE.equals(acquired)) {
+            return null;
+        }
+        CompressionLease lease = new CompressionLease(sessionId, token, value);
+        heldLeases.put(sessionId, lease);
+        log.debug("[MEMORY]-[{}] 已获取压缩租约, fencingToken: {}", sessionId, token);
+        return lease;
+    }
+
+    /**
+     * 向 Redis 确认租约仍由本节点持有（比 {@link CompressionLease#isHeld()} 更严格）。
+     *
+     * @param lease 租约
+     * @return 仍持有时返回 true
+     */
+    public boolean verify(CompressionLease lease) {
+        if (!lease.isHeld()) {
+            return false;
+        }
+        String current = redisTemplate.opsForValue().get(keyPrefix + lease.getSessionId());
+        if (!lease.getValue().equals(current)) {
+            lease.markLost();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 以租约为条件的写入 fence：只有租约键仍是本租约的值（节点标识与 fencing token）时写入才生效。
+     *
+     * @param lease 租约
+     * @return 写入条件
+     */
+    public WriteFence fence(CompressionLease lease) {
+        return new WriteFence(keyPrefix + lease.getSessionId(), lease.getValue());
+    }
+
+    /**
+     * 释放租约。
+     *
+     * @param lease 租约
+     */
+    public void release(CompressionLease lease) {
+        heldLeases.remove(lease.getSessionId(), lease);
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(keyPrefix + lease.getSessionId()), lease.getValue());
+        } catch (Exception e) {
+            // 释放失败时等待租约自然过期
+            log.warn("[MEMORY]-[{}] 释放压缩租约失败", lease.getSessionId(), e);
+        }
+    }
+
+    /**
+     * 会话当前租约的剩余有效期。
+     *
+     * @param sessionId 会话标识符
+     * @return 剩余毫秒数，没有租约时返回 0
+     */
+    public long remainingMillis(String sessionId) {
+        Long ttl = redisTemplate.getExpire(keyPrefix + sessionId, TimeUnit.MILLISECONDS);
+        return ttl != null && ttl > 0 ? ttl : 0;
+    }
+
+    /**
+     * 停止续约线程。未释放的租约会自然过期。
+     */
+    public void shutdown() {
+        renewer.shutdownNow();
+    }
+
+    private void renewAll() {
+        for (CompressionLease lease : heldLeases.values()) {
+            try {
+                Long renewed = redisTemplate.execute(RENEW_SCRIPT,
+                        List.of(keyPrefix + lease.getSessionId()), lease.getValue(), String.valueOf(ttlMillis()));
+                if (renewed == null || renewed == 0) {
+                    lease.markLost();
+                    heldLeases.remove(lease.getSessionId(), lease);
+                    log.warn("[MEMORY]-[{}] 压缩租约已丢失, fencingToken: {}", lease.getSessionId(), lease.getFencingToken());
+                }
+            } catch (Exception e) {
+                log.warn("[MEMORY]-[{}] 压缩租约续约失败", lease.getSessionId(), e);
+            }
+        }
+    }
+
+    private long ttlMillis() {
+        return TimeUnit.SECONDS.toMillis(Math.max(1, config.getTtlSeconds()));
+    }
+}
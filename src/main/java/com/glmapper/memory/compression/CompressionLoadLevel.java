@@ -0,0 +1,31 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.compression;
+
+/**
+ * 压缩积压等级，由 {@link CompressionAdmission} 根据水位计算。
+ */
+public enum CompressionLoadLevel {
+
+    /** 正常，执行全部策略 */
+    NORMAL,
+
+    /** 积压较高，跳过 Pin 聚合等可选策略 */
+    ELEVATED,
+
+    /** 积压严重，当前轮次摘要改为确定性截断，低价值轮次不做 Pin 判定 */
+    CRITICAL
+}
@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
+import java.util.UUID;
 
 /**
  * 压缩任务实体。
@@ -21,6 +22,11 @@ import java.io.Serializable;
 public class CompressionTask implements Serializable {
     private static final long serialVersionUID = 1L;
 
+    /**
+     * 任务标识符，用于记录重试次数（旧版本提交的任务可能为 null）
+     */
+    private String taskId;
+
     /**
      * 会话标识符
      */
@@ -35,4 +41,8 @@ public class CompressionTask implements Serializable {
      * 从 Tail 移出的消息对（可能为 null）
      */
     private MessagePair evictedPair;
+
+    public CompressionTask(String sessionId, MessagePair currentPair, MessagePair evictedPair) {
+        this(UUID.randomUUID().toString(), sessionId, currentPair, evictedPair);
+    }
 }
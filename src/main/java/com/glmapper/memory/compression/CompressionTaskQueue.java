@@ -0,0 +1,76 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.compression;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 每会话的压缩任务队列。
+ *
+ * <p>队列只负责按会话保存和取出任务，调度由 {@link CompressionDispatcher} 完成。
+ * 同一会话的任务按写入顺序取出。
+ */
+public interface CompressionTaskQueue {
+
+    /**
+     * 追加任务。
+     *
+     * @param sessionId 会话标识符
+     * @param payload   序列化后的任务
+     */
+    void push(String sessionId, String payload);
+
+    /**
+     * 取出会话最早的若干条任务。
+     *
+     * @param sessionId 会话标识符
+     * @param max       最多取出的条数
+     * @return 按写入顺序排列的任务，没有任务时为空列表
+     */
+    List<QueuedTask> poll(String sessionId, int max);
+
+    /**
+     * 确认任务已处理完成。不需要确认的实现可以忽略。
+     *
+     * @param sessionId 会话标识符
+     * @param task      已处理的任务
+     */
+    void ack(String sessionId, QueuedTask task);
+
+    /**
+     * 把已取出但未处理的任务放回队列头部，下次按原顺序重新取出。
+     *
+     * @param sessionId 会话标识符
+     * @param tasks     按取出顺序排列的未处理任务
+     */
+    void requeue(String sessionId, List<QueuedTask> tasks);
+
+    /**
+     * 会话是否仍有未完成的任务。
+     *
+     * @param sessionId 会话标识符
+     * @return 有未完成任务时返回 true
+     */
+    boolean hasPending(String sessionId);
+
+    /**
+     * 遍历所有有未完成任务的会话。
+     *
+     * @param action 对每个会话执行的操作
+     */
+    void forEachPendingSession(Consumer<String> action);
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.compression;
+
+import com.glmapper.memory.model.WorkingMemory;
+import com.glmapper.memory.storage.WorkingMemoryStorage;
+import com.glmapper.memory.storage.WriteFence;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 压缩工作单元：一次压缩任务只加载一次 WorkingMemory，所有策略在同一个对象上修改，最后一次性保存。
+ *
+ * <p>事件处理器通过 {@link #getWorkingMemory()} 读取工作记忆，修改后标记变化的区域；
+ * {@link #commit()} 只写入变化的区域（见 {@link WorkingMemoryStorage#saveCompressed}），
+ * 不覆盖对话提交路径维护的 Head / Tail，读取方也看不到策略之间的中间状态。
+ *
+ * <p>非线程安全，一个工作单元只在一个工作线程上使用；并行执行策略时由调用方先加载工作记忆，
+ * 各策略并行阶段只读取，写入在调用线程上依次执行。
+ */
+@Slf4j
+public class CompressionUnitOfWork {
+
+    private final String sessionId;
+    private final WorkingMemoryStorage storage;
+    private final boolean standalone;
+    private WorkingMemory workingMemory;
+    private boolean timingContextWindowChanged;
+    private boolean pinsChanged;
+    private final List<Runnable> afterCommit = new ArrayList<>();
+
+    /**
+     * @param sessionId  会话标识符
+     * @param storage    工作记忆存储
+     * @param standalone 是否为事件处理器自行创建的工作单元（事件不是由压缩任务发起时），由处理器自行提交
+     */
+    public CompressionUnitOfWork(String sessionId, WorkingMemoryStorage storage, boolean standalone) {
+        this.sessionId = sessionId;
+        this.storage = storage;
+        this.standalone = standalone;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public boolean isStandalone() {
+        return standalone;
+    }
+
+    /**
+     * 工作记忆，首次访问时加载。
+     *
+     * @return 工作记忆
+     */
+    public WorkingMemory getWorkingMemory() {
+        if (workingMemory == null) {
+            workingMemory = storage.load(sessionId);
+            if (workingMemory.getConversationId() == null) {
+                workingMemory.setConversationId(sessionId);
+            }
+        }
+        return workingMemory;
+    }
+
+    /**
+     * 标记 timingContextWindow 已修改。
+     */
+    public void timingContextWindowChanged() {
+        this.timingContextWindowChanged = true;
+    }
+
+    /**
+     * 标记 pinnedFacts 已修改。
+     */
+    public void pinsChanged() {
+        this.pinsChanged = true;
+    }
+
+    /**
+     * 是否有未保存的修改。
+     *
+     * @return 有修改时返回 true
+     */
+    public boolean isDirty() {
+        return timingContextWindowChanged || pinsChanged;
+    }
+
+    /**
+     * 登记保存成功后执行的动作（例如写入摘要树等附属数据），任务失败或放弃保存时不执行。
+     *
+     * @param action 动作，失败只记录日志
+     */
+    public void afterCommit(Runnable action) {
+        afterCommit.add(action);
+    }
+
+    /**
+     * 保存修改过的区域，没有修改时不访问存储；之后执行登记的动作。
+     */
+    public void commit() {
+        commit(null);
+    }
+
+    /**
+     * 在 fence 仍成立时保存修改过的区域，之后执行登记的动作。fence 不成立时不保存，也不执行登记的动作。
+     *
+     * @param fence 写入条件（通常是压缩租约），为 null 时不检查
+     * @return 已保存（或没有修改）时返回 true，fence 不成立时返回 false
+     */
+    public boolean commit(WriteFence fence) {
+        if (isDirty()) {
+            if (!storage.saveCompressed(workingMemory, timingContextWindowChanged, pinsChanged, fence)) {
+                afterCommit.clear();
+                return false;
+            }
+            timingContextWindowChanged = false;
+            pinsChanged = false;
+        }
+        for (Runnable action : afterCommit) {
+            try {
+                action.run();
+            } catch (Exception e) {
+                log.warn("[MEMORY]-[{}] 压缩结果保存后的附属操作失败", sessionId, e);
+            }
+        }
+        afterCommit.clear();
+        return true;
+    }
+}
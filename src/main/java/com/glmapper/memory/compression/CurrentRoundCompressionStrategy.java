@@ -112,6 +112,120 @@ public class CurrentRoundCompressionStrategy implements CompressionStrategy {
         }
     }
 
+    /**
+     * 对多个连续移出的消息对一起处理（合并模式下使用）。
+     *
+     * <p>多个消息对的总 token 数超过阈值时，用一次 LLM 调用生成一条合并摘要；否则返回 notCompressed，
+     * 由调用方按顺序添加原文。只有一个消息对时与 {@link #compress} 相同。
+     *
+     * @param conversationId 会话标识符
+     * @param workingMemory  工作记忆
+     * @param evictedPairs   按时间顺序排列的移出消息对
+     * @return 如果生成了摘要，返回包含摘要消息的 compressed 结果；否则返回 notCompressed
+     */
+    public CompressionResult compressBatch(String conversationId, WorkingMemory workingMemory, List<MessagePair> evictedPairs) {
+        List<MessagePair> pairs = new ArrayList<>();
+        for (MessagePair pair : evictedPairs) {
+            if (pair != null && pair.isComplete()) {
+                pairs.add(pair);
+            }
+        }
+        if (pairs.size() <= 1) {
+            return compress(conversationId, workingMemory, pairs.isEmpty() ? null : pairs.get(0));
+        }
+
+        int tokenCount = 0;
+        for (MessagePair pair : pairs) {
+            tokenCount += TokenCounterUtil.calculateToken(pair.getAllMessages());
+        }
+        if (tokenCount <= currentRoundTokenThreshold) {
+            log.debug("{}: batch tokenCount={} <= threshold={}, no summarization needed, pairs={}, sessionId={}", this.getName(), tokenCount, currentRoundTokenThreshold, pairs.size(), conversationId);
+            return CompressionResult.notCompressed();
+        }
+        if (chatClient == null) {
+            log.warn("ChatClient not available, skipping summarization");
+            return CompressionResult.notCompressed();
+        }
+
+        log.info("{} triggered for batch: tokenCount={}, threshold={}, pairs={}, sessionId={}", this.getName(), tokenCount, currentRoundTokenThreshold, pairs.size(), conversationId);
+        Msg summaryMsg = generateSummary(pairs);
+        if (summaryMsg == null) {
+            log.warn("Batch summarization failed, returning notCompressed");
+            return CompressionResult.notCompressed();
+        }
+        int compressedTokens = TokenCounterUtil.calculateToken(List.of(summaryMsg));
+        log.info("{} completed for batch: originalTokens={}, compressedTokens={}, pairs={}, sessionId={}", this.getName(), tokenCount, compressedTokens, pairs.size(), conversationId);
+        return CompressionResult.compressedWithSummary(summaryMsg, pairs.size());
+    }
+
+    /**
+     * 不调用 LLM，按字符数截断超过阈值的移出消息对（压缩积压时的降级路径）。
+     *
+     * <p>与 {@link #compressBatch} 使用相同的 token 阈值：未超限时返回 notCompressed，由调用方添加原文；
+     * 超限时每条用户 / 助手消息只保留前 {@code maxChars} 个字符，工具调用只保留条数。
+     *
+     * @param conversationId 会话标识符
+     * @param evictedPairs   按时间顺序排列的移出消息对
+     * @param maxChars       每条消息保留的最大字符数
+     * @return 如果做了截断，返回包含截断消息的 compressed 结果；否则返回 notCompressed
+     */
+    public CompressionResult truncateBatch(String conversationId, List<MessagePair> evictedPairs, int maxChars) {
+        List<MessagePair> pairs = new ArrayList<>();
+        int tokenCount = 0;
+        for (MessagePair pair : evictedPairs) {
+            if (pair != null && pair.isComplete()) {
+                pairs.add(pair);
+                tokenCount += TokenCounterUtil.calculateToken(pair.getAllMessages());
+            }
+        }
+        if (pairs.isEmpty() || tokenCount <= currentRoundTokenThreshold) {
+            return CompressionResult.notCompressed();
+        }
+
+        StringBuilder text = new StringBuilder("[当前轮次截断]");
+        for (int i = 0; i < pairs.size(); i++) {
+            MessagePair pair = pairs.get(i);
+            if (pairs.size() > 1) {
+                text.append("\n[Round ").append(i + 1).append("]");
+            }
+            text.append("\nUser: ").append(truncate(pair.getUserMessage().getTextContent(), maxChars));
+            if (pair.getIntermediateMessages() != null && !pair.getIntermediateMessages().isEmpty()) {
+                text.append("\n[包含 ").append(pair.getIntermediateMessages().size()).append(" 条工具调用消息]");
+            }
+            if (pair.getAssistantMessage() != null) {
+                text.append("\nAssistant: ").append(truncate(pair.getAssistantMessage().getTextContent(), maxChars));
+            }
+        }
+        Msg summaryMsg = Msg.builder()
+                .role(MsgRole.ASSISTANT)
+                .content(TextBlock.of(text.toString()))
+                .build();
+
+        MessagePair last = pairs.get(pairs.size() - 1);
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("summary", true);
+        metadata.put("summary_type", "current_round_truncated");
+        metadata.put("original_user_msg_id", last.getUserMessage().getId());
+        if (last.getAssistantMessage() != null) {
+            metadata.put("original_assistant_msg_id", last.getAssistantMessage().getId());
+        }
+        if (pairs.size() > 1) {
+            metadata.put("summarized_rounds", pairs.size());
+            metadata.put("first_user_msg_id", pairs.get(0).getUserMessage().getId());
+        }
+        summaryMsg.setMetadata(metadata);
+        log.info("{} truncated without LLM: originalTokens={}, pairs={}, sessionId={}", this.getName(), tokenCount, pairs.size(), conversationId);
+        return CompressionResult.compressedWithSummary(summaryMsg, pairs.size());
+    }
+
+    private String truncate(String text, int maxChars) {
+        if (text == null) {
+            return "";
+        }
+        int limit = Math.max(0, maxChars);
+        return text.length() <= limit ? text : text.substring(0, limit) + "...";
+    }
+
     /**
      * 使用 LLM 生成摘要消息
      *
@@ -119,18 +233,34 @@ public class CurrentRoundCompressionStrategy implements CompressionStrategy {
      * @return 摘要消息，如果失败返回 null
      */
     private Msg generateSummary(MessagePair pair) {
+        return generateSummary(List.of(pair));
+    }
+
+    /**
+     * 使用一次 LLM 调用为一个或多个连续的消息对生成摘要消息
+     *
+     * @param pairs 要摘要的消息对（按时间顺序）
+     * @return 摘要消息，如果失败返回 null
+     */
+    private Msg generateSummary(List<MessagePair> pairs) {
         try {
             List<Message> promptMessages = new ArrayList<>();
             promptMessages.add(new SystemMessage(getPromptOrDefault(promptConfig != null ? promptConfig.getCurrentRoundCompressionPrompt() : null, Prompts.CURRENT_ROUND_COMPRESSION_PROMPT)));
 
             StringBuilder pairText = new StringBuilder();
-            pairText.append("User: ").append(pair.getUserMessage().getTextContent()).append("\n\n");
-            if (pair.getAssistantMessage() != null) {
-                pairText.append("Assistant: ").append(pair.getAssistantMessage().getTextContent()).append("\n");
-            }
-            // 包含工具调用信息
-            if (pair.getIntermediateMessages() != null && !pair.getIntermediateMessages().isEmpty()) {
-                pairText.append("\n[包含 ").append(pair.getIntermediateMessages().size()).append(" 条工具调用消息]\n");
+            for (int i = 0; i < pairs.size(); i++) {
+                MessagePair pair = pairs.get(i);
+                if (pairs.size() > 1) {
+                    pairText.append(i == 0 ? "" : "\n").append("[Round ").append(i + 1).append("]\n");
+                }
+                pairText.append("User: ").append(pair.getUserMessage().getTextContent()).append("\n\n");
+                if (pair.getAssistantMessage() != null) {
+                    pairText.append("Assistant: ").append(pair.getAssistantMessage().getTextContent()).append("\n");
+                }
+                // 包含工具调用信息
+                if (pair.getIntermediateMessages() != null && !pair.getIntermediateMessages().isEmpty()) {
+                    pairText.append("\n[包含 ").append(pair.getIntermediateMessages().size()).append(" 条工具调用消息]\n");
+                }
             }
             promptMessages.add(new UserMessage(pairText.toString()));
 
@@ -143,7 +273,8 @@ public class CurrentRoundCompressionStrategy implements CompressionStrategy {
                     .content(TextBlock.of("[当前轮次摘要] " + summaryText))
                     .build();
 
-            // 添加元数据
+            // 添加元数据（合并摘要记录最后一轮的消息 ID 以及轮次数）
+            MessagePair pair = pairs.get(pairs.size() - 1);
             Map<String, Object> metadata = new HashMap<>();
             metadata.put("summary", true);
             metadata.put("summary_type", "current_round");
@@ -151,6 +282,10 @@ public class CurrentRoundCompressionStrategy implements CompressionStrategy {
             if (pair.getAssistantMessage() != null) {
                 metadata.put("original_assistant_msg_id", pair.getAssistantMessage().getId());
             }
+            if (pairs.size() > 1) {
+                metadata.put("summarized_rounds", pairs.size());
+                metadata.put("first_user_msg_id", pairs.get(0).getUserMessage().getId());
+            }
             summaryMsg.setMetadata(metadata);
 
             return summaryMsg;
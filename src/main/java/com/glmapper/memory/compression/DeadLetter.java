@@ -0,0 +1,52 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.compression;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 死信队列中的压缩任务。
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeadLetter {
+
+    /** 死信标识符 */
+    private String id;
+
+    /** 会话标识符 */
+    private String sessionId;
+
+    /** 任务所属通道 */
+    private CompressionLane lane;
+
+    /** 快速通道为压缩任务 JSON，后台通道为事件类型 */
+    private String payload;
+
+    /** 已尝试次数 */
+    private int attempts;
+
+    /** 最后一次失败的原因 */
+    private String error;
+
+    /** 进入死信队列的时间（毫秒） */
+    private long failedAt;
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.compression;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 压缩任务死信队列（Redis List，key: artisan:wm:dlq），最新的死信在最前面。
+ *
+ * <p>超过 {@code maxSize} 的最旧死信被截断。按标识符查找需要遍历列表，只用于管理接口。
+ */
+@Slf4j
+public class DeadLetterQueue {
+
+    private static final String DLQ_KEY = "artisan:wm:dlq";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final int maxSize;
+
+    public DeadLetterQueue(StringRedisTemplate redisTemplate, ObjectMapper objectMapper, int maxSize) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.maxSize = Math.max(1, maxSize);
+    }
+
+    /**
+     * 写入死信。
+     *
+     * @param deadLetter 死信
+     */
+    public void add(DeadLetter deadLetter) {
+        try {
+            redisTemplate.opsForList().leftPush(DLQ_KEY, objectMapper.writeValueAsString(deadLetter));
+            redisTemplate.opsForList().trim(DLQ_KEY, 0, maxSize - 1);
+        } catch (Exception e) {
+            log.error("[MEMORY]-[{}] 写入死信队列失败, payload: {}", deadLetter.getSessionId(), deadLetter.getPayload(), e);
+        }
+    }
+
+    /**
+     * 分页查看死信。
+     *
+     * @param offset 起始位置
+     * @param limit  条数
+     * @return 死信列表
+     */
+    public List<DeadLetter> list(int offset, int limit) {
+        List<DeadLetter> deadLetters = new ArrayList<>();
+        if (limit <= 0) {
+            return deadLetters;
+        }
+        List<String> values = redisTemplate.opsForList().range(DLQ_KEY, Math.max(0, offset), Math.max(0, offset) + limit - 1);
+        if (values != null) {
+            for (String value : values) {
+                DeadLetter deadLetter = parse(value);
+                if (deadLetter != null) {
+                    deadLetters.add(deadLetter);
+                }
+            }
+        }
+        return deadLetters;
+    }
+
+    /**
+     * 死信条数。
+     *
+     * @return 条数
+     */
+    public long size() {
+        Long size = redisTemplate.opsForList().size(DLQ_KEY);
+        return size != null ? size : 0;
+    }
+
+    /**
+     * 按标识符取出并删除死信。
+     *
+     * @param id 死信标识符
+     * @return 被删除的死信，不存在时返回 null
+     */
+    public DeadLetter remove(String id) {
+        List<String> values = redisTemplate.opsForList().range(DLQ_KEY, 0, -1);
+        if (values == null) {
+            return null;
+        }
+        for (String value : values) {
+            DeadLetter deadLetter = parse(value);
+            if (deadLetter != null && id.equals(deadLetter.getId())) {
+                Long removed = redisTemplate.opsForList().remove(DLQ_KEY, 1, value);
+                return removed != null && removed > 0 ? deadLetter : null;
+            }
+        }
+        return null;
+    }
+
+    private DeadLetter parse(String value) {
+        try {
+            return objectMapper.readValue(value, DeadLetter.class);
+        } catch (Exception e) {
+            log.warn("[MEMORY]-[DLQ] 无法解析死信: {}", value);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.compression;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 单个压缩通道在停机排空（drain）时的统计。
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DrainStats {
+
+    /** 通道 */
+    private CompressionLane lane;
+
+    /** 开始排空时本节点正在处理的会话数 */
+    private int inFlightSessions;
+
+    /** 在截止时间内处理完成的会话数 */
+    private int completedSessions;
+
+    /** 到达截止时间时被中断的会话数 */
+    private int interruptedSessions;
+
+    /** 已取出但尚未分配工作线程、重新登记到就绪集合的会话数 */
+    private int resignalledSessions;
+
+    /** 中断后仍未退出的会话数，这些会话已重新登记，但内存中已取出的任务可能丢失 */
+    private int abandonedSessions;
+
+    /** 放回持久队列、由其他节点继续处理的任务数 */
+    private int requeuedTasks;
+
+    /** 排空耗时（毫秒） */
+    private long durationMillis;
+
+    /** 是否达到截止时间 */
+    private boolean timedOut;
+}
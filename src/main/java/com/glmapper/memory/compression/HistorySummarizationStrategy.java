@@ -44,6 +44,9 @@ import java.util.Map;
  *   <li>如果没有超过：不做任何操作</li>
  * </ul>
  *
+ * <p>开启 incrementalHistorySummary 时，timingContextWindow 开头的上一次历史摘要作为已有摘要，
+ * 只把之后新增的消息发给 LLM 更新摘要，每次调用的输入不随会话长度增长。
+ *
  * <p>注意：
  * <ul>
  *   <li>此策略只负责生成摘要，不负责存储到 timingContextWindow</li>
@@ -57,11 +60,14 @@ import java.util.Map;
 public class HistorySummarizationStrategy implements CompressionStrategy {
 
     private static final Logger log = LoggerFactory.getLogger(HistorySummarizationStrategy.class);
+    private static final String HISTORY_SUMMARY_PREFIX = "[历史对话摘要] ";
 
     private final ChatClient chatClient;
     private final PromptConfig promptConfig;
     private final int timingContextWindowMaxSize;
     private final int timingContextWindowTokenThreshold;
+    private final boolean incremental;
+    private final int summaryMaxTokens;
 
     public HistorySummarizationStrategy(ChatClient chatClient, PromptConfig promptConfig, ArtisanMemoryProperties memoryProperties) {
         this.chatClient = chatClient;
@@ -69,6 +75,25 @@ public class HistorySummarizationStrategy implements CompressionStrategy {
         this.timingContextWindowMaxSize = memoryProperties.getWorkingMemory().getTimingContextWindowMaxSize();
         this.timingContextWindowTokenThreshold = memoryProperties.getWorkingMemory()
                 .getTimingContextWindowTokenThreshold();
+        this.incremental = memoryProperties.getWorkingMemory().isIncrementalHistorySummary();
+        this.summaryMaxTokens = memoryProperties.getWorkingMemory().getHistorySummaryMaxTokens();
+    }
+
+    /**
+     * 计算 timingContextWindow 的压力：token 数与阈值之比、条数与上限之比中的较大者，达到 1 时会触发摘要。
+     *
+     * @param workingMemory 工作记忆
+     * @return 压力比例
+     */
+    public double pressure(WorkingMemory workingMemory) {
+        List<Msg> timingContextWindow = workingMemory.getTimingContextWindow();
+        if (timingContextWindow == null || timingContextWindow.isEmpty()) {
+            return 0;
+        }
+        double sizeRatio = (double) timingContextWindow.size() / Math.max(1, timingContextWindowMaxSize);
+        double tokenRatio = (double) TokenCounterUtil.calculateToken(timingContextWindow)
+                / Math.max(1, timingContextWindowTokenThreshold);
+        return Math.max(sizeRatio, tokenRatio);
     }
 
     @Override
@@ -97,8 +122,12 @@ public class HistorySummarizationStrategy implements CompressionStrategy {
 
         log.info("{} triggered: windowSize={}, maxSize={}, tokens={}, threshold={}, sessionId={}", this.getName(), windowSize, timingContextWindowMaxSize, totalTokens, timingContextWindowTokenThreshold, conversationId);
 
-        // 生成历史摘要
-        Msg summaryMsg = generateHistorySummary(timingContextWindow);
+        // 生成历史摘要：增量模式下已有摘要之后有新增消息时，只发送已有摘要与新增消息
+        Msg previousSummary = incremental && windowSize > 1 && isHistorySummary(timingContextWindow.get(0))
+                ? timingContextWindow.get(0) : null;
+        Msg summaryMsg = previousSummary != null
+                ? generateIncrementalSummary(previousSummary, timingContextWindow.subList(1, windowSize))
+                : generateHistorySummary(timingContextWindow);
         if (summaryMsg == null) {
             log.warn("Failed to generate history summary");
             return CompressionResult.notCompressed();
@@ -143,7 +172,7 @@ public class HistorySummarizationStrategy implements CompressionStrategy {
             // 创建摘要消息
             Msg summaryMsg = Msg.builder()
                     .role(MsgRole.ASSISTANT)
-                    .content(TextBlock.of("[历史对话摘要] " + summaryText))
+                    .content(TextBlock.of(HISTORY_SUMMARY_PREFIX + summaryText))
                     .build();
 
             // 添加元数据
@@ -160,6 +189,76 @@ public class HistorySummarizationStrategy implements CompressionStrategy {
         }
     }
 
+    /**
+     * 在已有历史摘要的基础上合并新增消息，生成更新后的摘要。
+     *
+     * @param previousSummary 上一次的历史摘要
+     * @param newMessages     摘要之后新增的消息
+     * @return 更新后的历史摘要消息，如果失败返回 null
+     */
+    private Msg generateIncrementalSummary(Msg previousSummary, List<Msg> newMessages) {
+        try {
+            List<Message> promptMessages = new ArrayList<>();
+            promptMessages.add(new SystemMessage(getPromptOrDefault(promptConfig != null ? promptConfig.getIncrementalHistorySummarizationPrompt() : null, Prompts.INCREMENTAL_HISTORY_SUMMARIZATION_PROMPT)));
+
+            StringBuilder messagesText = new StringBuilder();
+            messagesText.append("Previous Summary:\n\n")
+                    .append(stripSummaryPrefix(previousSummary.getTextContent()))
+                    .append("\n\nNew Messages:\n\n");
+            for (int i = 0; i < newMessages.size(); i++) {
+                Msg msg = newMessages.get(i);
+                String roleStr = msg.getRole() != null ? msg.getRole().name() : "UNKNOWN";
+                messagesText.append("[")
+                        .append(i + 1)
+                        .append("] ")
+                        .append(roleStr)
+                        .append(": ")
+                        .append(msg.getTextContent())
+                        .append("\n\n");
+            }
+            messagesText.append("Keep the updated summary under ").append(summaryMaxTokens).append(" tokens.");
+            promptMessages.add(new UserMessage(messagesText.toString()));
+
+            // 调用 LLM
+            String summaryText = chatClient.prompt().messages(promptMessages).call().content();
+
+            Msg summaryMsg = Msg.builder()
+                    .role(MsgRole.ASSISTANT)
+                    .content(TextBlock.of(HISTORY_SUMMARY_PREFIX + summaryText))
+                    .build();
+
+            // 覆盖的原始消息数在上一次摘要的基础上累加
+            Map<String, Object> metadata = new HashMap<>();
+            metadata.put("summary", true);
+            metadata.put("summary_type", "history");
+            metadata.put("incremental", true);
+            metadata.put("original_message_count", originalMessageCount(previousSummary) + newMessages.size());
+            summaryMsg.setMetadata(metadata);
+
+            return summaryMsg;
+        } catch (Exception e) {
+            log.error("Failed to generate incremental history summary", e);
+            return null;
+        }
+    }
+
+    private boolean isHistorySummary(Msg msg) {
+        Map<String, Object> metadata = msg.getMetadata();
+        return metadata != null && "history".equals(metadata.get("summary_type"));
+    }
+
+    private int originalMessageCount(Msg summary) {
+        Object count = summary.getMetadata() != null ? summary.getMetadata().get("original_message_count") : null;
+        return count instanceof Number ? ((Number) count).intValue() : 1;
+    }
+
+    private String stripSummaryPrefix(String text) {
+        if (text != null && text.startsWith(HISTORY_SUMMARY_PREFIX)) {
+            return text.substring(HISTORY_SUMMARY_PREFIX.length());
+        }
+        return text;
+    }
+
     private String getPromptOrDefault(String customPrompt, String defaultPrompt) {
         if (customPrompt != null && !customPrompt.isBlank()) {
             return customPrompt;
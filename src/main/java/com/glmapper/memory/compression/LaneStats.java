@@ -0,0 +1,52 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.compression;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 单个压缩通道的调度指标。
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LaneStats {
+
+    /** 通道 */
+    private CompressionLane lane;
+
+    /** 就绪集合中等待调度的会话数（全局） */
+    private long ready;
+
+    /** 本节点正在处理的会话数 */
+    private int inFlight;
+
+    /** 本节点工作线程数（并发上限） */
+    private int workerThreads;
+
+    /** 本节点累计调度的会话数 */
+    private long dispatched;
+
+    /** 平均等待时间（毫秒，从登记到就绪集合到开始处理） */
+    private long avgWaitMillis;
+
+    /** 最大等待时间（毫秒） */
+    private long maxWaitMillis;
+}
@@ -21,6 +21,7 @@ import com.glmapper.memory.model.Msg;
 import com.glmapper.memory.model.Pin;
 import com.glmapper.memory.model.TextBlock;
 import com.glmapper.memory.model.WorkingMemory;
+import com.glmapper.memory.util.TextTokenizer;
 import com.glmapper.memory.util.TokenCounterUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
@@ -29,7 +30,12 @@ import org.springframework.ai.chat.messages.SystemMessage;
 import org.springframework.ai.chat.messages.UserMessage;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Pin 聚合压缩策略。
@@ -50,6 +56,10 @@ import java.util.List;
  *   <li>清空现有 Pins，添加新的聚合 Pin</li>
  * </ul>
  *
+ * <p>开启 {@code incrementalPinAggregation} 后改为增量聚合：聚合结果是一个按节保存条目的 Pin，
+ * 之后只把新增的 Pin 按关键词归入对应的节，与同节条目按词项相似度比较——重复的直接替换为新表述，
+ * 相近（可能冲突）的才交给 LLM，且只发送该节的条目，LLM 输入不随 Pin 总数增长；LLM 不可用时由新 Pin 覆盖最相近的旧条目。
+ *
  * @author glsong
  * @since 1.0.0
  */
@@ -60,12 +70,30 @@ public class PinAggregationStrategy implements CompressionStrategy {
     private final PromptConfig promptConfig;
     private final int maxPinCount;
     private final int maxPinTokens;
+    private final boolean incremental;
+    private final int sectionMaxEntries;
+    private final double duplicateSimilarity;
+    private final double conflictSimilarity;
+
+    private static final String SECTION_CONSTRAINT = "约束";
+    private static final String SECTION_DECISION = "决策";
+    private static final String SECTION_PREFERENCE = "偏好";
+    private static final String SECTION_FACT = "背景/事实";
+    private static final List<String> SECTION_ORDER = List.of(SECTION_CONSTRAINT, SECTION_DECISION, SECTION_PREFERENCE, SECTION_FACT);
+
+    private static final List<String> CONSTRAINT_KEYWORDS = List.of("必须", "不能", "禁止", "只能", "不允许", "不要", "要求", "must", "never");
+    private static final List<String> DECISION_KEYWORDS = List.of("决定", "确认", "采用", "选择", "结论", "改为", "decided");
+    private static final List<String> PREFERENCE_KEYWORDS = List.of("偏好", "喜欢", "倾向", "习惯", "希望", "prefer");
 
     public PinAggregationStrategy(ChatClient chatClient, PromptConfig promptConfig, ArtisanMemoryProperties memoryProperties) {
         this.chatClient = chatClient;
         this.promptConfig = promptConfig;
         this.maxPinCount = memoryProperties.getWorkingMemory().getMaxPinCount();
         this.maxPinTokens = memoryProperties.getWorkingMemory().getMaxPinTokens();
+        this.incremental = memoryProperties.getWorkingMemory().isIncrementalPinAggregation();
+        this.sectionMaxEntries = Math.max(1, memoryProperties.getWorkingMemory().getPinSectionMaxEntries());
+        this.duplicateSimilarity = memoryProperties.getWorkingMemory().getPinDuplicateSimilarity();
+        this.conflictSimilarity = memoryProperties.getWorkingMemory().getPinConflictSimilarity();
     }
 
     @Override
@@ -83,6 +111,9 @@ public class PinAggregationStrategy implements CompressionStrategy {
      */
     @Override
     public CompressionResult compress(String conversationId, WorkingMemory workingMemory, MessagePair currentPair) {
+        if (incremental) {
+            return compressIncrementally(conversationId, workingMemory);
+        }
         if (chatClient == null) {
             log.warn("[MEMORY]-[{}] ChatClient 不可用，跳过 Pin 聚合", conversationId);
             return CompressionResult.notCompressed();
@@ -145,6 +176,272 @@ public class PinAggregationStrategy implements CompressionStrategy {
         }
     }
 
+    /**
+     * 增量聚合：把尚未并入的 Pin 合并到已有的分节 Pin 中。
+     *
+     * <p>阈值只统计尚未并入的 Pin，已聚合的内容不会被重复发送给 LLM。
+     */
+    private CompressionResult compressIncrementally(String conversationId, WorkingMemory workingMemory) {
+        List<Pin> activePins = workingMemory.getActivePins();
+        if (activePins == null || activePins.isEmpty()) {
+            log.debug("[MEMORY]-[{}] 没有有效的 Pin，跳过聚合", conversationId);
+            return CompressionResult.notCompressed();
+        }
+
+        Pin aggregate = null;
+        List<Pin> pendingPins = new ArrayList<>();
+        for (Pin pin : activePins) {
+            if (aggregate == null && pin.isSectioned()) {
+                aggregate = pin;
+            } else {
+                pendingPins.add(pin);
+            }
+        }
+        if (pendingPins.isEmpty()) {
+            return CompressionResult.notCompressed();
+        }
+
+        int pendingCount = pendingPins.size();
+        int pendingTokens = calculatePinTokens(pendingPins);
+        if (pendingCount <= maxPinCount && pendingTokens <= maxPinTokens) {
+            log.info("[MEMORY]-[{}] 待合并 Pin 数量({})和 Token({})未超限，无需聚合", conversationId, pendingCount, pendingTokens);
+            return CompressionResult.notCompressed();
+        }
+
+        log.info("[MEMORY]-[{}] 触发增量 Pin 聚合: pendingCount={}, maxCount={}, pendingTokens={}, maxTokens={}", conversationId, pendingCount, maxPinCount, pendingTokens, maxPinTokens);
+
+        try {
+            Map<String, List<String>> sections = new LinkedHashMap<>();
+            SECTION_ORDER.forEach(name -> sections.put(name, new ArrayList<>()));
+            if (aggregate != null) {
+                aggregate.getSections().forEach((name, entries) ->
+                        sections.computeIfAbsent(name, k -> new ArrayList<>()).addAll(entries));
+            }
+
+            // 逐条并入新 Pin，相近的条目留给 LLM 按节处理
+            Map<String, List<String>> conflicts = new LinkedHashMap<>();
+            for (Pin pin : pendingPins) {
+                if (pin.isSectioned()) {
+                    pin.getSections().forEach((name, entries) ->
+                            entries.forEach(entry -> mergeEntry(sections, conflicts, name, entry)));
+                } else if (pin.getContent() != null && !pin.getContent().isBlank()) {
+                    String entry = pin.getContent().trim();
+                    mergeEntry(sections, conflicts, classify(entry), entry);
+                }
+            }
+
+            int llmCalls = 0;
+            for (Map.Entry<String, List<String>> conflict : conflicts.entrySet()) {
+                List<String> entries = sections.get(conflict.getKey());
+                List<String> merged = mergeSection(conversationId, conflict.getKey(), entries, conflict.getValue());
+                if (merged != null) {
+                    llmCalls++;
+                    sections.put(conflict.getKey(), merged);
+                } else {
+                    conflict.getValue().forEach(entry -> replaceMostSimilar(entries, entry));
+                }
+            }
+
+            // 超过条目上限的节单独精简，LLM 不可用时保留最新的条目；约束是硬性要求，不精简也不截断
+            for (Map.Entry<String, List<String>> section : sections.entrySet()) {
+                List<String> entries = section.getValue();
+                if (entries.size() <= sectionMaxEntries || SECTION_CONSTRAINT.equals(section.getKey())) {
+                    continue;
+                }
+                List<String> condensed = mergeSection(conversationId, section.getKey(), entries, List.of());
+                if (condensed != null) {
+                    llmCalls++;
+                    entries = condensed;
+                }
+                if (entries.size() > sectionMaxEntries) {
+                    log.warn("[MEMORY]-[{}] Pin 分节 {} 超过条目上限，丢弃最旧的 {} 条: {}", conversationId, section.getKey(),
+                            entries.size() - sectionMaxEntries, entries.subList(0, entries.size() - sectionMaxEntries));
+                    entries = new ArrayList<>(entries.subList(entries.size() - sectionMaxEntries, entries.size()));
+                }
+                section.setValue(entries);
+            }
+            sections.values().removeIf(List::isEmpty);
+            if (sections.isEmpty()) {
+                return CompressionResult.notCompressed();
+            }
+
+            String content = renderSections(sections);
+            Pin aggregatedPin = Pin.builder()
+                    .conversationId(conversationId)
+                    .content(content)
+                    .confidence(1.0)
+                    .sections(sections)
+                    .build();
+            for (Pin pin : activePins) {
+                if (pin.getSourceMessageIds() != null) {
+                    pin.getSourceMessageIds().forEach(aggregatedPin::addSourceMessageId);
+                }
+            }
+
+            int compressedTokens = calculatePinTokens(List.of(aggregatedPin));
+            log.info("[MEMORY]-[{}] 增量 Pin 聚合完成: 新并入 Pin 数量={}, 冲突节数={}, LLM 调用次数={}, 聚合后 Token={}", conversationId, pendingCount, conflicts.size(), llmCalls, compressedTokens);
+
+            return CompressionResult.aggregated(aggregatedPin, activePins.size());
+        } catch (Exception e) {
+            log.error("[MEMORY]-[{}] 增量 Pin 聚合失败", conversationId, e);
+            return CompressionResult.notCompressed();
+        }
+    }
+
+    /**
+     * 将一条新条目并入对应的节：重复则替换为新表述，相近则记为冲突，否则追加。
+     */
+    private void mergeEntry(Map<String, List<String>> sections, Map<String, List<String>> conflicts, String section, String entry) {
+        List<String> entries = sections.computeIfAbsent(section, k -> new ArrayList<>());
+        Set<String> tokens = tokenSet(entry);
+        int bestIndex = -1;
+        double best = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            double similarity = jaccard(tokens, tokenSet(entries.get(i)));
+            if (similarity > best) {
+                best = similarity;
+                bestIndex = i;
+            }
+        }
+        if (bestIndex >= 0 && best >= duplicateSimilarity) {
+            entries.set(bestIndex, entry);
+        } else if (bestIndex >= 0 && best >= conflictSimilarity) {
+            conflicts.computeIfAbsent(section, k -> new ArrayList<>()).add(entry);
+        } else {
+            entries.add(entry);
+        }
+    }
+
+    /**
+     * 用新条目覆盖同节中最相近的旧条目，作为 LLM 不可用时的冲突处理。
+     */
+    private void replaceMostSimilar(List<String> entries, String entry) {
+        Set<String> tokens = tokenSet(entry);
+        int bestIndex = -1;
+        double best = -1;
+        for (int i = 0; i < entries.size(); i++) {
+            double similarity = jaccard(tokens, tokenSet(entries.get(i)));
+            if (similarity > best) {
+                best = similarity;
+                bestIndex = i;
+            }
+        }
+        if (bestIndex >= 0) {
+            entries.set(bestIndex, entry);
+        } else {
+            entries.add(entry);
+        }
+    }
+
+    /**
+     * 按关键词为 Pin 内容选择所属的节。
+     */
+    private String classify(String content) {
+        String text = content.toLowerCase(Locale.ROOT);
+        if (containsAny(text, CONSTRAINT_KEYWORDS)) {
+            return SECTION_CONSTRAINT;
+        }
+        if (containsAny(text, DECISION_KEYWORDS)) {
+            return SECTION_DECISION;
+        }
+        if (containsAny(text, PREFERENCE_KEYWORDS)) {
+            return SECTION_PREFERENCE;
+        }
+        return SECTION_FACT;
+    }
+
+    private boolean containsAny(String text, List<String> keywords) {
+        for (String keyword : keywords) {
+            if (text.contains(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Set<String> tokenSet(String text) {
+        return new HashSet<>(TextTokenizer.tokenize(text));
+    }
+
+    private double jaccard(Set<String> a, Set<String> b) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return 0;
+        }
+        int intersection = 0;
+        for (String token : a) {
+            if (b.contains(token)) {
+                intersection++;
+            }
+        }
+        return (double) intersection / (a.size() + b.size() - intersection);
+    }
+
+    /**
+     * 调用 LLM 合并单个节的已有条目与新增条目。
+     *
+     * @return 合并后的条目，LLM 不可用或返回为空时返回 null
+     */
+    private List<String> mergeSection(String conversationId, String section, List<String> existing, List<String> incoming) {
+        if (chatClient == null) {
+            return null;
+        }
+        try {
+            List<Message> promptMessages = new ArrayList<>();
+            promptMessages.add(new SystemMessage(getPromptOrDefault(promptConfig != null ? promptConfig.getPinSectionMergePrompt() : null, Prompts.PIN_SECTION_MERGE_PROMPT)));
+
+            StringBuilder text = new StringBuilder();
+            text.append("主题：").append(section).append("\n");
+            if (!SECTION_CONSTRAINT.equals(section)) {
+                text.append("条目上限：").append(sectionMaxEntries).append("\n");
+            }
+            text.append("\n");
+            text.append("已有事实：\n");
+            existing.forEach(entry -> text.append("- ").append(entry).append("\n"));
+            if (!incoming.isEmpty()) {
+                text.append("\n新增事实：\n");
+                incoming.forEach(entry -> text.append("- ").append(entry).append("\n"));
+            }
+            promptMessages.add(new UserMessage(text.toString()));
+
+            String response = chatClient.prompt().messages(promptMessages).call().content();
+            log.debug("[MEMORY]-[{}] LLM Pin 分节合并响应: {}", conversationId, response);
+            if (response == null) {
+                return null;
+            }
+            // 只接受 "- " 开头的条目行，说明文字、标题等其他输出一律忽略
+            List<String> entries = new ArrayList<>();
+            for (String line : response.split("\n")) {
+                String trimmed = line.trim();
+                if (!trimmed.startsWith("- ")) {
+                    continue;
+                }
+                String entry = trimmed.substring(2).trim();
+                if (!entry.isEmpty()) {
+                    entries.add(entry);
+                }
+            }
+            return entries.isEmpty() ? null : entries;
+        } catch (Exception e) {
+            log.warn("[MEMORY]-[{}] LLM 合并 Pin 分节 {} 失败，使用新条目覆盖: {}", conversationId, section, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 将分节条目渲染为 Pin 内容。
+     */
+    private String renderSections(Map<String, List<String>> sections) {
+        StringBuilder content = new StringBuilder();
+        for (Map.Entry<String, List<String>> section : sections.entrySet()) {
+            if (content.length() > 0) {
+                content.append("\n");
+            }
+            content.append("【").append(section.getKey()).append("】\n");
+            section.getValue().forEach(entry -> content.append("- ").append(entry).append("\n"));
+        }
+        return content.toString().trim();
+    }
+
     /**
      * 计算所有 Pin 的总 token 数。
      */
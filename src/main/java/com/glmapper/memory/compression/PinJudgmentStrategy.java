@@ -136,20 +136,41 @@ public class PinJudgmentStrategy implements CompressionStrategy {
      *
      * @param currentPair 当前对话轮次
      * @param historyPins 历史已标记为 Pin 的列表
-     * @return PinJudgmentResult 包含判断结果和理由，如果判断失败返回 null
+     * @return PinJudgmentResult 包含判断结果和理由，如果响应无法解析返回 null
+     * @throws CompressionException LLM 调用失败，由调用方重试
      */
     public PinJudgmentResult judgePin(MessagePair currentPair, List<Pin> historyPins) {
+        return judgePins(List.of(currentPair), historyPins);
+    }
+
+    /**
+     * 使用一次 LLM 调用判断多轮对话中是否包含需要 Pin 的事实（合并模式下使用）。
+     *
+     * <p>多轮对话按时间顺序标注轮次后放在同一个 current_messages 中，只有一轮时与 {@link #judgePin} 的提示完全一致。
+     *
+     * @param currentPairs 按时间顺序排列的对话轮次
+     * @param historyPins  历史已标记为 Pin 的列表
+     * @return PinJudgmentResult 包含判断结果和理由，如果响应无法解析返回 null
+     * @throws CompressionException LLM 调用失败，由调用方重试
+     */
+    public PinJudgmentResult judgePins(List<MessagePair> currentPairs, List<Pin> historyPins) {
         try {
             List<Message> promptMessages = new ArrayList<>();
             promptMessages.add(new SystemMessage(getPromptOrDefault(promptConfig != null ? promptConfig.getPinJudgmentPrompt() : null, Prompts.PIN_JUDGMENT_PROMPT_V2)));
 
             StringBuilder promptText = new StringBuilder();
             promptText.append("current_messages:\n");
-            promptText.append("User: ").append(currentPair.getUserMessage().getTextContent()).append("\n");
-            if (currentPair.getAssistantMessage() != null) {
-                promptText.append("Assistant: ")
-                        .append(currentPair.getAssistantMessage().getTextContent())
-                        .append("\n");
+            for (int i = 0; i < currentPairs.size(); i++) {
+                MessagePair currentPair = currentPairs.get(i);
+                if (currentPairs.size() > 1) {
+                    promptText.append("[Round ").append(i + 1).append("]\n");
+                }
+                promptText.append("User: ").append(currentPair.getUserMessage().getTextContent()).append("\n");
+                if (currentPair.getAssistantMessage() != null) {
+                    promptText.append("Assistant: ")
+                            .append(currentPair.getAssistantMessage().getTextContent())
+                            .append("\n");
+                }
             }
 
             // 添加历史 Pin 信息
@@ -174,7 +195,7 @@ public class PinJudgmentStrategy implements CompressionStrategy {
             return parseJudgmentResponse(response);
         } catch (Exception e) {
             log.error("Failed to judge pin", e);
-            return null;
+            throw new CompressionException("Pin 判定失败", e);
         }
     }
 
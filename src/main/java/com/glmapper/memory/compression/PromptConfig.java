@@ -61,11 +61,26 @@ public class PromptConfig {
      */
     private String historySummarizationPrompt;
 
+    /**
+     * Step 3: Prompt for incremental history summarization (updating the previous summary with new messages).
+     */
+    private String incrementalHistorySummarizationPrompt;
+
+    /**
+     * Step 3: Prompt for merging adjacent summaries into a higher level of the summary tree.
+     */
+    private String summaryTreePrompt;
+
     /**
      * Step 4: Prompt for pin aggregation.
      */
     private String pinAggregationPrompt;
 
+    /**
+     * Step 4: Prompt for reconciling one section of an incrementally aggregated pin.
+     */
+    private String pinSectionMergePrompt;
+
     /**
      * Step 5: Prompt for tool call compression.
      */
@@ -114,5 +129,8 @@ public class PromptConfig {
         if (this.toolCallCompressionPrompt == null || this.toolCallCompressionPrompt.isBlank()) {
             this.toolCallCompressionPrompt = Prompts.TOOL_CALL_COMPRESSION_PROMPT;
         }
+        if (this.pinSectionMergePrompt == null || this.pinSectionMergePrompt.isBlank()) {
+            this.pinSectionMergePrompt = Prompts.PIN_SECTION_MERGE_PROMPT;
+        }
     }
 }
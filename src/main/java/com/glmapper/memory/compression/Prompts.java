@@ -136,6 +136,20 @@ public class Prompts {
      */
     public static String HISTORY_SUMMARIZATION_PROMPT = "你是一位专业的对话摘要专家。你的任务是将历史对话轮次摘要为简洁的事实性陈述。\n\n" + "要求：\n" + "- 使用客观的陈述性语句\n" + "- 只保留事实、决策和结论\n" + "- 不要引入新的推断\n" + "- 输出必须是纯文本，不要 markdown 或 JSON\n" + "- 保留未来参考所需的所有关键信息";
 
+    /**
+     * 增量历史摘要提示词
+     *
+     * <p>用于在已有历史摘要的基础上合并新增的对话内容，生成更新后的完整摘要。
+     */
+    public static String INCREMENTAL_HISTORY_SUMMARIZATION_PROMPT = "你是一位专业的对话摘要专家。你的任务是用新增的对话内容更新一份已有的历史摘要。\n\n" + "要求：\n" + "- 输出更新后的完整摘要，而不是只描述新增内容\n" + "- 新内容与已有摘要冲突时，以新内容为准\n" + "- 合并重复信息，删除已不再相关的细节，控制摘要长度\n" + "- 使用客观的陈述性语句，只保留事实、决策和结论\n" + "- 输出必须是纯文本，不要 markdown 或 JSON";
+
+    /**
+     * 分层摘要树提示词
+     *
+     * <p>用于把若干个相邻的下层摘要合并为一个覆盖更长对话区间的上层摘要。
+     */
+    public static String SUMMARY_TREE_PROMPT = "你是一位专业的对话摘要专家。你的任务是把按时间顺序排列的若干段对话摘要合并为一段更概括的摘要。\n\n" + "要求：\n" + "- 覆盖所有片段中的主题、决策和结论\n" + "- 保留后续可能需要追溯的关键名词（人名、文件、参数等）\n" + "- 省略细节，篇幅明显短于各片段之和\n" + "- 输出必须是纯文本，不要 markdown 或 JSON";
+
     // ============================================================================
     // 策略 4: Pin 聚合
     // ============================================================================
@@ -147,6 +161,13 @@ public class Prompts {
      */
     public static String PIN_AGGREGATION_PROMPT = "你是一位专业的信息整合专家。你的任务是将多个 Pin（长期保留的对话）" + "聚合为一个综合的 Pin 摘要。\n\n" + "要求：\n" + "- 提取核心约束和已确认的重要结论\n" + "- 识别长期有效的用户偏好和前提条件\n" + "- 整合相关信息\n" + "- 输出必须是纯文本，不要 markdown 或 JSON\n" + "- 保留未来参考所需的所有关键信息";
 
+    /**
+     * Pin 分节合并提示词
+     *
+     * <p>增量 Pin 聚合时，只把冲突所在的一节（已有条目 + 新条目）发给 LLM 合并。
+     */
+    public static String PIN_SECTION_MERGE_PROMPT = "你是一位专业的信息整合专家。你的任务是合并同一主题下的已有事实与新增事实。\n\n" + "要求：\n" + "- 新增事实与已有事实冲突时，以新增事实为准，删除被更正的旧事实\n" + "- 合并重复或可以合并的事实，不要遗漏未冲突的事实\n" + "- 每条事实是一个简洁的陈述句\n" + "- 每行输出一条事实，以 \"- \" 开头，不要编号、不要标题或其他说明文字，不要 JSON\n" + "- 条目数不超过给定的上限";
+
     private Prompts() {
         // 工具类
     }
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.compression;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 从任务队列中取出的一条压缩任务。
+ */
+@Data
+@AllArgsConstructor
+public class QueuedTask {
+
+    /**
+     * 队列内的任务标识（Stream 的记录 ID；List 队列没有标识，为 null）
+     */
+    private String id;
+
+    /**
+     * 序列化后的 {@link CompressionTask}
+     */
+    private String payload;
+}
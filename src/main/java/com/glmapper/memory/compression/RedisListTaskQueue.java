@@ -0,0 +1,87 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.compression;
+
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 基于 Redis List 的压缩任务队列（LPUSH 写入、RPOP 取出）。
+ *
+ * <p>任务取出即从 Redis 删除，节点在处理完成前崩溃会丢失该任务。
+ */
+public class RedisListTaskQueue implements CompressionTaskQueue {
+
+    private static final String QUEUE_KEY_PREFIX = "artisan:wm:queue:";
+
+    private final StringRedisTemplate redisTemplate;
+
+    public RedisListTaskQueue(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public void push(String sessionId, String payload) {
+        redisTemplate.opsForList().leftPush(QUEUE_KEY_PREFIX + sessionId, payload);
+    }
+
+    @Override
+    public List<QueuedTask> poll(String sessionId, int max) {
+        List<QueuedTask> tasks = new ArrayList<>();
+        for (int i = 0; i < max; i++) {
+            String payload = redisTemplate.opsForList().rightPop(QUEUE_KEY_PREFIX + sessionId);
+            if (payload == null) {
+                break;
+            }
+            tasks.add(new QueuedTask(null, payload));
+        }
+        return tasks;
+    }
+
+    @Override
+    public void ack(String sessionId, QueuedTask task) {
+        // 弹出即删除，无需确认
+    }
+
+    @Override
+    public void requeue(String sessionId, List<QueuedTask> tasks) {
+        // RPOP 从右侧取出，逆序 RPUSH 回右侧即可恢复原顺序
+        for (int i = tasks.size() - 1; i >= 0; i--) {
+            redisTemplate.opsForList().rightPush(QUEUE_KEY_PREFIX + sessionId, tasks.get(i).getPayload());
+        }
+    }
+
+    @Override
+    public boolean hasPending(String sessionId) {
+        Long size = redisTemplate.opsForList().size(QUEUE_KEY_PREFIX + sessionId);
+        return size != null && size > 0;
+    }
+
+    @Override
+    public void forEachPendingSession(Consumer<String> action) {
+        ScanOptions options = ScanOptions.scanOptions().match(QUEUE_KEY_PREFIX + "*").count(500).build();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                action.accept(cursor.next().substring(QUEUE_KEY_PREFIX.length()));
+            }
+        }
+    }
+}
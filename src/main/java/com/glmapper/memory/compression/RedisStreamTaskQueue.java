@@ -0,0 +1,254 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.compression;
+
+import com.glmapper.memory.config.ArtisanMemoryProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisStreamCommands.XClaimOptions;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于 Redis Streams 消费组的压缩任务队列（至少一次投递）。
+ *
+ * <p>每个会话一个 Stream，所有节点共用同一个消费组，每个节点进程是组内一个消费者：
+ * <ul>
+ *   <li>取任务时先认领其他消费者投递后超过 {@code claimIdleSeconds} 未确认的任务（分页 XPENDING + XCLAIM），
+ *       再读取本消费者名下未确认的任务，最后读取新任务，保证同一会话的任务按 ID 顺序处理</li>
+ *   <li>任务处理完成后 XACK 并 XDEL，Stream 只保留未完成的任务</li>
+ *   <li>节点在处理过程中崩溃时，任务留在消费组的待确认列表中，由其他节点认领后继续处理</li>
+ *   <li>放回的任务立即标记为可认领，租约转移或停机排空时由其他节点接手</li>
+ * </ul>
+ *
+ * <p>消费组在首次读取时按需创建（起始位置为 0，不会漏掉创建前写入的任务）。
+ */
+@Slf4j
+public class RedisStreamTaskQueue implements CompressionTaskQueue {
+
+    private static final String STREAM_KEY_PREFIX = "artisan:wm:stream:";
+    private static final String GROUP = "artisan-compression";
+    private static final String FIELD_TASK = "task";
+    /** 遍历待确认列表时每页读取的条数下限 */
+    private static final int PENDING_PAGE_SIZE = 100;
+
+    private final StringRedisTemplate redisTemplate;
+    private final ArtisanMemoryProperties.StreamTransport config;
+    private final String consumerName;
+
+    public RedisStreamTaskQueue(StringRedisTemplate redisTemplate, ArtisanMemoryProperties.StreamTransport config) {
+        this.redisTemplate = redisTemplate;
+        this.config = config;
+        this.consumerName = ManagementFactory.getRuntimeMXBean().getName() + ":"
+                + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    @Override
+    public void push(String sessionId, String payload) {
+        String key = STREAM_KEY_PREFIX + sessionId;
+        redisTemplate.opsForStream().add(key, Map.of(FIELD_TASK, payload));
+        redisTemplate.expire(key, Math.max(1, config.getKeyExpireHours()), TimeUnit.HOURS);
+    }
+
+    @Override
+    public List<QueuedTask> poll(String sessionId, int max) {
+        String key = STREAM_KEY_PREFIX + sessionId;
+        try {
+            return doPoll(key, max);
+        } catch (RedisSystemException e) {
+            if (!isNoGroup(e)) {
+                throw e;
+            }
+            createGroup(key);
+            return doPoll(key, max);
+        }
+    }
+
+    private List<QueuedTask> doPoll(String key, int max) {
+        Consumer consumer = Consumer.from(GROUP, consumerName);
+
+        // 1、认领失效消费者的任务
+        claimStale(key, max);
+
+        // 2、本消费者名下已投递未确认的任务（含刚认领的）
+        List<MapRecord<String, Object, Object>> records = read(consumer, key, ReadOffset.from("0"), max);
+
+        // 3、没有遗留任务时读取新任务
+        if (records == null || records.isEmpty()) {
+            records = read(consumer, key, ReadOffset.lastConsumed(), max);
+        }
+        if (records == null || records.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<QueuedTask> tasks = new ArrayList<>(records.size());
+        for (MapRecord<String, Object, Object> record : records) {
+            Object payload = record.getValue().get(FIELD_TASK);
+            tasks.add(new QueuedTask(record.getId().getValue(), payload != null ? payload.toString() : null));
+        }
+        return tasks;
+    }
+
+    /**
+     * 读取单个 Stream。{@code read} 的 StreamOffset 是泛型可变参数，单个偏移量的调用是类型安全的。
+     */
+    @SuppressWarnings("unchecked")
+    private List<MapRecord<String, Object, Object>> read(Consumer consumer, String key, ReadOffset offset, int max) {
+        return redisTemplate.opsForStream().read(consumer, StreamReadOptions.empty().count(max),
+                StreamOffset.create(key, offset));
+    }
+
+    /**
+     * 分页遍历消费组的待确认列表，认领最多 {@code max} 个其他消费者名下超时未确认的任务。
+     *
+     * <p>列表头部可能是仍在处理中的任务，只看第一页会让其后的失效任务一直无人认领，因此按 ID 向后翻页。
+     * 下一页从上一页最后一个 ID 开始（包含该 ID，读取后跳过），不依赖 Redis 6.2 的排他区间语法。
+     */
+    private void claimStale(String key, int max) {
+        Duration minIdle = claimIdle();
+        int pageSize = Math.max(max, PENDING_PAGE_SIZE);
+        List<RecordId> stale = new ArrayList<>();
+        String from = "-";
+        RecordId last = null;
+        while (stale.size() < max) {
+            PendingMessages pending = redisTemplate.opsForStream()
+                    .pending(key, GROUP, Range.closed(from, "+"), pageSize);
+            if (pending == null || pending.isEmpty()) {
+                break;
+            }
+            int fresh = 0;
+            for (PendingMessage message : pending) {
+                if (message.getId().equals(last)) {
+                    continue;
+                }
+                fresh++;
+                last = message.getId();
+                if (stale.size() < max
+                        && !consumerName.equals(message.getConsumerName())
+                        && message.getElapsedTimeSinceLastDelivery().compareTo(minIdle) >= 0) {
+                    stale.add(message.getId());
+                }
+            }
+            if (fresh == 0 || pending.size() < pageSize) {
+                break;
+            }
+            from = last.getValue();
+        }
+        if (!stale.isEmpty()) {
+            redisTemplate.opsForStream().claim(key, GROUP, consumerName, minIdle, stale.toArray(new RecordId[0]));
+            log.info("[MEMORY]-[{}] 已认领 {} 个失效消费者的压缩任务", key, stale.size());
+        }
+    }
+
+    @Override
+    public void ack(String sessionId, QueuedTask task) {
+        if (task.getId() == null) {
+            return;
+        }
+        String key = STREAM_KEY_PREFIX + sessionId;
+        redisTemplate.opsForStream().acknowledge(key, GROUP, task.getId());
+        redisTemplate.opsForStream().delete(key, task.getId());
+    }
+
+    /**
+     * 把任务交还消费组。
+     *
+     * <p>任务仍留在待确认列表中并保持原有 ID 顺序，本消费者下次读取时按原顺序优先返回；同时通过 XCLAIM
+     * 把空闲时间置为认领阈值，其他节点（例如接手租约的节点，或本节点停机排空后）下次取任务时即可认领，
+     * 不必等待投递超时。
+     */
+    @Override
+    public void requeue(String sessionId, List<QueuedTask> tasks) {
+        RecordId[] ids = tasks.stream()
+                .map(QueuedTask::getId)
+                .filter(Objects::nonNull)
+                .map(RecordId::of)
+                .toArray(RecordId[]::new);
+        if (ids.length == 0) {
+            return;
+        }
+        String key = STREAM_KEY_PREFIX + sessionId;
+        redisTemplate.opsForStream().claim(key, GROUP, consumerName,
+                XClaimOptions.minIdle(Duration.ZERO).ids(ids).idle(claimIdle()));
+        log.debug("[MEMORY]-[{}] 已交还 {} 个未处理的压缩任务", key, ids.length);
+    }
+
+    private Duration claimIdle() {
+        return Duration.ofSeconds(Math.max(1, config.getClaimIdleSeconds()));
+    }
+
+    @Override
+    public boolean hasPending(String sessionId) {
+        Long size = redisTemplate.opsForStream().size(STREAM_KEY_PREFIX + sessionId);
+        return size != null && size > 0;
+    }
+
+    @Override
+    public void forEachPendingSession(java.util.function.Consumer<String> action) {
+        ScanOptions options = ScanOptions.scanOptions().match(STREAM_KEY_PREFIX + "*").count(500).build();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                String key = cursor.next();
+                String sessionId = key.substring(STREAM_KEY_PREFIX.length());
+                if (hasPending(sessionId)) {
+                    action.accept(sessionId);
+                }
+            }
+        }
+    }
+
+    private void createGroup(String key) {
+        try {
+            redisTemplate.opsForStream().createGroup(key, ReadOffset.from("0"), GROUP);
+        } catch (RedisSystemException e) {
+            // 并发创建时其他节点已创建
+            if (!String.valueOf(rootMessage(e)).contains("BUSYGROUP")) {
+                throw e;
+            }
+        }
+    }
+
+    private boolean isNoGroup(RedisSystemException e) {
+        return String.valueOf(rootMessage(e)).contains("NOGROUP");
+    }
+
+    private String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+}
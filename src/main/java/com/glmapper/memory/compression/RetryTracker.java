@@ -0,0 +1,99 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.compression;
+
+import com.glmapper.memory.config.ArtisanMemoryProperties;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 记录压缩任务的失败次数并计算退避时间。
+ *
+ * <p>失败次数保存在 Redis Hash（key: artisan:wm:attempts:{sessionId}，field 为任务标识），
+ * 与任务传输方式无关，节点重启或任务被其他节点认领后仍然有效。本节点记录过失败的任务在成功后清除计数，
+ * 其余任务成功时不访问 Redis。
+ */
+public class RetryTracker {
+
+    private static final String KEY_PREFIX = "artisan:wm:attempts:";
+    private static final long KEY_EXPIRE_DAYS = 7;
+
+    private final StringRedisTemplate redisTemplate;
+    private final ArtisanMemoryProperties.Retry config;
+    private final Set<String> failedLocally = ConcurrentHashMap.newKeySet();
+
+    public RetryTracker(StringRedisTemplate redisTemplate, ArtisanMemoryProperties.Retry config) {
+        this.redisTemplate = redisTemplate;
+        this.config = config;
+    }
+
+    /**
+     * 记录一次失败。
+     *
+     * @param sessionId 会话标识符
+     * @param taskKey   任务标识
+     * @return 累计尝试次数
+     */
+    public int recordFailure(String sessionId, String taskKey) {
+        String key = KEY_PREFIX + sessionId;
+        Long attempts = redisTemplate.opsForHash().increment(key, taskKey, 1);
+        redisTemplate.expire(key, KEY_EXPIRE_DAYS, TimeUnit.DAYS);
+        failedLocally.add(sessionId + "|" + taskKey);
+        return attempts != null ? attempts.intValue() : 1;
+    }
+
+    /**
+     * 任务成功或进入死信队列后清除失败次数。
+     *
+     * @param sessionId 会话标识符
+     * @param taskKey   任务标识
+     */
+    public void clear(String sessionId, String taskKey) {
+        if (failedLocally.remove(sessionId + "|" + taskKey)) {
+            redisTemplate.opsForHash().delete(KEY_PREFIX + sessionId, taskKey);
+        }
+    }
+
+    /**
+     * 是否已达到最大尝试次数。
+     *
+     * @param attempts 累计尝试次数
+     * @return 达到时返回 true
+     */
+    public boolean isExhausted(int attempts) {
+        return attempts >= Math.max(1, config.getMaxAttempts());
+    }
+
+    /**
+     * 第 attempts 次失败后的退避时间：initial * multiplier^(attempts-1)，不超过上限，再乘以随机抖动。
+     *
+     * @param attempts 累计尝试次数
+     * @return 退避毫秒数
+     */
+    public long backoffMillis(int attempts) {
+        double backoff = config.getInitialBackoffMillis() * Math.pow(Math.max(1.0, config.getMultiplier()), Math.max(0, attempts - 1));
+        backoff = Math.min(backoff, config.getMaxBackoffMillis());
+        double jitter = Math.max(0, Math.min(1, config.getJitter()));
+        if (jitter > 0) {
+            backoff *= 1 + ThreadLocalRandom.current().nextDouble(-jitter, jitter);
+        }
+        return Math.max(0, (long) backoff);
+    }
+}
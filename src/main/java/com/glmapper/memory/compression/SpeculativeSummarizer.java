@@ -0,0 +1,182 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.compression;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.glmapper.memory.config.ArtisanMemoryProperties;
+import com.glmapper.memory.model.MessagePair;
+import com.glmapper.memory.model.Msg;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 当前轮次摘要预生成。
+ *
+ * <p>Tail 已满时最旧的一轮就是下一次要移出的轮次。{@link #speculate} 在后台线程上为它生成摘要，
+ * 按轮次（用户消息 ID）缓存到 Redis Hash（key: artisan:wm:spec:{sessionId}）；移出时
+ * {@link #peek} 读取缓存，当前轮次摘要直接使用，不再调用 LLM。缓存由调用方在压缩结果保存成功后
+ * 通过 {@link #discard} 删除，任务放弃保存或重试时预生成的摘要仍然可用。
+ *
+ * <p>预生成是尽力而为的：队列已满、积压降级、移出时尚未完成或缓存丢失时，移出时照常生成摘要。
+ * 缓存整体设置 TTL，会话结束后未使用的摘要随之过期。
+ */
+@Slf4j
+@Component
+public class SpeculativeSummarizer implements DisposableBean {
+
+    private static final String KEY_PREFIX = "artisan:wm:spec:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ArtisanMemoryProperties.Speculative config;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolExecutor executor;
+
+    @Autowired(required = false)
+    private CurrentRoundCompressionStrategy currentRoundStrategy;
+
+    @Autowired(required = false)
+    private CompressionAdmission admission;
+
+    public SpeculativeSummarizer(StringRedisTemplate redisTemplate, ArtisanMemoryProperties properties) {
+        this.redisTemplate = redisTemplate;
+        this.config = properties.getCompression().getSpeculative();
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+        if (config.isEnabled()) {
+            int threads = Math.max(1, config.getThreads());
+            this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, config.getQueueCapacity())), r -> {
+                Thread t = new Thread(r, "artisan-memory-speculative");
+                t.setDaemon(true);
+                return t;
+            });
+        } else {
+            this.executor = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return executor != null && currentRoundStrategy != null;
+    }
+
+    /**
+     * 在后台为下一次要移出的轮次预生成摘要，不阻塞调用方。
+     *
+     * @param sessionId  会话标识符
+     * @param nextToEvict Tail 中最旧的一轮（Tail 未满时为 null）
+     */
+    public void speculate(String sessionId, MessagePair nextToEvict) {
+        String pairKey = pairKey(nextToEvict);
+        if (!isEnabled() || pairKey == null || !nextToEvict.isComplete()) {
+            return;
+        }
+        try {
+            executor.execute(() -> summarize(sessionId, pairKey, nextToEvict));
+        } catch (RejectedExecutionException e) {
+            log.debug("[MEMORY]-[{}] 预生成队列已满，放弃预生成", sessionId);
+        }
+    }
+
+    private void summarize(String sessionId, String pairKey, MessagePair pair) {
+        // 积压时把 LLM 容量留给压缩任务
+        if (admission != null && admission.getLevel() != CompressionLoadLevel.NORMAL) {
+            return;
+        }
+        try {
+            CompressionResult result = currentRoundStrategy.compress(sessionId, null, pair);
+            if (!result.isCompressed() || result.getSummaryMsg() == null) {
+                return;
+            }
+            String key = KEY_PREFIX + sessionId;
+            redisTemplate.opsForHash().put(key, pairKey, objectMapper.writeValueAsString(result.getSummaryMsg()));
+            redisTemplate.expire(key, config.getTtlSeconds(), TimeUnit.SECONDS);
+            log.info("[MEMORY]-[{}] 已预生成当前轮次摘要, pairKey: {}", sessionId, pairKey);
+        } catch (Exception e) {
+            log.warn("[MEMORY]-[{}] 预生成当前轮次摘要失败，移出时重新生成", sessionId, e);
+        }
+    }
+
+    /**
+     * 读取轮次的预生成摘要，不删除缓存。
+     *
+     * @param sessionId 会话标识符
+     * @param pair      移出的轮次
+     * @return 预生成的摘要，没有时返回 null
+     */
+    public Msg peek(String sessionId, MessagePair pair) {
+        String pairKey = pairKey(pair);
+        if (!isEnabled() || pairKey == null) {
+            return null;
+        }
+        String key = KEY_PREFIX + sessionId;
+        try {
+            Object json = redisTemplate.opsForHash().get(key, pairKey);
+            if (json == null) {
+                return null;
+            }
+            return objectMapper.readValue(json.toString(), Msg.class);
+        } catch (Exception e) {
+            log.warn("[MEMORY]-[{}] 读取预生成摘要失败", sessionId, e);
+            return null;
+        }
+    }
+
+    /**
+     * 删除轮次的预生成摘要（已使用，或合并摘要时不使用单轮摘要）。
+     *
+     * @param sessionId 会话标识符
+     * @param pairs     移出的轮次
+     */
+    public void discard(String sessionId, List<MessagePair> pairs) {
+        if (!isEnabled()) {
+            return;
+        }
+        Object[] pairKeys = pairs.stream().map(this::pairKey).filter(k -> k != null).toArray();
+        if (pairKeys.length == 0) {
+            return;
+        }
+        try {
+            redisTemplate.opsForHash().delete(KEY_PREFIX + sessionId, pairKeys);
+        } catch (Exception e) {
+            // 未删除的缓存按 TTL 过期
+            log.warn("[MEMORY]-[{}] 清理预生成摘要失败", sessionId, e);
+        }
+    }
+
+    private String pairKey(MessagePair pair) {
+        if (pair == null || pair.getUserMessage() == null) {
+            return null;
+        }
+        return pair.getUserMessage().getId();
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.compression;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.glmapper.memory.config.ArtisanMemoryProperties;
+import com.glmapper.memory.model.SummaryNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 分层摘要树的 Redis 存储。
+ *
+ * <ul>
+ *   <li>artisan:wm:tree:{sessionId}：Hash，节点标识 → 节点 JSON</li>
+ *   <li>artisan:wm:tree:{sessionId}:open:{level}：ZSet，该层尚未合并到上层的节点，score 为起始序号</li>
+ * </ul>
+ *
+ * <p>节点标识由层级和序号范围确定，重试时重复写入同一节点是幂等的。
+ * 各层未合并的节点按序号排列即为会话的摘要概览：越早的对话由越高层（越概括）的节点覆盖。
+ * 过期时间与工作记忆相同。
+ */
+@Slf4j
+@Component
+public class SummaryTreeStore {
+
+    private static final String KEY_PREFIX = "artisan:wm:tree:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Duration expire;
+    private final int maxLevels;
+
+    public SummaryTreeStore(StringRedisTemplate redisTemplate, ArtisanMemoryProperties properties) {
+        this.redisTemplate = redisTemplate;
+        this.expire = Duration.ofDays(properties.getWorkingMemory().getExpireDays());
+        this.maxLevels = Math.max(1, properties.getCompression().getSummaryTree().getMaxLevels());
+    }
+
+    /**
+     * 写入第 0 层节点。
+     *
+     * @param sessionId 会话标识符
+     * @param node      节点
+     */
+    public void add(String sessionId, SummaryNode node) {
+        promote(sessionId, node, List.of());
+    }
+
+    /**
+     * 写入上层节点，并把它的子节点从所在层的未合并集合中移除（同一事务）。
+     *
+     * @param sessionId 会话标识符
+     * @param parent    上层节点
+     * @param children  被合并的子节点
+     */
+    public void promote(String sessionId, SummaryNode parent, List<SummaryNode> children) {
+        String nodesKey = KEY_PREFIX + sessionId;
+        String json = serialize(parent);
+        redisTemplate.execute(new SessionCallback<List<Object>>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> List<Object> execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                ops.multi();
+                ops.opsForHash().put(nodesKey, parent.getNodeId(), json);
+                ops.opsForZSet().add(openKey(sessionId, parent.getLevel()), parent.getNodeId(), parent.getFromSequence());
+                for (SummaryNode child : children) {
+                    ops.opsForZSet().remove(openKey(sessionId, child.getLevel()), child.getNodeId());
+                }
+                ops.expire(nodesKey, expire);
+                ops.expire(openKey(sessionId, parent.getLevel()), expire);
+                return ops.exec();
+            }
+        });
+    }
+
+    /**
+     * 读取节点。
+     *
+     * @param sessionId 会话标识符
+     * @param nodeId    节点标识
+     * @return 节点，不存在时返回 null
+     */
+    public SummaryNode get(String sessionId, String nodeId) {
+        Object json = redisTemplate.opsForHash().get(KEY_PREFIX + sessionId, nodeId);
+        return json != null ? deserialize(json.toString()) : null;
+    }
+
+    /**
+     * 读取节点的子节点，按时间顺序排列。
+     *
+     * @param sessionId 会话标识符
+     * @param node      节点
+     * @return 子节点，第 0 层节点返回空列表
+     */
+    public List<SummaryNode> children(String sessionId, SummaryNode node) {
+        return getAll(sessionId, node.getChildIds());
+    }
+
+    /**
+     * 某一层尚未合并到上层的节点，按序号排列。
+     *
+     * @param sessionId 会话标识符
+     * @param level     层级
+     * @return 节点列表
+     */
+    public List<SummaryNode> openNodes(String sessionId, int level) {
+        Set<String> nodeIds = redisTemplate.opsForZSet().range(openKey(sessionId, level), 0, -1);
+        return nodeIds == null ? new ArrayList<>() : getAll(sessionId, new ArrayList<>(nodeIds));
+    }
+
+    /**
+     * 会话的摘要概览：各层尚未合并的节点按序号排列，早期对话由高层节点覆盖，近期对话由低层节点覆盖。
+     *
+     * @param sessionId 会话标识符
+     * @return 覆盖整个已移出历史的节点列表
+     */
+    public List<SummaryNode> outline(String sessionId) {
+        List<SummaryNode> nodes = new ArrayList<>();
+        for (int level = 0; level < maxLevels; level++) {
+            nodes.addAll(openNodes(sessionId, level));
+        }
+        nodes.sort(Comparator.comparingLong(SummaryNode::getFromSequence));
+        return nodes;
+    }
+
+    private List<SummaryNode> getAll(String sessionId, List<String> nodeIds) {
+        List<SummaryNode> nodes = new ArrayList<>();
+        if (nodeIds == null || nodeIds.isEmpty()) {
+            return nodes;
+        }
+        List<Object> values = redisTemplate.opsForHash().multiGet(KEY_PREFIX + sessionId, new ArrayList<>(nodeIds));
+        for (Object value : values) {
+            if (value != null) {
+                nodes.add(deserialize(value.toString()));
+            }
+        }
+        return nodes;
+    }
+
+    private String openKey(String sessionId, int level) {
+        return KEY_PREFIX + sessionId + ":open:" + level;
+    }
+
+    private String serialize(SummaryNode node) {
+        try {
+            return objectMapper.writeValueAsString(node);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to serialize summary node " + node.getNodeId(), e);
+        }
+    }
+
+    private SummaryNode deserialize(String json) {
+        try {
+            return objectMapper.readValue(json, SummaryNode.class);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to deserialize summary node", e);
+        }
+    }
+}
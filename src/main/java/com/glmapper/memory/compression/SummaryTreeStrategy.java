@@ -0,0 +1,133 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.compression;
+
+import com.glmapper.memory.config.ArtisanMemoryProperties;
+import com.glmapper.memory.model.SummaryNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分层摘要树策略：把同一层相邻的若干个节点合并为上一层的一个节点（仅生成，不存储）。
+ *
+ * <p>节点的存储与合并时机由 {@link com.glmapper.memory.compression.events.HistorySummaryEventHandler}
+ * 通过 {@link SummaryTreeStore} 处理；第 0 层节点在当前轮次摘要写入 TCW 时生成。
+ */
+@Slf4j
+public class SummaryTreeStrategy {
+
+    private final ChatClient chatClient;
+    private final PromptConfig promptConfig;
+    private final int groupSize;
+    private final int maxLevels;
+
+    public SummaryTreeStrategy(ChatClient chatClient, PromptConfig promptConfig, ArtisanMemoryProperties memoryProperties) {
+        this.chatClient = chatClient;
+        this.promptConfig = promptConfig;
+        this.groupSize = Math.max(2, memoryProperties.getCompression().getSummaryTree().getGroupSize());
+        this.maxLevels = Math.max(1, memoryProperties.getCompression().getSummaryTree().getMaxLevels());
+    }
+
+    public int getGroupSize() {
+        return groupSize;
+    }
+
+    public int getMaxLevels() {
+        return maxLevels;
+    }
+
+    /**
+     * 合并相邻节点。
+     *
+     * @param conversationId 会话标识符
+     * @param children       同一层按时间顺序排列的节点
+     * @return 上一层的节点
+     * @throws CompressionException LLM 调用失败时抛出
+     */
+    public SummaryNode merge(String conversationId, List<SummaryNode> children) {
+        return merge(conversationId, children, children.get(0).getLevel() + 1);
+    }
+
+    /**
+     * 合并相邻节点为指定层级的节点。最高层没有上一层，节点在本层内合并。
+     *
+     * @param conversationId 会话标识符
+     * @param children       同一层按时间顺序排列的节点
+     * @param level          合并后节点的层级
+     * @return 合并后的节点
+     * @throws CompressionException LLM 调用失败时抛出
+     */
+    public SummaryNode merge(String conversationId, List<SummaryNode> children, int level) {
+        SummaryNode first = children.get(0);
+        SummaryNode last = children.get(children.size() - 1);
+        List<String> childIds = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < children.size(); i++) {
+            SummaryNode child = children.get(i);
+            childIds.add(child.getNodeId());
+            text.append("[")
+                    .append(i + 1)
+                    .append("] Rounds ")
+                    .append(child.getFromSequence())
+                    .append("-")
+                    .append(child.getToSequence())
+                    .append(": ")
+                    .append(child.getContent())
+                    .append("\n\n");
+        }
+
+        String content;
+        try {
+            List<Message> promptMessages = new ArrayList<>();
+            promptMessages.add(new SystemMessage(getPromptOrDefault(promptConfig != null ? promptConfig.getSummaryTreePrompt() : null, Prompts.SUMMARY_TREE_PROMPT)));
+            promptMessages.add(new UserMessage("Summaries:\n\n" + text));
+            content = chatClient.prompt().messages(promptMessages).call().content();
+        } catch (Exception e) {
+            throw new CompressionException("合并摘要树节点失败", e);
+        }
+        if (content == null || content.isBlank()) {
+            throw new CompressionException("合并摘要树节点失败：LLM 返回空内容", null);
+        }
+        log.info("{} merged: level={}, sequences={}-{}, children={}, sessionId={}", getName(), level,
+                first.getFromSequence(), last.getToSequence(), children.size(), conversationId);
+        return SummaryNode.builder()
+                .nodeId(SummaryNode.idOf(level, first.getFromSequence(), last.getToSequence()))
+                .level(level)
+                .fromSequence(first.getFromSequence())
+                .toSequence(last.getToSequence())
+                .content(content)
+                .childIds(childIds)
+                .createdAt(System.currentTimeMillis())
+                .build();
+    }
+
+    private String getPromptOrDefault(String customPrompt, String defaultPrompt) {
+        if (customPrompt != null && !customPrompt.isBlank()) {
+            return customPrompt;
+        }
+        return defaultPrompt;
+    }
+
+    public String getName() {
+        return "SUMMARY_TREE";
+    }
+}
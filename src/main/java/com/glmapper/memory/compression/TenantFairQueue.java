@@ -0,0 +1,284 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.compression;
+
+import com.glmapper.memory.config.ArtisanMemoryProperties;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 按租户分组的会话调度队列，使用加权赤字轮转（Deficit Round Robin）出队。
+ *
+ * <p>每个租户一个 FIFO 队列，有排队会话的租户组成轮转环。轮到某租户时其赤字增加权重值，
+ * 每调度一个会话消耗 1，赤字不足或达到并发上限时轮到下一个租户。所有租户都达到并发上限时
+ * {@link #take()} 阻塞，直到有会话处理完成。
+ *
+ * <p>没有排队和运行中会话的租户会被移除，租户数量只取决于活跃租户，前缀基数很高时也不会无限增长；
+ * 在权重或并发上限中显式配置的租户保留其累计指标。
+ *
+ * <p>内部使用 {@link ReentrantLock} 而不是 synchronized，避免虚拟线程被钉住。
+ */
+public class TenantFairQueue {
+
+    /**
+     * 出队的会话。
+     */
+    public static class Entry {
+        private final String sessionId;
+        private final String tenant;
+        private final long readyAt;
+
+        Entry(String sessionId, String tenant, long readyAt) {
+            this.sessionId = sessionId;
+            this.tenant = tenant;
+            this.readyAt = readyAt;
+        }
+
+        public String getSessionId() {
+            return sessionId;
+        }
+
+        public String getTenant() {
+            return tenant;
+        }
+
+        public long getReadyAt() {
+            return readyAt;
+        }
+    }
+
+    private static class TenantState {
+        private final Deque<Entry> queue = new ArrayDeque<>();
+        private int running;
+        private int deficit;
+        private boolean visited;
+        private long dispatched;
+        private long totalWaitMillis;
+        private long maxWaitMillis;
+    }
+
+    private final ArtisanMemoryProperties.TenantScheduling config;
+    private final Map<String, TenantState> tenants = new LinkedHashMap<>();
+    private final Deque<String> ring = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+
+    public TenantFairQueue(ArtisanMemoryProperties.TenantScheduling config) {
+        this.config = config;
+    }
+
+    /**
+     * 解析会话所属租户。
+     *
+     * @param sessionId 会话标识符
+     * @return 租户标识
+     */
+    public String tenantOf(String sessionId) {
+        String delimiter = config.getDelimiter();
+        int index = delimiter == null || delimiter.isEmpty() ? -1 : sessionId.indexOf(delimiter);
+        return index > 0 ? sessionId.substring(0, index) : config.getDefaultTenant();
+    }
+
+    /**
+     * 加入等待调度的会话。
+     *
+     * @param sessionId 会话标识符
+     * @param readyAt   会话登记到就绪集合的时间（毫秒）
+     */
+    public void offer(String sessionId, long readyAt) {
+        String tenant = tenantOf(sessionId);
+        lock.lock();
+        try {
+            TenantState state = tenants.computeIfAbsent(tenant, t -> new TenantState());
+            if (state.queue.isEmpty()) {
+                ring.addLast(tenant);
+            }
+            state.queue.addLast(new Entry(sessionId, tenant, readyAt));
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 按 DRR 取出下一个可调度的会话，没有可调度会话时阻塞。
+     *
+     * @return 会话
+     * @throws InterruptedException 等待被中断
+     */
+    public Entry take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (true) {
+                Entry entry = pick();
+                if (entry != null) {
+                    return entry;
+                }
+                available.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 会话处理完成，释放租户并发名额。
+     *
+     * @param tenant 租户标识
+     */
+    public void complete(String tenant) {
+        lock.lock();
+        try {
+            TenantState state = tenants.get(tenant);
+            if (state != null && state.running > 0) {
+                state.running--;
+                evictIfIdle(tenant, state);
+            }
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 取出所有尚未调度的会话（停止调度时使用）。
+     *
+     * @return 尚未调度的会话
+     */
+    public List<Entry> drain() {
+        lock.lock();
+        try {
+            List<Entry> entries = new ArrayList<>();
+            for (TenantState state : tenants.values()) {
+                entries.addAll(state.queue);
+                state.queue.clear();
+                state.deficit = 0;
+                state.visited = false;
+            }
+            ring.clear();
+            tenants.entrySet().removeIf(e -> e.getValue().running == 0 && !isConfigured(e.getKey()));
+            return entries;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 各租户的调度指标，包括活跃租户和显式配置的租户。
+     *
+     * @return 指标列表
+     */
+    public List<TenantStats> stats() {
+        lock.lock();
+        try {
+            List<TenantStats> stats = new ArrayList<>();
+            for (Map.Entry<String, TenantState> e : tenants.entrySet()) {
+                TenantState state = e.getValue();
+                stats.add(TenantStats.builder()
+                        .tenant(e.getKey())
+                        .weight(weightOf(e.getKey()))
+                        .maxConcurrency(limitOf(e.getKey()))
+                        .queued(state.queue.size())
+                        .running(state.running)
+                        .dispatched(state.dispatched)
+                        .avgWaitMillis(state.dispatched > 0 ? state.totalWaitMillis / state.dispatched : 0)
+                        .maxWaitMillis(state.maxWaitMillis)
+                        .build());
+            }
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Entry pick() {
+        int skipped = 0;
+        while (!ring.isEmpty() && skipped < ring.size()) {
+            String tenant = ring.peekFirst();
+            TenantState state = tenants.get(tenant);
+            if (state == null) {
+                ring.pollFirst();
+                continue;
+            }
+            if (state.queue.isEmpty()) {
+                ring.pollFirst();
+                state.deficit = 0;
+                state.visited = false;
+                continue;
+            }
+            if (state.running >= limitOf(tenant)) {
+                rotate(state);
+                skipped++;
+                continue;
+            }
+            if (!state.visited) {
+                state.deficit += weightOf(tenant);
+                state.visited = true;
+            }
+            if (state.deficit >= 1) {
+                state.deficit--;
+                state.running++;
+                Entry entry = state.queue.pollFirst();
+                long wait = Math.max(0, System.currentTimeMillis() - entry.getReadyAt());
+                state.dispatched++;
+                state.totalWaitMillis += wait;
+                state.maxWaitMillis = Math.max(state.maxWaitMillis, wait);
+                if (state.queue.isEmpty()) {
+                    ring.pollFirst();
+                    state.deficit = 0;
+                    state.visited = false;
+                }
+                return entry;
+            }
+            rotate(state);
+            skipped++;
+        }
+        return null;
+    }
+
+    /**
+     * 租户没有排队和运行中的会话时移除其状态，显式配置的租户除外。
+     */
+    private void evictIfIdle(String tenant, TenantState state) {
+        if (state.running == 0 && state.queue.isEmpty() && !isConfigured(tenant)) {
+            tenants.remove(tenant);
+        }
+    }
+
+    private boolean isConfigured(String tenant) {
+        return config.getWeights().containsKey(tenant) || config.getMaxConcurrency().containsKey(tenant);
+    }
+
+    private void rotate(TenantState state) {
+        state.visited = false;
+        ring.addLast(ring.pollFirst());
+    }
+
+    private int weightOf(String tenant) {
+        return Math.max(1, config.getWeights().getOrDefault(tenant, config.getDefaultWeight()));
+    }
+
+    private int limitOf(String tenant) {
+        return Math.max(1, config.getMaxConcurrency().getOrDefault(tenant, config.getDefaultMaxConcurrency()));
+    }
+}
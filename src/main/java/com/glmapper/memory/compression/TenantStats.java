@@ -0,0 +1,55 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.compression;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 单个租户的压缩调度指标（本节点）。
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TenantStats {
+
+    /** 租户标识 */
+    private String tenant;
+
+    /** 调度权重 */
+    private int weight;
+
+    /** 最大并发会话数 */
+    private int maxConcurrency;
+
+    /** 已从就绪集合取出、等待工作线程的会话数 */
+    private int queued;
+
+    /** 正在处理的会话数 */
+    private int running;
+
+    /** 累计调度的会话数 */
+    private long dispatched;
+
+    /** 平均等待时间（毫秒，从登记到就绪集合到开始处理） */
+    private long avgWaitMillis;
+
+    /** 最大等待时间（毫秒） */
+    private long maxWaitMillis;
+}
@@ -0,0 +1,349 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.compression;
+
+import com.glmapper.memory.config.ArtisanMemoryProperties;
+import com.glmapper.memory.model.ContentBlock;
+import com.glmapper.memory.model.MessagePair;
+import com.glmapper.memory.model.Msg;
+import com.glmapper.memory.model.MsgRole;
+import com.glmapper.memory.model.TextBlock;
+import com.glmapper.memory.model.ToolResultBlock;
+import com.glmapper.memory.model.ToolUseBlock;
+import com.glmapper.memory.model.WorkingMemory;
+import com.glmapper.memory.util.MsgUtils;
+import com.glmapper.memory.util.TokenCounterUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 工具调用压缩策略：对从 Tail 移出的消息对的中间消息（工具调用与工具结果）做确定性压缩。
+ *
+ * <p>在当前轮次摘要之前执行，只使用 CPU：
+ * <ul>
+ *   <li>通过 {@link MsgUtils#filterPlanRelatedToolCalls} 去掉计划类工具调用及其结果</li>
+ *   <li>同一工具相同参数的重复调用只保留最后一次</li>
+ *   <li>超长的工具输出与参数值保留首尾、省略中间</li>
+ * </ul>
+ *
+ * <p>压缩后仍然超过阈值时，可选用一次 LLM 调用把全部工具调用概括为一条摘要消息（LLM 失败时保留确定性压缩的结果）。
+ * 返回新的消息对，不修改传入的消息对；用户消息、最终助手回复和原始历史序号保持不变。
+ *
+ * @author glsong
+ * @since 1.0.0
+ */
+@Slf4j
+public class ToolCallCompressionStrategy implements CompressionStrategy {
+
+    private static final String ELIDED_FORMAT = "\n...[省略 %d 字符]...\n";
+
+    private final ChatClient chatClient;
+    private final PromptConfig promptConfig;
+    private final ArtisanMemoryProperties.ToolCall config;
+
+    public ToolCallCompressionStrategy(ChatClient chatClient, PromptConfig promptConfig, ArtisanMemoryProperties memoryProperties) {
+        this.chatClient = chatClient;
+        this.promptConfig = promptConfig;
+        this.config = memoryProperties.getCompression().getToolCall();
+    }
+
+    /**
+     * 压缩单个消息对的工具调用（允许 LLM 概括）。
+     *
+     * @param conversationId 会话标识符
+     * @param workingMemory  工作记忆（未使用，保持接口兼容）
+     * @param evictedPair    从 Tail 移出的消息对
+     * @return 工具调用变短时返回包含新消息对的 compressed 结果；否则返回 notCompressed
+     */
+    @Override
+    public CompressionResult compress(String conversationId, WorkingMemory workingMemory, MessagePair evictedPair) {
+        MessagePair compacted = compact(conversationId, evictedPair, true);
+        if (compacted == evictedPair) {
+            return CompressionResult.notCompressed();
+        }
+        return CompressionResult.compressed(List.of(compacted), 1);
+    }
+
+    /**
+     * 按顺序压缩多个消息对。
+     *
+     * @param conversationId  会话标识符
+     * @param evictedPairs    按时间顺序排列的移出消息对
+     * @param allowEscalation 是否允许调用 LLM 概括，压缩积压时应为 false
+     * @return 压缩后的消息对，顺序与数量不变
+     */
+    public List<MessagePair> compactAll(String conversationId, List<MessagePair> evictedPairs, boolean allowEscalation) {
+        List<MessagePair> compacted = new ArrayList<>(evictedPairs.size());
+        for (MessagePair pair : evictedPairs) {
+            compacted.add(compact(conversationId, pair, allowEscalation));
+        }
+        return compacted;
+    }
+
+    /**
+     * 压缩一个消息对的工具调用。
+     *
+     * @param conversationId  会话标识符
+     * @param pair            消息对
+     * @param allowEscalation 是否允许调用 LLM 概括
+     * @return 压缩后的新消息对；没有中间消息或压缩后没有变短时返回原消息对
+     */
+    public MessagePair compact(String conversationId, MessagePair pair, boolean allowEscalation) {
+        if (pair == null || pair.getIntermediateMessages() == null || pair.getIntermediateMessages().isEmpty()) {
+            return pair;
+        }
+        List<Msg> original = pair.getIntermediateMessages();
+        int originalTokens = TokenCounterUtil.calculateToken(original);
+
+        List<Msg> messages = original;
+        if (config.isDropPlanTools()) {
+            messages = MsgUtils.filterPlanRelatedToolCalls(messages);
+        }
+        if (config.isCollapseRepeatedCalls()) {
+            messages = collapseRepeatedCalls(messages);
+        }
+        messages = truncateLargePayloads(messages);
+
+        int compactedTokens = TokenCounterUtil.calculateToken(messages);
+        if (allowEscalation && config.isLlmEscalation() && chatClient != null
+                && compactedTokens > config.getEscalationTokenThreshold()) {
+            Msg summary = summarize(conversationId, messages);
+            if (summary != null) {
+                messages = List.of(summary);
+                compactedTokens = TokenCounterUtil.calculateToken(messages);
+            }
+        }
+
+        if (compactedTokens >= originalTokens) {
+            return pair;
+        }
+        log.info("{} completed: messages={}->{}, tokens={}->{}, sessionId={}", this.getName(),
+                original.size(), messages.size(), originalTokens, compactedTokens, conversationId);
+        MessagePair compacted = new MessagePair(pair.getUserMessage(), pair.getAssistantMessage(), new ArrayList<>(messages));
+        compacted.setSequence(pair.getSequence());
+        return compacted;
+    }
+
+    /**
+     * 同一工具相同参数的调用只保留最后一次，去掉更早的调用及其结果。
+     */
+    private List<Msg> collapseRepeatedCalls(List<Msg> messages) {
+        Map<List<Object>, String> lastCallIds = new HashMap<>();
+        List<String> callIds = new ArrayList<>();
+        for (Msg msg : messages) {
+            if (msg.getRole() == MsgRole.ASSISTANT) {
+                for (ToolUseBlock toolUse : msg.getContentBlocks(ToolUseBlock.class)) {
+                    lastCallIds.put(Arrays.asList(toolUse.getName(), toolUse.getInput()), toolUse.getId());
+                    callIds.add(toolUse.getId());
+                }
+            }
+        }
+        Set<String> superseded = new HashSet<>(callIds);
+        superseded.removeAll(lastCallIds.values());
+        if (superseded.isEmpty()) {
+            return messages;
+        }
+
+        List<Msg> collapsed = new ArrayList<>();
+        for (Msg msg : messages) {
+            List<ContentBlock> kept = new ArrayList<>();
+            for (ContentBlock block : msg.getContent()) {
+                if (block instanceof ToolUseBlock toolUse && superseded.contains(toolUse.getId())) {
+                    continue;
+                }
+                if (block instanceof ToolResultBlock toolResult && superseded.contains(toolResult.getId())) {
+                    continue;
+                }
+                kept.add(block);
+            }
+            if (kept.size() == msg.getContent().size()) {
+                collapsed.add(msg);
+            } else if (!kept.isEmpty()) {
+                collapsed.add(MsgUtils.copyWithContent(msg, kept));
+            }
+        }
+        return collapsed;
+    }
+
+    /**
+     * 截断超长的工具输出与参数值。
+     */
+    private List<Msg> truncateLargePayloads(List<Msg> messages) {
+        List<Msg> truncated = new ArrayList<>(messages.size());
+        for (Msg msg : messages) {
+            boolean changed = false;
+            List<ContentBlock> blocks = new ArrayList<>(msg.getContent().size());
+            for (ContentBlock block : msg.getContent()) {
+                ContentBlock replaced = block;
+                if (block instanceof ToolResultBlock toolResult) {
+                    replaced = truncate(toolResult);
+                } else if (block instanceof ToolUseBlock toolUse) {
+                    replaced = truncate(toolUse);
+                }
+                changed |= replaced != block;
+                blocks.add(replaced);
+            }
+            truncated.add(changed ? MsgUtils.copyWithContent(msg, blocks) : msg);
+        }
+        return truncated;
+    }
+
+    private ContentBlock truncate(ToolResultBlock toolResult) {
+        boolean changed = false;
+        List<ContentBlock> output = new ArrayList<>();
+        if (toolResult.getOutput() != null) {
+            for (ContentBlock block : toolResult.getOutput()) {
+                if (block instanceof TextBlock text && text.getText() != null
+                        && text.getText().length() > config.getMaxResultChars()) {
+                    output.add(TextBlock.of(elide(text.getText(), config.getMaxResultChars())));
+                    changed = true;
+                } else {
+                    output.add(block);
+                }
+            }
+        }
+        if (!changed) {
+            return toolResult;
+        }
+        ToolResultBlock copy = new ToolResultBlock();
+        copy.setId(toolResult.getId());
+        copy.setName(toolResult.getName());
+        copy.setOutput(output);
+        return copy;
+    }
+
+    private ContentBlock truncate(ToolUseBlock toolUse) {
+        int maxChars = config.getMaxInputValueChars();
+        boolean changed = false;
+        Map<String, Object> input = new LinkedHashMap<>();
+        if (toolUse.getInput() != null) {
+            for (Map.Entry<String, Object> entry : toolUse.getInput().entrySet()) {
+                Object value = entry.getValue();
+                if (value instanceof String text && text.length() > maxChars) {
+                    value = elide(text, maxChars);
+                    changed = true;
+                }
+                input.put(entry.getKey(), value);
+            }
+        }
+        String content = toolUse.getContent();
+        if (content != null && content.length() > maxChars) {
+            content = elide(content, maxChars);
+            changed = true;
+        }
+        if (!changed) {
+            return toolUse;
+        }
+        ToolUseBlock copy = new ToolUseBlock();
+        copy.setId(toolUse.getId());
+        copy.setName(toolUse.getName());
+        copy.setInput(input);
+        copy.setContent(content);
+        return copy;
+    }
+
+    /**
+     * 保留前 2/3 与后 1/3，中间替换为省略标记。
+     */
+    private String elide(String text, int maxChars) {
+        int limit = Math.max(0, maxChars);
+        int head = limit * 2 / 3;
+        int tail = limit - head;
+        return text.substring(0, head) + String.format(ELIDED_FORMAT, text.length() - limit)
+                + text.substring(text.length() - tail);
+    }
+
+    /**
+     * 使用 LLM 把工具调用过程概括为一条摘要消息。
+     *
+     * @return 摘要消息，失败时返回 null
+     */
+    private Msg summarize(String conversationId, List<Msg> messages) {
+        try {
+            List<Message> promptMessages = new ArrayList<>();
+            String prompt = promptConfig != null ? promptConfig.getToolCallCompressionPrompt() : null;
+            promptMessages.add(new SystemMessage(prompt != null && !prompt.isBlank() ? prompt : Prompts.TOOL_CALL_COMPRESSION_PROMPT));
+            promptMessages.add(new UserMessage(render(messages)));
+
+            String summaryText = chatClient.prompt().messages(promptMessages).call().content();
+            if (summaryText == null || summaryText.isBlank()) {
+                return null;
+            }
+            Msg summaryMsg = Msg.builder()
+                    .role(MsgRole.ASSISTANT)
+                    .content(TextBlock.of("[工具调用摘要] " + summaryText))
+                    .build();
+            Map<String, Object> metadata = new HashMap<>();
+            metadata.put("summary", true);
+            metadata.put("summary_type", "tool_calls");
+            metadata.put("summarized_messages", messages.size());
+            summaryMsg.setMetadata(metadata);
+            return summaryMsg;
+        } catch (Exception e) {
+            log.warn("Tool call summarization failed, keeping deterministic result, sessionId={}", conversationId, e);
+            return null;
+        }
+    }
+
+    private String render(List<Msg> messages) {
+        StringBuilder text = new StringBuilder();
+        for (Msg msg : messages) {
+            for (ContentBlock block : msg.getContent()) {
+                if (block instanceof ToolUseBlock toolUse) {
+                    text.append("Tool call: ").append(toolUse.getName()).append(' ').append(toolUse.getInput()).append('\n');
+                } else if (block instanceof ToolResultBlock toolResult) {
+                    text.append("Tool result (").append(toolResult.getName()).append("): ");
+                    if (toolResult.getOutput() != null) {
+                        for (ContentBlock output : toolResult.getOutput()) {
+                            if (output instanceof TextBlock outputText) {
+                                text.append(outputText.getText());
+                            }
+                        }
+                    }
+                    text.append('\n');
+                } else if (block instanceof TextBlock textBlock) {
+                    text.append(msg.getRole()).append(": ").append(textBlock.getText()).append('\n');
+                }
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * 在当前轮次摘要（order 2）之前执行。
+     */
+    @Override
+    public int getOrder() {
+        return 0;
+    }
+
+    @Override
+    public String getName() {
+        return "TOOL_CALL_COMPRESSION";
+    }
+}
@@ -4,60 +4,209 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.glmapper.memory.compression.events.EventHandler;
 import com.glmapper.memory.compression.events.EvictedMessageEvent;
+import com.glmapper.memory.compression.events.HistorySummaryEvent;
+import com.glmapper.memory.compression.events.MemoryEvent;
 import com.glmapper.memory.compression.events.MemoryEventPublisher;
+import com.glmapper.memory.compression.events.PinAggregationEvent;
 import com.glmapper.memory.compression.events.PinMessageEvent;
+import com.glmapper.memory.config.ArtisanMemoryProperties;
 import com.glmapper.memory.model.MessagePair;
+import com.glmapper.memory.storage.WorkingMemoryStorage;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
  * WorkingMemory 压缩执行器。
  *
- * <p>使用 Redis 队列 + 消费者线程的方式处理压缩任务：
+ * <p>使用 Redis 队列 + 共享调度器的方式处理压缩任务：
  * <ul>
- *   <li>每个 sessionId 对应一个 Redis 队列</li>
- *   <li>同一 sessionId 的任务按顺序进入队列</li>
- *   <li>每个 sessionId 分配一个消费者线程，顺序处理任务</li>
+ *   <li>每个 sessionId 对应一个任务队列（{@link CompressionTaskQueue}），同一 sessionId 的任务按顺序进入队列</li>
+ *   <li>提交任务时把会话登记到就绪集合，由 {@link CompressionDispatcher} 的少量轮询线程取出</li>
+ *   <li>有界工作线程池执行任务，同一会话同一时刻只由一个工作线程顺序处理</li>
  * </ul>
  *
+ * <p>任务队列可以是 Redis List（默认）或 Redis Streams 消费组。使用 Streams 时任务在处理完成后才确认，
+ * 并定期扫描有未完成任务的会话重新登记调度，崩溃节点的任务会被其他节点认领。
+ *
+ * <p>启用优先级通道时，处理器发布的后台事件（Pin 聚合、历史摘要）不在当前工作线程上执行，而是记入
+ * {@link BackgroundTaskSet} 并登记到后台通道的调度器，由后台工作线程按会话合并执行。
+ *
+ * <p>执行失败的任务放回队列，按指数退避延迟重新调度（同一会话后续任务随之等待，保证顺序），
+ * 达到最大尝试次数后写入 {@link DeadLetterQueue}，可以通过 {@link #replayDeadLetter(String)} 重放。
+ *
+ * <p>每个任务（合并模式下每批任务、后台通道每次调度）使用一个 {@link CompressionUnitOfWork}：工作记忆只加载一次，
+ * 各策略依次修改同一个对象，最后只保存修改过的区域。启用租约时保存前再次确认租约，租约已丢失则放弃保存并放回任务。
+ *
  * @author glsong
  * @since 1.0.0
  */
 @Slf4j
 @Component
-public class WorkingMemoryCompression {
+public class WorkingMemoryCompression implements InitializingBean {
 
-    private static final String QUEUE_KEY_PREFIX = "artisan:wm:queue:";
-    private static final int QUEUE_POLL_TIMEOUT_SECONDS = 10;  // 改为10秒，更合理的轮询间隔
-    private static final int MAX_IDLE_LOOPS = 6;  // 最多空闲6次（60秒无任务后退出消费者）
+    /**
+     * 后台事件按固定顺序执行：先聚合 Pin，再做历史摘要。
+     */
+    private static final Map<String, Function<String, MemoryEvent>> BACKGROUND_EVENTS = new LinkedHashMap<>();
+
+    static {
+        BACKGROUND_EVENTS.put(PinAggregationEvent.class.getName(), PinAggregationEvent::new);
+        BACKGROUND_EVENTS.put(HistorySummaryEvent.class.getName(), HistorySummaryEvent::new);
+    }
 
-    private final StringRedisTemplate redisTemplate;
     private final MemoryEventPublisher eventPublisher;
+    private final WorkingMemoryStorage workingMemoryStorage;
+    private final SpeculativeSummarizer speculativeSummarizer;
     private final ObjectMapper objectMapper;
-    private final ExecutorService consumerExecutor;
-    private final ConcurrentHashMap<String, AtomicBoolean> activeConsumers;
-    private final AtomicBoolean shutdown;
+    private final ArtisanMemoryProperties.Compression compressionConfig;
+    private final CompressionTaskQueue taskQueue;
+    private final CompressionLeaseManager leaseManager;
+    private final CompressionDispatcher dispatcher;
+    private final BackgroundTaskSet backgroundTasks;
+    private final CompressionLeaseManager backgroundLeaseManager;
+    private final CompressionDispatcher backgroundDispatcher;
+    private final CompressionAdmission admission;
+    private final RetryTracker retryTracker;
+    private final DeadLetterQueue deadLetterQueue;
+    private final ConcurrentHashMap<String, Long> retryDelays = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Long> backgroundRetryDelays = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService recoveryScheduler;
+    private final ExecutorService strategyExecutor;
+    private final AtomicInteger drainRequeuedTasks = new AtomicInteger();
+    private final AtomicInteger drainRequeuedBackgroundTasks = new AtomicInteger();
+    private volatile boolean draining;
+    private List<DrainStats> drainStats;
 
-    public WorkingMemoryCompression(StringRedisTemplate redisTemplate, MemoryEventPublisher eventPublisher) {
-        this.redisTemplate = redisTemplate;
+    public WorkingMemoryCompression(StringRedisTemplate redisTemplate, MemoryEventPublisher eventPublisher,
+                                    ArtisanMemoryProperties properties, CompressionAdmission admission,
+                                    WorkingMemoryStorage workingMemoryStorage, SpeculativeSummarizer speculativeSummarizer) {
         this.eventPublisher = eventPublisher;
+        this.workingMemoryStorage = workingMemoryStorage;
+        this.speculativeSummarizer = speculativeSummarizer;
+        this.admission = admission;
         this.objectMapper = new ObjectMapper();
         this.objectMapper.registerModule(new JavaTimeModule());
-        this.consumerExecutor = Executors.newCachedThreadPool(r -> {
-            Thread t = new Thread(r, "artisan-memory-consumer");
+        this.compressionConfig = properties.getCompression();
+        this.retryTracker = new RetryTracker(redisTemplate, compressionConfig.getRetry());
+        this.deadLetterQueue = new DeadLetterQueue(redisTemplate, objectMapper, compressionConfig.getRetry().getDeadLetterMaxSize());
+        this.taskQueue = compressionConfig.getTransport() == ArtisanMemoryProperties.TaskTransport.STREAM
+                ? new RedisStreamTaskQueue(redisTemplate, compressionConfig.getStream())
+                : new RedisListTaskQueue(redisTemplate);
+        this.leaseManager = compressionConfig.getLease().isEnabled()
+                ? new CompressionLeaseManager(redisTemplate, compressionConfig.getLease())
+                : null;
+        this.dispatcher = new CompressionDispatcher(redisTemplate, CompressionLane.FAST, compressionConfig.getDispatcher(),
+                new CompressionDispatcher.SessionProcessor() {
+                    @Override
+                    public void process(String sessionId, CompressionLease lease) {
+                        drainQueue(sessionId, lease);
+                    }
+
+                    @Override
+                    public boolean hasPending(String sessionId) {
+                        return taskQueue.hasPending(sessionId);
+                    }
+
+                    @Override
+                    public long resignalDelayMillis(String sessionId) {
+                        Long delay = retryDelays.remove(sessionId);
+                        return delay != null ? delay : 0;
+                    }
+                }, leaseManager, compressionConfig.getTenant());
+        if (compressionConfig.getLanes().isEnabled()) {
+            this.backgroundTasks = new BackgroundTaskSet(redisTemplate);
+            this.backgroundLeaseManager = compressionConfig.getLease().isEnabled()
+                    ? new CompressionLeaseManager(redisTemplate, compressionConfig.getLease(), "artisan:wm:lease:background:")
+                    : null;
+            this.backgroundDispatcher = new CompressionDispatcher(redisTemplate, CompressionLane.BACKGROUND,
+                    compressionConfig.getLanes().getBackground(),
+                    new CompressionDispatcher.SessionProcessor() {
+                        @Override
+                        public void process(String sessionId, CompressionLease lease) {
+                            runBackgroundTasks(sessionId, lease);
+                        }
+
+                        @Override
+                        public boolean hasPending(String sessionId) {
+                            return backgroundTasks.hasPending(sessionId);
+                        }
+
+                        @Override
+                        public long resignalDelayMillis(String sessionId) {
+                            Long delay = backgroundRetryDelays.remove(sessionId);
+                            if (delay != null) {
+                                return delay;
+                            }
+                            return isDebounced() ? debounceIdleMillis() : 0;
+                        }
+                    }, backgroundLeaseManager, compressionConfig.getTenant());
+        } else {
+            this.backgroundTasks = null;
+            this.backgroundLeaseManager = null;
+            this.backgroundDispatcher = null;
+        }
+        // 每个工作线程最多同时有一个并行的 Pin 判定，线程数与工作线程相同
+        this.strategyExecutor = compressionConfig.isParallelStrategies()
+                ? CompressionExecutors.newExecutor(compressionConfig.getDispatcher().getExecutorMode(),
+                compressionConfig.getDispatcher().getWorkerThreads(), "artisan-memory-strategy")
+                : null;
+        this.recoveryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "artisan-memory-recovery");
             t.setDaemon(true);
             return t;
         });
-        this.activeConsumers = new ConcurrentHashMap<>();
-        this.shutdown = new AtomicBoolean(false);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        dispatcher.start();
+        recoveryScheduler.execute(this::recoverPendingSessions);
+        if (compressionConfig.getDebounce().isEnabled() && backgroundDispatcher == null) {
+            log.warn("[MEMORY]-[DISPATCHER] 后台压缩防抖需要启用 compression.lanes，已忽略");
+        }
+        if (backgroundDispatcher != null) {
+            eventPublisher.setBackgroundSink(this::submitBackgroundEvent);
+            backgroundDispatcher.start();
+            recoveryScheduler.execute(this::recoverBackgroundSessions);
+        }
+        if (compressionConfig.getTransport() == ArtisanMemoryProperties.TaskTransport.STREAM) {
+            long interval = Math.max(1, compressionConfig.getStream().getRecoveryIntervalSeconds());
+            recoveryScheduler.scheduleWithFixedDelay(this::recoverPendingSessions, interval, interval, TimeUnit.SECONDS);
+        }
+        if (admission.isEnabled()) {
+            long interval = Math.max(100, compressionConfig.getAdmission().getRefreshIntervalMillis());
+            recoveryScheduler.scheduleWithFixedDelay(this::refreshAdmission, 0, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 为下一次要从 Tail 移出的轮次预生成当前轮次摘要（compression.speculative 开启时），不阻塞调用方。
+     *
+     * @param sessionId   会话标识符
+     * @param nextToEvict Tail 中最旧的一轮
+     */
+    public void speculate(String sessionId, MessagePair nextToEvict) {
+        if (draining) {
+            return;
+        }
+        speculativeSummarizer.speculate(sessionId, nextToEvict);
     }
 
     /**
@@ -69,137 +218,665 @@ public class WorkingMemoryCompression {
      */
     public void submitTask(String sessionId, MessagePair currentPair, MessagePair evictedPair) {
         try {
-            // 1、创建压缩任务
-            CompressionTask task = new CompressionTask(sessionId, currentPair, evictedPair);
+            // 1、创建压缩任务（开启工具结果去重时，载荷中的工具输出只保留引用，执行前还原）
+            CompressionTask task = new CompressionTask(sessionId,
+                    workingMemoryStorage.externalizeToolResults(sessionId, currentPair),
+                    workingMemoryStorage.externalizeToolResults(sessionId, evictedPair));
             String taskJson = objectMapper.writeValueAsString(task);
 
-            // 2、推入 Redis 队列（LPUSH）
-            String queueKey = QUEUE_KEY_PREFIX + sessionId;
-            redisTemplate.opsForList().leftPush(queueKey, taskJson);
-            log.info("[MEMORY]-[{}] 压缩任务已提交到队列, queueKey: {}", sessionId, queueKey);
+            // 2、写入会话任务队列
+            taskQueue.push(sessionId, taskJson);
+            log.info("[MEMORY]-[{}] 压缩任务已提交到队列, transport: {}", sessionId, compressionConfig.getTransport());
 
-            // 3、确保该 sessionId 有消费者线程在运行
-            activeConsumers.computeIfAbsent(sessionId, key -> {
-                AtomicBoolean running = new AtomicBoolean(true);
-                consumerExecutor.submit(() -> consumeQueue(sessionId, running));
-                return running;
-            });
+            // 3、登记到就绪集合，等待调度
+            dispatcher.signal(sessionId);
+
+            // 4、会话仍然活跃，推迟已登记的防抖后台任务
+            if (isDebounced()) {
+                backgroundDispatcher.debounce(sessionId, debounceIdleMillis(), debounceMaxDelayMillis(), true);
+            }
         } catch (Exception e) {
             log.error("[MEMORY]-[{}] 提交压缩任务失败", sessionId, e);
         }
     }
 
     /**
-     * 消费 Redis 队列中的压缩任务。
+     * 消费会话队列中的压缩任务，单次最多处理 maxTasksPerDispatch 条。
      *
-     * @param sessionId
-     * @param running
+     * <p>启用租约时，每个任务开始前确认租约仍由本节点持有；租约丢失后剩余任务放回队列，交给新的持有者处理。
+     *
+     * @param sessionId 会话标识符
+     * @param lease     会话租约，未启用时为 null
      */
-    private void consumeQueue(String sessionId, AtomicBoolean running) {
-        // 1、拼接队列键
-        String queueKey = QUEUE_KEY_PREFIX + sessionId;
-        int idleLoops = 0;  // 空闲循环计数器
-
-        // 2、开始消费循环
-        while (running.get() && !shutdown.get()) {
-            try {
-                // 3、从队列右侧弹出任务（BRPOP，阻塞式，最多等待10秒）
-                String taskJson = redisTemplate.opsForList()
-                        .rightPop(queueKey, QUEUE_POLL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-
-                // 4、队列为空，等待超时
-                if (taskJson == null) {
-                    idleLoops++;
-                    log.debug("[MEMORY]-[{}] 队列空闲，空闲循环次数: {}/{}", sessionId, idleLoops, MAX_IDLE_LOOPS);
-
-                    // 连续空闲超过阈值，停止消费者以释放资源
-                    if (idleLoops >= MAX_IDLE_LOOPS) {
-                        log.info("[MEMORY]-[{}] 压缩队列连续空闲 {} 次，停止消费者", sessionId, idleLoops);
-                        activeConsumers.remove(sessionId);
-                        running.set(false);
-                        break;
+    private void drainQueue(String sessionId, CompressionLease lease) {
+        int maxTasks = Math.max(1, compressionConfig.getDispatcher().getMaxTasksPerDispatch());
+        // 1、取出会话最早的任务
+        List<QueuedTask> queuedTasks = taskQueue.poll(sessionId, maxTasks);
+        if (draining) {
+            requeueForDrain(sessionId, queuedTasks);
+            return;
+        }
+        if (compressionConfig.isCoalesce() && queuedTasks.size() > 1) {
+            if (!checkLease(sessionId, lease, queuedTasks)) {
+                return;
+            }
+            executeCoalesced(sessionId, queuedTasks, lease);
+            return;
+        }
+        for (int i = 0; i < queuedTasks.size(); i++) {
+            QueuedTask queued = queuedTasks.get(i);
+            if (!checkLease(sessionId, lease, queuedTasks.subList(i, queuedTasks.size()))) {
+                return;
+            }
+            if (draining) {
+                // 停机排空：不再开始新的任务，剩余任务放回队列由其他节点处理
+                requeueForDrain(sessionId, queuedTasks.subList(i, queuedTasks.size()));
+                return;
+            }
+            // 2、解析任务，无法解析的任务重试也不会成功，直接进入死信队列
+            CompressionTask task = parseTask(sessionId, queued);
+            if (task != null) {
+                String taskKey = taskKey(task, queued);
+                try {
+                    // 3、执行压缩策略
+                    log.info("[MEMORY]-[{}] 开始执行压缩任务", sessionId);
+                    if (!executeCompressionStrategies(task, lease)) {
+                        // 租约在执行期间丢失，结果未保存，本任务及其后的任务放回队列
+                        taskQueue.requeue(sessionId, new ArrayList<>(queuedTasks.subList(i, queuedTasks.size())));
+                        return;
+                    }
+                    retryTracker.clear(sessionId, taskKey);
+                    log.info("[MEMORY]-[{}] 压缩任务执行完成", sessionId);
+                } catch (Exception e) {
+                    if (draining) {
+                        // 排空超时被中断，不计入重试次数
+                        requeueForDrain(sessionId, queuedTasks.subList(i, queuedTasks.size()));
+                        return;
+                    }
+                    // 4、失败的任务及其后的任务放回队列，退避后重新调度；达到最大次数后进入死信队列
+                    if (!deadLetterIfExhausted(sessionId, CompressionLane.FAST, taskKey, List.of(queued.getPayload()), e, retryDelays)) {
+                        taskQueue.requeue(sessionId, new ArrayList<>(queuedTasks.subList(i, queuedTasks.size())));
+                        return;
                     }
-                    continue;
                 }
+            }
+            // 5、确认任务
+            taskQueue.ack(sessionId, queued);
+        }
+    }
+
+    /**
+     * 停机排空时把未完成的任务放回持久队列，不计入重试次数。
+     */
+    private void requeueForDrain(String sessionId, List<QueuedTask> remaining) {
+        if (remaining.isEmpty()) {
+            return;
+        }
+        // 排空超时时工作线程已被中断，先清除中断标记，否则 Redis 命令会立即失败
+        Thread.interrupted();
+        taskQueue.requeue(sessionId, new ArrayList<>(remaining));
+        drainRequeuedTasks.addAndGet(remaining.size());
+        log.info("[MEMORY]-[{}] 停机排空，{} 个任务已放回队列", sessionId, remaining.size());
+    }
+
+    private CompressionTask parseTask(String sessionId, QueuedTask queued) {
+        try {
+            CompressionTask task = objectMapper.readValue(queued.getPayload(), CompressionTask.class);
+            // 还原去重的工具输出（未开启去重时原样返回）
+            task.setCurrentPair(workingMemoryStorage.resolveToolResults(sessionId, task.getCurrentPair()));
+            task.setEvictedPair(workingMemoryStorage.resolveToolResults(sessionId, task.getEvictedPair()));
+            return task;
+        } catch (Exception e) {
+            log.error("[MEMORY]-[{}] 解析压缩任务失败，写入死信队列", sessionId, e);
+            deadLetterQueue.add(deadLetter(sessionId, CompressionLane.FAST, queued.getPayload(), 1, e));
+            return null;
+        }
+    }
+
+    private String taskKey(CompressionTask task, QueuedTask queued) {
+        if (task.getTaskId() != null) {
+            return task.getTaskId();
+        }
+        return queued.getId() != null ? queued.getId() : Integer.toHexString(queued.getPayload().hashCode());
+    }
 
-                // 5、重置空闲计数器
-                idleLoops = 0;
+    /**
+     * 记录一次失败：未达到最大次数时登记退避时间并返回 false（由调用方放回任务），否则把任务写入死信队列并返回 true。
+     */
+    private boolean deadLetterIfExhausted(String sessionId, CompressionLane lane, String taskKey, List<String> payloads,
+                                          Exception error, Map<String, Long> delays) {
+        int attempts;
+        try {
+            attempts = retryTracker.recordFailure(sessionId, taskKey);
+        } catch (Exception e) {
+            // 计数失败（Redis 不可用）时按首次失败处理，任务本身不丢失
+            log.error("[MEMORY]-[{}] 记录压缩任务失败次数失败", sessionId, e);
+            attempts = 1;
+        }
+        if (!retryTracker.isExhausted(attempts)) {
+            long delay = retryTracker.backoffMillis(attempts);
+            delays.merge(sessionId, delay, Math::max);
+            log.warn("[MEMORY]-[{}] 压缩任务执行失败，{} ms 后重试, lane: {}, attempts: {}",
+                    sessionId, delay, lane, attempts, error);
+            return false;
+        }
+        log.error("[MEMORY]-[{}] 压缩任务重试 {} 次后仍失败，写入死信队列, lane: {}", sessionId, attempts, lane, error);
+        for (String payload : payloads) {
+            String stored = lane == CompressionLane.FAST ? resolvePayload(sessionId, payload) : payload;
+            deadLetterQueue.add(deadLetter(sessionId, lane, stored, attempts, error));
+        }
+        retryTracker.clear(sessionId, taskKey);
+        return true;
+    }
+
+    /**
+     * 死信可能长期保留，载荷中去重的工具输出引用在此期间可能已被清理，写入死信前还原为完整内容。
+     * 还原失败时保留原载荷。
+     */
+    private String resolvePayload(String sessionId, String payload) {
+        try {
+            CompressionTask task = objectMapper.readValue(payload, CompressionTask.class);
+            task.setCurrentPair(workingMemoryStorage.resolveToolResults(sessionId, task.getCurrentPair()));
+            task.setEvictedPair(workingMemoryStorage.resolveToolResults(sessionId, task.getEvictedPair()));
+            return objectMapper.writeValueAsString(task);
+        } catch (Exception e) {
+            log.warn("[MEMORY]-[{}] 还原死信载荷中的工具输出失败，保留原载荷", sessionId, e);
+            return payload;
+        }
+    }
 
-                // 6、解析任务
-                CompressionTask task = objectMapper.readValue(taskJson, CompressionTask.class);
-                log.info("[MEMORY]-[{}] 开始执行压缩任务", sessionId);
+    private DeadLetter deadLetter(String sessionId, CompressionLane lane, String payload, int attempts, Exception error) {
+        return DeadLetter.builder()
+                .id(UUID.randomUUID().toString())
+                .sessionId(sessionId)
+                .lane(lane)
+                .payload(payload)
+                .attempts(attempts)
+                .error(String.valueOf(error))
+                .failedAt(System.currentTimeMillis())
+                .build();
+    }
+
+    /**
+     * 确认租约仍然有效，否则把未处理的任务放回队列。
+     */
+    private boolean checkLease(String sessionId, CompressionLease lease, List<QueuedTask> remaining) {
+        if (lease == null || leaseManager.verify(lease)) {
+            return true;
+        }
+        log.warn("[MEMORY]-[{}] 压缩租约已丢失，放回 {} 个未处理任务, fencingToken: {}",
+                sessionId, remaining.size(), lease.getFencingToken());
+        taskQueue.requeue(sessionId, new ArrayList<>(remaining));
+        return false;
+    }
 
-                // 7、执行压缩策略
-                executeCompressionStrategies(task);
-                log.info("[MEMORY]-[{}] 压缩任务执行完成", sessionId);
+    /**
+     * 把一批任务合并为一次压缩执行。
+     *
+     * @param sessionId   会话标识符
+     * @param queuedTasks 按提交顺序排列的任务
+     * @param lease       会话租约，未启用时为 null
+     */
+    private void executeCoalesced(String sessionId, List<QueuedTask> queuedTasks, CompressionLease lease) {
+        List<MessagePair> currentPairs = new ArrayList<>();
+        List<MessagePair> evictedPairs = new ArrayList<>();
+        String batchKey = null;
+        List<String> payloads = new ArrayList<>();
+        // 无法解析的任务已写入死信队列，立即确认，不参与后续的放回和重试
+        List<QueuedTask> parsedTasks = new ArrayList<>(queuedTasks.size());
+        for (QueuedTask queued : queuedTasks) {
+            CompressionTask task = parseTask(sessionId, queued);
+            if (task == null) {
+                taskQueue.ack(sessionId, queued);
+                continue;
+            }
+            parsedTasks.add(queued);
+            payloads.add(queued.getPayload());
+            if (batchKey == null) {
+                // 合并执行作为一个整体重试，以第一个任务的标识计数
+                batchKey = taskKey(task, queued);
+            }
+            if (task.getCurrentPair() != null) {
+                currentPairs.add(task.getCurrentPair());
+            }
+            if (task.getEvictedPair() != null) {
+                evictedPairs.add(task.getEvictedPair());
+            }
+        }
+        if (parsedTasks.isEmpty()) {
+            return;
+        }
+        log.info("[MEMORY]-[{}] 合并执行 {} 个压缩任务, currentPairs: {}, evictedPairs: {}",
+                sessionId, parsedTasks.size(), currentPairs.size(), evictedPairs.size());
+        try {
+            CompressionUnitOfWork unitOfWork = new CompressionUnitOfWork(sessionId, workingMemoryStorage, false);
+            // 1、所有新对话对只做一次 Pin 判定（积压严重时去掉低价值轮次）
+            currentPairs = admission.filterPinCandidates(sessionId, currentPairs);
+            PinMessageEvent pinEvent = currentPairs.isEmpty() ? null : new PinMessageEvent(sessionId, currentPairs);
+            // 2、移出的消息对一起摘要，之后只检查一次历史摘要
+            EvictedMessageEvent evictedEvent = evictedPairs.isEmpty() ? null : new EvictedMessageEvent(sessionId, evictedPairs);
+            deliverStrategies(unitOfWork, pinEvent, evictedEvent);
+            // 3、一次保存整批结果
+            if (!commitFenced(unitOfWork, lease, leaseManager)) {
+                taskQueue.requeue(sessionId, new ArrayList<>(parsedTasks));
+                return;
+            }
+            retryTracker.clear(sessionId, batchKey);
+        } catch (Exception e) {
+            log.error("[MEMORY]-[{}] 合并压缩执行失败", sessionId, e);
+            if (draining) {
+                requeueForDrain(sessionId, parsedTasks);
+                return;
+            }
+            // 达到最大次数时批次中的每个任务分别写入死信队列，便于单独重放
+            if (!deadLetterIfExhausted(sessionId, CompressionLane.FAST, batchKey, payloads, e, retryDelays)) {
+                taskQueue.requeue(sessionId, new ArrayList<>(parsedTasks));
+                return;
+            }
+        }
+        parsedTasks.forEach(queued -> taskQueue.ack(sessionId, queued));
+    }
+
+    /**
+     * 把后台事件记入会话的后台任务集合，并登记到后台通道。
+     *
+     * @param event 后台通道事件
+     */
+    private void submitBackgroundEvent(MemoryEvent event) {
+        String eventType = event.getClass().getName();
+        if (!BACKGROUND_EVENTS.containsKey(eventType)) {
+            eventPublisher.dispatch(event);
+            return;
+        }
+        backgroundTasks.add(event.getSessionId(), eventType);
+        if (!isDebounced()) {
+            backgroundDispatcher.signal(event.getSessionId());
+        } else if (isUnderPressure(event)) {
+            backgroundDispatcher.debounce(event.getSessionId(), 0, debounceMaxDelayMillis(), false);
+            log.info("[MEMORY]-[{}] 工作记忆 token 压力达到阈值，后台压缩立即执行", event.getSessionId());
+        } else {
+            backgroundDispatcher.debounce(event.getSessionId(), debounceIdleMillis(), debounceMaxDelayMillis(), false);
+        }
+        log.debug("[MEMORY]-[{}] 后台压缩任务已登记, event: {}", event.getSessionId(), event.getClass().getSimpleName());
+    }
+
+    private boolean isDebounced() {
+        return backgroundDispatcher != null && compressionConfig.getDebounce().isEnabled();
+    }
+
+    private boolean isUnderPressure(MemoryEvent event) {
+        return event instanceof HistorySummaryEvent
+                && ((HistorySummaryEvent) event).getTokenPressure() >= compressionConfig.getDebounce().getPressureRatio();
+    }
+
+    private long debounceIdleMillis() {
+        return TimeUnit.SECONDS.toMillis(Math.max(0, compressionConfig.getDebounce().getIdleSeconds()));
+    }
+
+    private long debounceMaxDelayMillis() {
+        return TimeUnit.SECONDS.toMillis(Math.max(0, compressionConfig.getDebounce().getMaxDelaySeconds()));
+    }
+
+    /**
+     * 执行会话的后台任务，同一类型的多次提交只执行一次。
+     *
+     * @param sessionId 会话标识符
+     * @param lease     后台通道租约，未启用时为 null
+     */
+    private void runBackgroundTasks(String sessionId, CompressionLease lease) {
+        if (isDebounced()) {
+            // 本次处理之后提交的任务重新计算截止时间
+            backgroundDispatcher.clearDeadline(sessionId);
+        }
+        List<String> eventTypes = backgroundTasks.popAll(sessionId);
+        CompressionUnitOfWork unitOfWork = new CompressionUnitOfWork(sessionId, workingMemoryStorage, false);
+        List<String> completed = new ArrayList<>();
+        for (Map.Entry<String, Function<String, MemoryEvent>> entry : BACKGROUND_EVENTS.entrySet()) {
+            if (!eventTypes.contains(entry.getKey())) {
+                continue;
+            }
+            if (draining || (lease != null && !backgroundLeaseManager.verify(lease))) {
+                break;
+            }
+            eventTypes.remove(entry.getKey());
+            String taskKey = "bg:" + entry.getKey();
+            try {
+                MemoryEvent event = entry.getValue().apply(sessionId);
+                event.setUnitOfWork(unitOfWork);
+                eventPublisher.deliver(event);
+                completed.add(entry.getKey());
+                retryTracker.clear(sessionId, taskKey);
             } catch (Exception e) {
-                log.error("[MEMORY]-[{}] 消费队列时发生错误", sessionId, e);
-                // 发生错误时增加空闲计数，避免无限重试
-                idleLoops++;
-                if (idleLoops >= MAX_IDLE_LOOPS) {
-                    log.error("[MEMORY]-[{}] 连续错误超过阈值，停止消费者", sessionId);
-                    activeConsumers.remove(sessionId);
-                    running.set(false);
+                if (draining) {
+                    // 排空超时被中断，不计入重试次数；已完成的任务照常保存
+                    Thread.interrupted();
+                    eventTypes.add(entry.getKey());
                     break;
                 }
-                try {
-                    // 错误后等待一段时间再重试
-                    TimeUnit.SECONDS.sleep(5);
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
+                if (!deadLetterIfExhausted(sessionId, CompressionLane.BACKGROUND, taskKey, List.of(entry.getKey()), e, backgroundRetryDelays)) {
+                    // 失败的任务与未执行的任务一起放回集合，退避后重新调度
+                    eventTypes.add(entry.getKey());
                     break;
                 }
             }
         }
-        log.info("[MEMORY]-[{}] 消费者线程退出", sessionId);
+        // 已完成任务的结果一次保存；租约已丢失时不保存，全部放回集合由新的持有者重新执行
+        try {
+            if (!commitFenced(unitOfWork, lease, backgroundLeaseManager)) {
+                eventTypes.addAll(completed);
+            }
+        } catch (Exception e) {
+            log.error("[MEMORY]-[{}] 保存后台压缩结果失败", sessionId, e);
+            eventTypes.addAll(completed);
+            backgroundRetryDelays.merge(sessionId, retryTracker.backoffMillis(1), Math::max);
+        }
+        if (!eventTypes.isEmpty()) {
+            eventTypes.forEach(eventType -> backgroundTasks.add(sessionId, eventType));
+            if (draining) {
+                drainRequeuedBackgroundTasks.addAndGet(eventTypes.size());
+            }
+            log.info("[MEMORY]-[{}] 放回 {} 个未完成的后台压缩任务", sessionId, eventTypes.size());
+        }
+    }
+
+    /**
+     * 保存工作单元。启用租约时以租约为写入条件，租约检查与写入在存储层原子完成，
+     * 租约已丢失（包括检查之后才被其他节点取得）时放弃保存（fencing）。
+     *
+     * @return 已保存（或没有修改）时返回 true，租约丢失时返回 false
+     */
+    private boolean commitFenced(CompressionUnitOfWork unitOfWork, CompressionLease lease, CompressionLeaseManager manager) {
+        if (lease == null) {
+            unitOfWork.commit();
+            return true;
+        }
+        if (unitOfWork.isDirty() && !lease.isHeld()) {
+            log.warn("[MEMORY]-[{}] 压缩租约已丢失，放弃保存本次结果, fencingToken: {}",
+                    unitOfWork.getSessionId(), lease.getFencingToken());
+            return false;
+        }
+        if (!unitOfWork.commit(manager.fence(lease))) {
+            lease.markLost();
+            log.warn("[MEMORY]-[{}] 压缩租约已被其他节点取得，放弃保存本次结果, fencingToken: {}",
+                    unitOfWork.getSessionId(), lease.getFencingToken());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 把有待处理后台任务的会话重新登记到后台通道。
+     */
+    private void recoverBackgroundSessions() {
+        AtomicInteger recovered = new AtomicInteger();
+        try {
+            backgroundTasks.forEachPendingSession(sessionId -> {
+                backgroundDispatcher.signal(sessionId);
+                recovered.incrementAndGet();
+            });
+        } catch (Exception e) {
+            log.error("[MEMORY]-[DISPATCHER] 恢复后台待处理会话失败", e);
+        }
+        if (recovered.get() > 0) {
+            log.info("[MEMORY]-[DISPATCHER] 已重新登记 {} 个有后台任务的会话", recovered.get());
+        }
+    }
+
+    /**
+     * 把有未完成任务的会话重新登记到就绪集合。
+     *
+     * <p>节点在取出就绪信号后、处理任务前崩溃时，队列中的任务不会再被调度，这里负责补偿。
+     */
+    private void recoverPendingSessions() {
+        AtomicInteger recovered = new AtomicInteger();
+        try {
+            taskQueue.forEachPendingSession(sessionId -> {
+                dispatcher.signal(sessionId);
+                recovered.incrementAndGet();
+            });
+        } catch (Exception e) {
+            log.error("[MEMORY]-[DISPATCHER] 恢复待处理会话失败", e);
+        }
+        if (recovered.get() > 0) {
+            log.info("[MEMORY]-[DISPATCHER] 已重新登记 {} 个有待处理任务的会话", recovered.get());
+        }
+    }
+
+    /**
+     * 用就绪集合中已到期的会话数刷新准入控制水位。防抖或退避延迟登记的会话尚不能调度，不计入积压。
+     */
+    private void refreshAdmission() {
+        try {
+            admission.refresh(dispatcher.dueCount());
+        } catch (Exception e) {
+            log.error("[MEMORY]-[ADMISSION] 刷新压缩积压水位失败", e);
+        }
     }
 
     /**
      * 执行压缩策略。
      *
      * @param task 压缩任务
+     * @param lease 会话租约，未启用时为 null
+     * @return 结果已保存时返回 true，租约在执行期间丢失时返回 false
      */
-    private void executeCompressionStrategies(CompressionTask task) {
+    private boolean executeCompressionStrategies(CompressionTask task, CompressionLease lease) {
         String sessionId = task.getSessionId();
+        CompressionUnitOfWork unitOfWork = new CompressionUnitOfWork(sessionId, workingMemoryStorage, false);
+        // 1、Pin 判定（积压严重时跳过低价值轮次）
+        MessagePair currentPair = task.getCurrentPair();
+        PinMessageEvent pinEvent = null;
+        if (currentPair == null || !admission.filterPinCandidates(sessionId, List.of(currentPair)).isEmpty()) {
+            pinEvent = new PinMessageEvent(sessionId, task.getCurrentPair());
+        }
+
+        // 2、 如果有从 Tail 移出的消息对，执行当前轮次摘要
+        EvictedMessageEvent evictedEvent = null;
+        if (task.getEvictedPair() != null) {
+            evictedEvent = new EvictedMessageEvent(sessionId, task.getEvictedPair());
+        }
+        deliverStrategies(unitOfWork, pinEvent, evictedEvent);
+        log.info("[MEMORY]-[{}] 已执行压缩事件, pin: {}, evictedSummary: {}", sessionId, pinEvent != null, evictedEvent != null);
+
+        // 3、一次保存所有策略的结果
+        return commitFenced(unitOfWork, lease, leaseManager);
+    }
+
+    /**
+     * 在同一个工作单元上执行 Pin 判定与当前轮次摘要，事件为 null 时跳过。
+     *
+     * <p>开启 parallelStrategies 且两者都需要执行时，Pin 判定在策略线程池上与当前轮次摘要同时调用 LLM，
+     * 两者都完成后在当前线程上按串行执行的顺序（先 Pin、后 TCW）写入工作记忆，任一失败都不写入。
+     *
+     * @param unitOfWork   工作单元
+     * @param pinEvent     Pin 判定事件
+     * @param evictedEvent 当前轮次摘要事件
+     */
+    private void deliverStrategies(CompressionUnitOfWork unitOfWork, PinMessageEvent pinEvent, EvictedMessageEvent evictedEvent) {
+        if (pinEvent != null) {
+            pinEvent.setUnitOfWork(unitOfWork);
+        }
+        if (evictedEvent != null) {
+            evictedEvent.setUnitOfWork(unitOfWork);
+        }
+        if (strategyExecutor == null || pinEvent == null || evictedEvent == null) {
+            if (pinEvent != null) {
+                eventPublisher.deliver(pinEvent);
+            }
+            if (evictedEvent != null) {
+                eventPublisher.deliver(evictedEvent);
+            }
+            return;
+        }
+
+        // 工作单元不是线程安全的，先在当前线程加载，两个策略只读取同一个对象
+        unitOfWork.getWorkingMemory();
+        CompletableFuture<Runnable> pinJudgment = CompletableFuture.supplyAsync(
+                () -> eventPublisher.prepare(pinEvent), strategyExecutor);
+        Runnable applySummary = null;
+        try {
+            applySummary = eventPublisher.prepare(evictedEvent);
+        } finally {
+            if (applySummary == null) {
+                // 当前轮次摘要失败时整个任务会重试，等待 Pin 判定结束后丢弃其结果；
+                // CompletableFuture 无法中断正在执行的 LLM 调用，等待可避免它与重试并发执行
+                try {
+                    pinJudgment.join();
+                } catch (Exception e) {
+                    log.warn("[MEMORY]-[{}] 当前轮次摘要失败，丢弃并行的 Pin 判定结果", unitOfWork.getSessionId(), e);
+                }
+            }
+        }
+        Runnable applyPin;
         try {
-            // 1、Pin 判定、同步执行
-            PinMessageEvent pinEvent = new PinMessageEvent(sessionId, task.getCurrentPair());
-            eventPublisher.publishEvent(pinEvent);
-            log.info("[MEMORY]-[{}] 已发布 PIN 压缩事件", sessionId);
+            applyPin = pinJudgment.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+        applyPin.run();
+        applySummary.run();
+    }
 
-            // 2、 如果有从 Tail 移出的消息对，执行当前轮次摘要
-            if (task.getEvictedPair() != null) {
-                EvictedMessageEvent evictedEvent = new EvictedMessageEvent(sessionId, task.getEvictedPair());
-                eventPublisher.publishEvent(evictedEvent);
-                log.info("[MEMORY]-[{}] 已发布 EVICTED_SUMMARY 压缩事件", sessionId);
+    /**
+     * 分页查看死信队列。
+     *
+     * @param offset 起始位置
+     * @param limit  条数
+     * @return 死信列表
+     */
+    public List<DeadLetter> getDeadLetters(int offset, int limit) {
+        return deadLetterQueue.list(offset, limit);
+    }
+
+    /**
+     * 死信队列中的任务数。
+     *
+     * @return 任务数
+     */
+    public long getDeadLetterCount() {
+        return deadLetterQueue.size();
+    }
+
+    /**
+     * 删除死信。
+     *
+     * @param id 死信标识符
+     * @return 被删除的死信，不存在时返回 null
+     */
+    public DeadLetter discardDeadLetter(String id) {
+        return deadLetterQueue.remove(id);
+    }
+
+    /**
+     * 重放死信：快速通道任务重新提交到会话队列尾部，后台任务重新登记到后台通道（未启用通道时直接执行）。
+     *
+     * @param id 死信标识符
+     * @return 被重放的死信，不存在时返回 null
+     */
+    public DeadLetter replayDeadLetter(String id) {
+        DeadLetter deadLetter = deadLetterQueue.remove(id);
+        if (deadLetter == null) {
+            return null;
+        }
+        String sessionId = deadLetter.getSessionId();
+        if (deadLetter.getLane() == CompressionLane.BACKGROUND) {
+            Function<String, MemoryEvent> factory = BACKGROUND_EVENTS.get(deadLetter.getPayload());
+            if (factory != null && backgroundDispatcher != null) {
+                backgroundTasks.add(sessionId, deadLetter.getPayload());
+                backgroundDispatcher.signal(sessionId);
+            } else if (factory != null) {
+                eventPublisher.dispatch(factory.apply(sessionId));
             }
-        } catch (Exception e) {
-            log.error("[MEMORY]-[{}] 压缩策略执行失败", sessionId, e);
+        } else {
+            taskQueue.push(sessionId, deadLetter.getPayload());
+            dispatcher.signal(sessionId);
         }
+        log.info("[MEMORY]-[{}] 已重放死信, id: {}, lane: {}", sessionId, id, deadLetter.getLane());
+        return deadLetter;
+    }
+
+    /**
+     * 各租户的压缩调度指标（本节点），未启用租户公平调度时返回空列表。
+     *
+     * @return 租户指标列表
+     */
+    public List<TenantStats> getTenantStats() {
+        return dispatcher.tenantStats();
+    }
+
+    /**
+     * 各压缩通道的调度指标，未启用优先级通道时只有快速通道。
+     *
+     * @return 通道指标列表
+     */
+    public List<LaneStats> getLaneStats() {
+        List<LaneStats> stats = new ArrayList<>();
+        stats.add(dispatcher.laneStats());
+        if (backgroundDispatcher != null) {
+            stats.add(backgroundDispatcher.laneStats());
+        }
+        return stats;
+    }
+
+    /**
+     * 准入控制状态（积压等级、积压量及各降级动作的累计次数）。
+     *
+     * @return 状态
+     */
+    public Map<String, Object> getAdmissionStats() {
+        return admission.stats();
+    }
+
+    /**
+     * 停机排空：停止从就绪集合取出会话，正在处理的会话在截止时间（compression.drain.timeoutSeconds）内
+     * 完成当前任务，剩余任务放回持久队列，由其他节点继续处理；到达截止时间后中断工作线程，被中断的任务同样放回队列。
+     *
+     * <p>排空期间 {@link #submitTask} 照常把任务写入 Redis 队列并登记会话，由其他节点处理。
+     * 可以在停机前单独调用（例如 preStop），之后的 {@link #shutdown()} 不再重复排空。
+     *
+     * @return 各通道的排空统计
+     */
+    public synchronized List<DrainStats> drain() {
+        if (drainStats != null) {
+            return drainStats;
+        }
+        draining = true;
+        recoveryScheduler.shutdownNow();
+        long deadline = System.currentTimeMillis()
+                + TimeUnit.SECONDS.toMillis(Math.max(0, compressionConfig.getDrain().getTimeoutSeconds()));
+        log.info("[MEMORY]-[DISPATCHER] 开始排空压缩任务, timeoutSeconds: {}", compressionConfig.getDrain().getTimeoutSeconds());
+        // 两个通道先同时停止取出会话，再依次等待正在处理的会话
+        int backgroundResignalled = backgroundDispatcher != null ? backgroundDispatcher.stopAccepting() : 0;
+        List<DrainStats> stats = new ArrayList<>();
+        DrainStats fast = dispatcher.shutdown(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        fast.setRequeuedTasks(drainRequeuedTasks.get());
+        stats.add(fast);
+        if (backgroundDispatcher != null) {
+            DrainStats background = backgroundDispatcher.shutdown(
+                    Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            background.setResignalledSessions(background.getResignalledSessions() + backgroundResignalled);
+            background.setRequeuedTasks(drainRequeuedBackgroundTasks.get());
+            stats.add(background);
+        }
+        stats.forEach(lane -> log.info("[MEMORY]-[DISPATCHER] 排空完成: {}", lane));
+        drainStats = stats;
+        return stats;
     }
 
     /**
      * 关闭压缩执行器。
      */
     public void shutdown() {
-        shutdown.set(true);
-        // 停止所有消费者
-        activeConsumers.values().forEach(running -> running.set(false));
         Map<String, EventHandler> handlers = eventPublisher.getHandlers();
-        // 清空 正在运行的消费者记录
-        handlers.entrySet().forEach((entry) -> eventPublisher.unregister(entry.getKey(), entry.getValue()));
-
-        activeConsumers.clear();
-        // 关闭线程池
-        consumerExecutor.shutdown();
-        try {
-            if (!consumerExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
-                consumerExecutor.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            consumerExecutor.shutdownNow();
-            Thread.currentThread().interrupt();
+        drain();
+        if (backgroundDispatcher != null) {
+            eventPublisher.setBackgroundSink(null);
+        }
+        if (strategyExecutor != null) {
+            strategyExecutor.shutdownNow();
         }
+        // 注销事件处理器
+        handlers.entrySet().forEach((entry) -> eventPublisher.unregister(entry.getKey(), entry.getValue()));
 
         log.info("WorkingMemoryCompression executor shutdown");
     }
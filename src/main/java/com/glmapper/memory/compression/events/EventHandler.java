@@ -15,6 +15,8 @@
  */
 package com.glmapper.memory.compression.events;
 
+import com.glmapper.memory.compression.CompressionUnitOfWork;
+import com.glmapper.memory.storage.WorkingMemoryStorage;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -35,10 +37,54 @@ public abstract class EventHandler<T extends MemoryEvent> implements Initializin
      */
     public abstract void onEvent(T event);
 
+    /**
+     * 两阶段处理的第一阶段：只读取工作记忆并完成耗时的计算（LLM 调用），返回把结果写入工作记忆的第二阶段。
+     *
+     * <p>并行执行独立策略时，各处理器的第一阶段同时执行，第二阶段在调用线程上按固定顺序执行。
+     * 默认不拆分，第二阶段直接调用 {@link #onEvent}。
+     *
+     * @param event the memory event
+     * @return 写入结果的第二阶段
+     */
+    public Runnable prepare(T event) {
+        return () -> onEvent(event);
+    }
+
     @Override
     public void afterPropertiesSet() {
         eventPublisher.register(getEventType(), this);
     }
 
     public abstract String getEventType();
+
+    /**
+     * 事件所属的工作单元；事件未携带工作单元时新建一个独立的工作单元，由 {@link #commitStandalone} 保存。
+     */
+    protected CompressionUnitOfWork unitOfWork(MemoryEvent event, WorkingMemoryStorage storage) {
+        if (event.getUnitOfWork() == null) {
+            event.setUnitOfWork(new CompressionUnitOfWork(event.getSessionId(), storage, true));
+        }
+        return event.getUnitOfWork();
+    }
+
+    /**
+     * 保存独立工作单元的修改；共享的工作单元由发起压缩任务的一方统一保存。
+     */
+    protected void commitStandalone(MemoryEvent event) {
+        CompressionUnitOfWork unitOfWork = event.getUnitOfWork();
+        if (unitOfWork != null && unitOfWork.isStandalone()) {
+            unitOfWork.commit();
+        }
+    }
+
+    /**
+     * 发布后续事件：共享的工作单元传递给后续事件；独立工作单元在此之前已经保存，后续事件自行加载。
+     */
+    protected void publishFollowUp(MemoryEvent parent, MemoryEvent followUp) {
+        CompressionUnitOfWork unitOfWork = parent.getUnitOfWork();
+        if (unitOfWork != null && !unitOfWork.isStandalone()) {
+            followUp.setUnitOfWork(unitOfWork);
+        }
+        eventPublisher.publishEvent(followUp);
+    }
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.compression.events;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Asynchronous observer of memory events.
+ *
+ * <p>Unlike an {@link EventHandler}, which performs the compression work for its event type on the
+ * compression thread, any number of subscribers may observe the same event type. A subscriber is notified
+ * after the event's result has been committed, on its own delivery thread, in publish order; see
+ * {@link MemoryEventPublisher#subscribe(EventSubscriber)} for buffering and backpressure.
+ *
+ * <p>Subscribers must treat events as read-only and must not use {@link MemoryEvent#getUnitOfWork()}:
+ * the unit of work belongs to the compression thread.
+ */
+public abstract class EventSubscriber<T extends MemoryEvent> implements InitializingBean, DisposableBean {
+
+    @Autowired
+    protected MemoryEventPublisher eventPublisher;
+
+    /**
+     * Called on the subscriber's delivery thread.
+     *
+     * @param event the memory event
+     */
+    public abstract void onEvent(T event);
+
+    /**
+     * The observed event type (event class name); {@code MemoryEvent.class.getName()} observes all events.
+     */
+    public abstract String getEventType();
+
+    /**
+     * Name used for the delivery thread and in the subscriber stats.
+     */
+    public String getSubscriberName() {
+        return getClass().getSimpleName();
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        eventPublisher.subscribe(this);
+    }
+
+    @Override
+    public void destroy() {
+        eventPublisher.unsubscribe(this);
+    }
+}
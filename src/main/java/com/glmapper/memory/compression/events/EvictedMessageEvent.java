@@ -2,6 +2,8 @@ package com.glmapper.memory.compression.events;
 
 import com.glmapper.memory.model.MessagePair;
 
+import java.util.List;
+
 /**
  * @Classname EvictedMessageEvent
  * @Description TODO
@@ -12,10 +14,24 @@ public class EvictedMessageEvent extends MemoryEvent {
 
     private String conversationId;
     private MessagePair evictedMessagePair;
+    private List<MessagePair> evictedMessagePairs;
 
     public EvictedMessageEvent(String conversationId, MessagePair evictedMessagePair) {
         super(conversationId);
         this.evictedMessagePair = evictedMessagePair;
+        this.evictedMessagePairs = evictedMessagePair != null ? List.of(evictedMessagePair) : List.of();
+    }
+
+    /**
+     * 合并多个移出消息对的事件（合并模式下使用），一起摘要。
+     *
+     * @param conversationId      会话标识符
+     * @param evictedMessagePairs 按时间顺序排列的移出消息对，不能为空
+     */
+    public EvictedMessageEvent(String conversationId, List<MessagePair> evictedMessagePairs) {
+        super(conversationId);
+        this.evictedMessagePairs = List.copyOf(evictedMessagePairs);
+        this.evictedMessagePair = evictedMessagePairs.get(evictedMessagePairs.size() - 1);
     }
 
     public String getConversationId() {
@@ -32,5 +48,10 @@ public class EvictedMessageEvent extends MemoryEvent {
 
     public void setEvictedMessagePair(MessagePair evictedMessagePair) {
         this.evictedMessagePair = evictedMessagePair;
+        this.evictedMessagePairs = evictedMessagePair != null ? List.of(evictedMessagePair) : List.of();
+    }
+
+    public List<MessagePair> getEvictedMessagePairs() {
+        return evictedMessagePairs;
     }
 }
@@ -1,13 +1,29 @@
 package com.glmapper.memory.compression.events;
 
+import com.glmapper.memory.compression.CompressionAdmission;
+import com.glmapper.memory.compression.CompressionException;
+import com.glmapper.memory.compression.CompressionLoadLevel;
 import com.glmapper.memory.compression.CompressionResult;
+import com.glmapper.memory.compression.CompressionUnitOfWork;
 import com.glmapper.memory.compression.CurrentRoundCompressionStrategy;
+import com.glmapper.memory.compression.HistorySummarizationStrategy;
+import com.glmapper.memory.compression.SpeculativeSummarizer;
+import com.glmapper.memory.compression.SummaryTreeStore;
+import com.glmapper.memory.compression.SummaryTreeStrategy;
+import com.glmapper.memory.compression.ToolCallCompressionStrategy;
+import com.glmapper.memory.model.MessagePair;
+import com.glmapper.memory.model.Msg;
+import com.glmapper.memory.model.SummaryNode;
 import com.glmapper.memory.model.WorkingMemory;
 import com.glmapper.memory.storage.WorkingMemoryStorage;
+import com.glmapper.memory.util.MsgUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * 当前轮次摘要压缩处理器。
  *
@@ -24,40 +40,162 @@ public class EvictedMessageEventHandler extends EventHandler<EvictedMessageEvent
     @Autowired(required = false)
     private CurrentRoundCompressionStrategy currentRoundStrategy;
 
+    @Autowired(required = false)
+    private CompressionAdmission admission;
+
+    @Autowired(required = false)
+    private HistorySummarizationStrategy historySummarizationStrategy;
+
+    @Autowired(required = false)
+    private SpeculativeSummarizer speculativeSummarizer;
+
+    @Autowired(required = false)
+    private ToolCallCompressionStrategy toolCallStrategy;
+
+    @Autowired(required = false)
+    private SummaryTreeStrategy summaryTreeStrategy;
+
+    @Autowired(required = false)
+    private SummaryTreeStore summaryTreeStore;
+
     @Override
     public void onEvent(EvictedMessageEvent event) {
+        prepare(event).run();
+    }
+
+    @Override
+    public Runnable prepare(EvictedMessageEvent event) {
         String conversationId = event.getSessionId();
         if (event.getEvictedMessagePair() == null) {
             log.info("[MEMORY]-[{}] 没有 evictedPair，跳过", conversationId);
-            return;
+            return () -> {
+            };
         }
-        WorkingMemory workingMemory = workingMemoryStorage.load(conversationId);
+        List<MessagePair> evictedPairs = compactToolCalls(conversationId, event.getEvictedMessagePairs());
+        CompressionUnitOfWork unitOfWork = unitOfWork(event, workingMemoryStorage);
+        WorkingMemory workingMemory = unitOfWork.getWorkingMemory();
+        CompressionResult result = null;
         try {
-            if (currentRoundStrategy != null) {
-                CompressionResult result = currentRoundStrategy.compress(conversationId, workingMemory, event.getEvictedMessagePair());
-                if (result.isCompressed() && result.getSummaryMsg() != null) {
-                    workingMemory.addToTimingContextWindow(result.getSummaryMsg());
-                    log.info("[MEMORY]-[{}] 当前轮次摘要已添加到 TCW", conversationId);
+            Msg speculated = null;
+            if (speculativeSummarizer != null) {
+                // 单轮移出时优先使用预生成的摘要；合并摘要不使用单轮摘要。
+                // 缓存在保存成功后才删除，任务放弃保存或重试时仍可使用
+                if (evictedPairs.size() == 1) {
+                    speculated = speculativeSummarizer.peek(conversationId, event.getEvictedMessagePair());
+                }
+                List<MessagePair> speculatedPairs = event.getEvictedMessagePairs();
+                unitOfWork.afterCommit(() -> speculativeSummarizer.discard(conversationId, speculatedPairs));
+            }
+            if (speculated != null) {
+                result = CompressionResult.compressedWithSummary(speculated, 1);
+                log.info("[MEMORY]-[{}] 使用预生成的当前轮次摘要", conversationId);
+            } else if (currentRoundStrategy != null) {
+                if (admission != null && admission.truncateInsteadOfSummarize(conversationId, evictedPairs.size())) {
+                    result = currentRoundStrategy.truncateBatch(conversationId, evictedPairs, admission.getTruncateChars());
                 } else {
-                    workingMemory.addPairToTimingContextWindow(event.getEvictedMessagePair());
-                    log.info("[MEMORY]-[{}] 直接添加原文到 TCW", conversationId);
+                    result = evictedPairs.size() > 1
+                            ? currentRoundStrategy.compressBatch(conversationId, workingMemory, evictedPairs)
+                            : currentRoundStrategy.compress(conversationId, workingMemory, evictedPairs.get(0));
                 }
-            } else {
-                workingMemory.addPairToTimingContextWindow(event.getEvictedMessagePair());
-                log.debug("[MEMORY]-[{}] 未配置策略，直接添加原文", conversationId);
             }
+        } catch (Exception e) {
+            // 任务会整体重试，TCW 未变化，不触发历史摘要
+            log.error("[MEMORY]-[{}] 当前轮次摘要压缩失败", conversationId, e);
+            throw new CompressionException("当前轮次摘要压缩失败", e);
+        }
+        CompressionResult summary = result;
+        return () -> applySummary(event, unitOfWork, evictedPairs, summary);
+    }
+
+    /**
+     * 先对移出的轮次做确定性的工具调用压缩，压缩后的轮次可能不再需要 LLM 摘要；积压时不升级为 LLM 概括。
+     */
+    private List<MessagePair> compactToolCalls(String conversationId, List<MessagePair> evictedPairs) {
+        if (toolCallStrategy == null) {
+            return evictedPairs;
+        }
+        boolean allowEscalation = admission == null || admission.getLevel() == CompressionLoadLevel.NORMAL;
+        return toolCallStrategy.compactAll(conversationId, evictedPairs, allowEscalation);
+    }
 
-            workingMemoryStorage.save(workingMemory);
-            log.info("[MEMORY]-[{}] 当前轮次摘要压缩完成并已保存", conversationId);
+    /**
+     * 把当前轮次摘要（或原文）写入 TCW，并触发历史摘要。
+     */
+    private void applySummary(EvictedMessageEvent event, CompressionUnitOfWork unitOfWork,
+                              List<MessagePair> evictedPairs, CompressionResult result) {
+        String conversationId = event.getSessionId();
+        WorkingMemory workingMemory = unitOfWork.getWorkingMemory();
+        try {
+            if (result == null) {
+                evictedPairs.forEach(workingMemory::addPairToTimingContextWindow);
+                log.debug("[MEMORY]-[{}] 未配置策略，直接添加原文", conversationId);
+            } else if (result.isCompressed() && result.getSummaryMsg() != null) {
+                workingMemory.addToTimingContextWindow(result.getSummaryMsg());
+                log.info("[MEMORY]-[{}] 当前轮次摘要已添加到 TCW, pairs: {}", conversationId, evictedPairs.size());
+            } else {
+                evictedPairs.forEach(workingMemory::addPairToTimingContextWindow);
+                log.info("[MEMORY]-[{}] 直接添加原文到 TCW, pairs: {}", conversationId, evictedPairs.size());
+            }
 
+            unitOfWork.timingContextWindowChanged();
+            addSummaryTreeLeaves(conversationId, unitOfWork, evictedPairs, result);
+            commitStandalone(event);
+            log.info("[MEMORY]-[{}] 当前轮次摘要压缩完成", conversationId);
         } catch (Exception e) {
             log.error("[MEMORY]-[{}] 当前轮次摘要压缩失败", conversationId, e);
-        } finally {
-            // 这里必须触发去进行历史摘要压缩
-            HistorySummaryEvent historyEvent = new HistorySummaryEvent(conversationId);
-            eventPublisher.publishEvent(historyEvent);
-            log.debug("[MEMORY]-[{}] 已发布 HISTORY_SUMMARY 事件", conversationId);
+            throw new CompressionException("当前轮次摘要压缩失败", e);
+        }
+        // 只有移出的轮次已进入 TCW 后才触发历史摘要压缩；失败时任务重试，重试成功后再触发
+        publishHistorySummary(event, workingMemory);
+    }
+
+    /**
+     * 为移出的轮次生成摘要树的第 0 层节点，压缩结果保存成功后写入。
+     */
+    private void addSummaryTreeLeaves(String conversationId, CompressionUnitOfWork unitOfWork,
+                                      List<MessagePair> evictedPairs, CompressionResult result) {
+        if (summaryTreeStrategy == null || summaryTreeStore == null) {
+            return;
+        }
+        List<SummaryNode> leaves = new ArrayList<>();
+        if (result != null && result.isCompressed() && result.getSummaryMsg() != null) {
+            // 一条摘要覆盖整批轮次
+            Long from = evictedPairs.get(0).getSequence();
+            Long to = evictedPairs.get(evictedPairs.size() - 1).getSequence();
+            if (from != null && to != null) {
+                leaves.add(leaf(from, to, result.getSummaryMsg().getTextContent()));
+            }
+        } else {
+            for (MessagePair pair : evictedPairs) {
+                if (pair.getSequence() != null) {
+                    leaves.add(leaf(pair.getSequence(), pair.getSequence(), MsgUtils.extractPlainText(pair.getAllMessages())));
+                }
+            }
+        }
+        if (!leaves.isEmpty()) {
+            unitOfWork.afterCommit(() -> leaves.forEach(leaf -> summaryTreeStore.add(conversationId, leaf)));
+        }
+    }
+
+    private SummaryNode leaf(long fromSequence, long toSequence, String content) {
+        return SummaryNode.builder()
+                .nodeId(SummaryNode.idOf(0, fromSequence, toSequence))
+                .level(0)
+                .fromSequence(fromSequence)
+                .toSequence(toSequence)
+                .content(content)
+                .createdAt(System.currentTimeMillis())
+                .build();
+    }
+
+    private void publishHistorySummary(EvictedMessageEvent event, WorkingMemory workingMemory) {
+        HistorySummaryEvent historyEvent = new HistorySummaryEvent(event.getSessionId());
+        if (historySummarizationStrategy != null) {
+            // 后台防抖时据此判断是否需要立即执行
+            historyEvent.setTokenPressure(historySummarizationStrategy.pressure(workingMemory));
         }
+        publishFollowUp(event, historyEvent);
+        log.debug("[MEMORY]-[{}] 已发布 HISTORY_SUMMARY 事件", event.getSessionId());
     }
 
     @Override
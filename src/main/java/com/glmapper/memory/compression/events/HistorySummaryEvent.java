@@ -1,5 +1,7 @@
 package com.glmapper.memory.compression.events;
 
+import com.glmapper.memory.compression.CompressionLane;
+
 /**
  * @Classname HistorySummaryEvent
  * @Description 历史摘要压缩事件
@@ -10,10 +12,20 @@ public class HistorySummaryEvent extends MemoryEvent {
 
     private String conversationId;
 
-    protected HistorySummaryEvent(String sessionId) {
+    /**
+     * 触发时 timingContextWindow 的压力（token 数与阈值之比、条数与上限之比中的较大者），未知时为 0
+     */
+    private double tokenPressure;
+
+    public HistorySummaryEvent(String sessionId) {
         super(sessionId);
     }
 
+    @Override
+    public CompressionLane getLane() {
+        return CompressionLane.BACKGROUND;
+    }
+
     public String getConversationId() {
         return conversationId;
     }
@@ -21,4 +33,12 @@ public class HistorySummaryEvent extends MemoryEvent {
     public void setConversationId(String conversationId) {
         this.conversationId = conversationId;
     }
+
+    public double getTokenPressure() {
+        return tokenPressure;
+    }
+
+    public void setTokenPressure(double tokenPressure) {
+        this.tokenPressure = tokenPressure;
+    }
 }
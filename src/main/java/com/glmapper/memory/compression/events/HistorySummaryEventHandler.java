@@ -1,13 +1,20 @@
 package com.glmapper.memory.compression.events;
 
+import com.glmapper.memory.compression.CompressionException;
 import com.glmapper.memory.compression.CompressionResult;
+import com.glmapper.memory.compression.CompressionUnitOfWork;
 import com.glmapper.memory.compression.HistorySummarizationStrategy;
+import com.glmapper.memory.compression.SummaryTreeStore;
+import com.glmapper.memory.compression.SummaryTreeStrategy;
+import com.glmapper.memory.model.SummaryNode;
 import com.glmapper.memory.model.WorkingMemory;
 import com.glmapper.memory.storage.WorkingMemoryStorage;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 /**
  * 历史摘要压缩处理器。
  *
@@ -24,28 +31,69 @@ public class HistorySummaryEventHandler extends EventHandler<HistorySummaryEvent
     @Autowired(required = false)
     private HistorySummarizationStrategy historySummarizationStrategy;
 
+    @Autowired(required = false)
+    private SummaryTreeStrategy summaryTreeStrategy;
+
+    @Autowired(required = false)
+    private SummaryTreeStore summaryTreeStore;
+
     @Override
     public void onEvent(HistorySummaryEvent event) {
         String conversationId = event.getSessionId();
         if (historySummarizationStrategy == null) {
             log.info("[MEMORY]-[{}] 未配置历史摘要策略", conversationId);
+            rollUpSummaryTree(conversationId);
             return;
         }
 
         try {
             // 获取最新的工作记忆状态
-            WorkingMemory workingMemory = workingMemoryStorage.load(conversationId);
+            CompressionUnitOfWork unitOfWork = unitOfWork(event, workingMemoryStorage);
+            WorkingMemory workingMemory = unitOfWork.getWorkingMemory();
             CompressionResult result = historySummarizationStrategy.compress(conversationId, workingMemory, null);
             if (result.isCompressed() && result.getSummaryMsg() != null) {
                 workingMemory.clearTimingContextWindow();
                 workingMemory.addToTimingContextWindow(result.getSummaryMsg());
-                workingMemoryStorage.save(workingMemory);
+                unitOfWork.timingContextWindowChanged();
+                commitStandalone(event);
                 log.info("[MEMORY]-[{}] 历史摘要已替换 TCW", conversationId);
             } else {
                 log.info("[MEMORY]-[{}] 历史摘要不需要压缩", conversationId);
             }
         } catch (Exception e) {
             log.error("[MEMORY]-[{}] 历史摘要压缩失败", conversationId, e);
+            throw new CompressionException("历史摘要压缩失败", e);
+        }
+        rollUpSummaryTree(conversationId);
+    }
+
+    /**
+     * 把摘要树各层凑满一组的节点合并到上一层，最新的不足一组的节点保留到下次。
+     * 摘要树是附属数据，失败只记录日志，下次历史摘要时重试。
+     */
+    private void rollUpSummaryTree(String conversationId) {
+        if (summaryTreeStrategy == null || summaryTreeStore == null) {
+            return;
+        }
+        int groupSize = summaryTreeStrategy.getGroupSize();
+        int topLevel = summaryTreeStrategy.getMaxLevels() - 1;
+        try {
+            for (int level = 0; level < topLevel; level++) {
+                List<SummaryNode> open = summaryTreeStore.openNodes(conversationId, level);
+                for (int start = 0; start + groupSize <= open.size(); start += groupSize) {
+                    List<SummaryNode> group = open.subList(start, start + groupSize);
+                    summaryTreeStore.promote(conversationId, summaryTreeStrategy.merge(conversationId, group), group);
+                }
+            }
+            // 最高层没有上一层，未合并节点超过一组时把最早的一组在本层内合并，概览的节点数保持有界
+            List<SummaryNode> top = summaryTreeStore.openNodes(conversationId, topLevel);
+            while (top.size() > groupSize) {
+                List<SummaryNode> group = top.subList(0, groupSize);
+                summaryTreeStore.promote(conversationId, summaryTreeStrategy.merge(conversationId, group, topLevel), group);
+                top = summaryTreeStore.openNodes(conversationId, topLevel);
+            }
+        } catch (Exception e) {
+            log.warn("[MEMORY]-[{}] 摘要树合并失败，下次历史摘要时重试", conversationId, e);
         }
     }
 
@@ -15,6 +15,9 @@
  */
 package com.glmapper.memory.compression.events;
 
+import com.glmapper.memory.compression.CompressionLane;
+import com.glmapper.memory.compression.CompressionUnitOfWork;
+
 /**
  * Base class for memory-related events.
  */
@@ -22,6 +25,7 @@ public abstract class MemoryEvent {
 
     private final String sessionId;
     private final long timestamp;
+    private CompressionUnitOfWork unitOfWork;
 
     protected MemoryEvent(String sessionId) {
         this.sessionId = sessionId;
@@ -35,4 +39,22 @@ public abstract class MemoryEvent {
     public long getTimestamp() {
         return timestamp;
     }
+
+    /**
+     * 事件所属的压缩工作单元，由压缩任务发起的事件共享同一个工作单元；其他来源的事件为 null。
+     */
+    public CompressionUnitOfWork getUnitOfWork() {
+        return unitOfWork;
+    }
+
+    public void setUnitOfWork(CompressionUnitOfWork unitOfWork) {
+        this.unitOfWork = unitOfWork;
+    }
+
+    /**
+     * 事件所属的压缩通道，启用优先级通道时后台通道的事件由后台调度器异步处理。
+     */
+    public CompressionLane getLane() {
+        return CompressionLane.FAST;
+    }
 }
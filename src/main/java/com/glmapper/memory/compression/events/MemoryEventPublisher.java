@@ -15,18 +15,45 @@
  */
 package com.glmapper.memory.compression.events;
 
+import com.glmapper.memory.compression.CompressionLane;
+import com.glmapper.memory.compression.CompressionUnitOfWork;
+import com.glmapper.memory.config.ArtisanMemoryProperties;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /**
  * Publisher for memory-related events.
+ *
+ * <p>Each event type has at most one {@link EventHandler}, which does the compression work on the calling
+ * thread. Any number of {@link EventSubscriber}s may observe an event type; they are notified asynchronously
+ * once the handler's result has been persisted, each through its own bounded buffer and delivery thread, so
+ * a slow subscriber neither reorders its own events nor adds latency to compression. Events handled within
+ * a compression task are announced only after the task's unit of work commits, so a discarded or retried
+ * task is never observed.
  */
 @Slf4j
 public class MemoryEventPublisher {
 
+    private static final String ALL_EVENTS = MemoryEvent.class.getName();
+
     private final Map<String, EventHandler> handlerMap = new ConcurrentHashMap<>();
+    private final Map<String, List<SubscriberChannel>> subscriptions = new ConcurrentHashMap<>();
+    private final ArtisanMemoryProperties.EventBus eventBusConfig;
+    private volatile Consumer<MemoryEvent> backgroundSink;
+
+    public MemoryEventPublisher() {
+        this(new ArtisanMemoryProperties.EventBus());
+    }
+
+    public MemoryEventPublisher(ArtisanMemoryProperties.EventBus eventBusConfig) {
+        this.eventBusConfig = eventBusConfig;
+    }
 
     /**
      * Registers a listener for memory events.
@@ -47,19 +74,143 @@ public class MemoryEventPublisher {
     }
 
     /**
-     * Publishes an event to the registered handler.
+     * Adds an asynchronous subscriber for its event type, with a dedicated buffer and delivery thread.
+     */
+    public void subscribe(EventSubscriber<? extends MemoryEvent> subscriber) {
+        subscriptions.computeIfAbsent(subscriber.getEventType(), type -> new CopyOnWriteArrayList<>())
+                .add(new SubscriberChannel(subscriber, eventBusConfig));
+        log.info("[MEMORY]-[EVENT] 已注册订阅者 {}, eventType: {}", subscriber.getSubscriberName(), subscriber.getEventType());
+    }
+
+    /**
+     * Removes a subscriber, delivering the events already buffered for it first.
+     */
+    public void unsubscribe(EventSubscriber<? extends MemoryEvent> subscriber) {
+        List<SubscriberChannel> channels = subscriptions.get(subscriber.getEventType());
+        if (channels == null) {
+            return;
+        }
+        for (SubscriberChannel channel : channels) {
+            if (channel.getSubscriber() == subscriber) {
+                channels.remove(channel);
+                channel.close(eventBusConfig.getShutdownTimeoutMillis());
+            }
+        }
+    }
+
+    /**
+     * Delivery metrics of all subscribers.
+     */
+    public List<SubscriberStats> getSubscriberStats() {
+        List<SubscriberStats> stats = new ArrayList<>();
+        subscriptions.values().forEach(channels -> channels.forEach(channel -> stats.add(channel.stats())));
+        return stats;
+    }
+
+    /**
+     * Stops all subscribers, giving each the configured shutdown timeout to drain its buffer.
+     */
+    public void shutdown() {
+        List<SubscriberChannel> channels = new ArrayList<>();
+        subscriptions.values().forEach(channels::addAll);
+        subscriptions.clear();
+        channels.forEach(channel -> channel.close(eventBusConfig.getShutdownTimeoutMillis()));
+    }
+
+    /**
+     * Routes events of the {@link CompressionLane#BACKGROUND} lane to the given sink instead of
+     * handling them inline; {@code null} restores inline handling.
+     */
+    public void setBackgroundSink(Consumer<MemoryEvent> backgroundSink) {
+        this.backgroundSink = backgroundSink;
+    }
+
+    /**
+     * Publishes an event: background-lane events go to the background sink when one is set,
+     * everything else is handled inline.
      */
     public void publishEvent(MemoryEvent event) {
+        Consumer<MemoryEvent> sink = backgroundSink;
+        if (sink != null && event.getLane() == CompressionLane.BACKGROUND) {
+            try {
+                sink.accept(event);
+                return;
+            } catch (Exception e) {
+                log.error("Error scheduling background event, handling inline: {}", event.getClass().getName(), e);
+            }
+        }
+        dispatch(event);
+    }
+
+    /**
+     * Delivers an event to its registered handler on the calling thread, then notifies subscribers;
+     * handler failures are logged and not propagated.
+     */
+    public void dispatch(MemoryEvent event) {
         String eventType = event.getClass().getName();
         EventHandler handler = handlerMap.get(eventType);
-        if (handler == null) {
+        try {
+            if (handler != null) {
+                handler.onEvent(event);
+            }
+        } catch (Exception e) {
+            log.error("Error notifying handler of event: {}", eventType, e);
             return;
         }
+        notifyAfterCommit(event);
+    }
 
-        try {
+    /**
+     * Delivers an event to its registered handler on the calling thread and propagates handler
+     * failures, so the caller can retry the event. Subscribers are notified only once the result is committed.
+     */
+    public void deliver(MemoryEvent event) {
+        EventHandler handler = handlerMap.get(event.getClass().getName());
+        if (handler != null) {
             handler.onEvent(event);
-        } catch (Exception e) {
-            log.error("Error notifying handler of event: {}", eventType, e);
+        }
+        notifyAfterCommit(event);
+    }
+
+    /**
+     * Runs the read-only first phase of the registered handler on the calling thread and returns the
+     * step that applies its result (see {@link EventHandler#prepare}); failures propagate like
+     * {@link #deliver}.
+     */
+    public Runnable prepare(MemoryEvent event) {
+        EventHandler handler = handlerMap.get(event.getClass().getName());
+        Runnable apply = handler == null ? () -> {
+        } : handler.prepare(event);
+        return () -> {
+            apply.run();
+            notifyAfterCommit(event);
+        };
+    }
+
+    /**
+     * Notifies subscribers once the event's result is persisted: immediately for standalone units of work,
+     * which the handler has already committed, otherwise after the task's unit of work commits.
+     */
+    private void notifyAfterCommit(MemoryEvent event) {
+        CompressionUnitOfWork unitOfWork = event.getUnitOfWork();
+        if (unitOfWork == null || unitOfWork.isStandalone()) {
+            notifySubscribers(event);
+        } else {
+            unitOfWork.afterCommit(() -> notifySubscribers(event));
+        }
+    }
+
+    private void notifySubscribers(MemoryEvent event) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        offer(subscriptions.get(event.getClass().getName()), event);
+        offer(subscriptions.get(ALL_EVENTS), event);
+    }
+
+    private void offer(List<SubscriberChannel> channels, MemoryEvent event) {
+        if (channels != null) {
+            channels.forEach(channel -> channel.offer(event));
         }
     }
 }
@@ -15,6 +15,7 @@
  */
 package com.glmapper.memory.compression.events;
 
+import com.glmapper.memory.compression.CompressionLane;
 import lombok.Getter;
 
 /**
@@ -31,4 +32,9 @@ public class PinAggregationEvent extends MemoryEvent {
     public PinAggregationEvent(String sessionId) {
         super(sessionId);
     }
+
+    @Override
+    public CompressionLane getLane() {
+        return CompressionLane.BACKGROUND;
+    }
 }
@@ -15,7 +15,9 @@
  */
 package com.glmapper.memory.compression.events;
 
+import com.glmapper.memory.compression.CompressionException;
 import com.glmapper.memory.compression.CompressionResult;
+import com.glmapper.memory.compression.CompressionUnitOfWork;
 import com.glmapper.memory.compression.PinAggregationStrategy;
 import com.glmapper.memory.model.Pin;
 import com.glmapper.memory.model.WorkingMemory;
@@ -32,7 +34,7 @@ import org.springframework.stereotype.Component;
  *   <li>调用 PinAggregationStrategy 生成聚合后的 Pin</li>
  *   <li>清空现有的 Pins</li>
  *   <li>添加新的聚合 Pin</li>
- *   <li>保存 WorkingMemory 到 Redis</li>
+ *   <li>标记 pinnedFacts 已修改，由所属工作单元保存</li>
  * </ul>
  *
  * @author glsong
@@ -58,7 +60,8 @@ public class PinAggregationEventHandler extends EventHandler<PinAggregationEvent
 
         try {
             // 加载 WorkingMemory
-            WorkingMemory workingMemory = workingMemoryStorage.load(conversationId);
+            CompressionUnitOfWork unitOfWork = unitOfWork(event, workingMemoryStorage);
+            WorkingMemory workingMemory = unitOfWork.getWorkingMemory();
 
             // 执行聚合策略
             CompressionResult result = pinAggregationStrategy.compress(conversationId, workingMemory, null);
@@ -77,11 +80,13 @@ public class PinAggregationEventHandler extends EventHandler<PinAggregationEvent
             workingMemory.addPin(aggregatedPin);
             log.info("[MEMORY]-[{}] 已添加聚合 Pin: pinId={}", conversationId, aggregatedPin.getPinId());
 
-            // 保存到 Redis
-            workingMemoryStorage.save(workingMemory);
-            log.info("[MEMORY]-[{}] Pin 聚合完成并已保存", conversationId);
+            // 保存（共享工作单元时由压缩任务统一保存）
+            unitOfWork.pinsChanged();
+            commitStandalone(event);
+            log.info("[MEMORY]-[{}] Pin 聚合完成", conversationId);
         } catch (Exception e) {
             log.error("[MEMORY]-[{}] Pin 聚合事件处理失败", conversationId, e);
+            throw new CompressionException("Pin 聚合事件处理失败", e);
         }
     }
 
@@ -2,6 +2,8 @@ package com.glmapper.memory.compression.events;
 
 import com.glmapper.memory.model.MessagePair;
 
+import java.util.List;
+
 /**
  * @Classname PinMessageEvent
  * @Description PIN 判定事件
@@ -11,11 +13,25 @@ import com.glmapper.memory.model.MessagePair;
 public class PinMessageEvent extends MemoryEvent {
 
     private MessagePair pinMessagePair;
+    private List<MessagePair> pinMessagePairs;
     private String conversationId;
 
     public PinMessageEvent(String conversationId, MessagePair pinMessagePair) {
         super(conversationId);
         this.pinMessagePair = pinMessagePair;
+        this.pinMessagePairs = List.of(pinMessagePair);
+    }
+
+    /**
+     * 合并多轮对话的 Pin 判定事件（合并模式下使用），只做一次判定。
+     *
+     * @param conversationId  会话标识符
+     * @param pinMessagePairs 按时间顺序排列的对话对，不能为空
+     */
+    public PinMessageEvent(String conversationId, List<MessagePair> pinMessagePairs) {
+        super(conversationId);
+        this.pinMessagePairs = List.copyOf(pinMessagePairs);
+        this.pinMessagePair = pinMessagePairs.get(pinMessagePairs.size() - 1);
     }
 
     public MessagePair getPinMessagePair() {
@@ -24,6 +40,11 @@ public class PinMessageEvent extends MemoryEvent {
 
     public void setPinMessagePair(MessagePair pinMessagePair) {
         this.pinMessagePair = pinMessagePair;
+        this.pinMessagePairs = List.of(pinMessagePair);
+    }
+
+    public List<MessagePair> getPinMessagePairs() {
+        return pinMessagePairs;
     }
 
     public String getConversationId() {
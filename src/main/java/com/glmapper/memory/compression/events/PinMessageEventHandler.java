@@ -1,6 +1,10 @@
 package com.glmapper.memory.compression.events;
 
+import com.glmapper.memory.compression.CompressionAdmission;
+import com.glmapper.memory.compression.CompressionException;
+import com.glmapper.memory.compression.CompressionUnitOfWork;
 import com.glmapper.memory.compression.PinJudgmentStrategy;
+import com.glmapper.memory.model.MessagePair;
 import com.glmapper.memory.model.Pin;
 import com.glmapper.memory.model.WorkingMemory;
 import com.glmapper.memory.storage.WorkingMemoryStorage;
@@ -27,18 +31,41 @@ public class PinMessageEventHandler extends EventHandler<PinMessageEvent> {
     @Autowired
     private MemoryEventPublisher eventPublisher;
 
+    @Autowired(required = false)
+    private CompressionAdmission admission;
+
     @Override
     public void onEvent(PinMessageEvent event) {
+        prepare(event).run();
+    }
+
+    @Override
+    public Runnable prepare(PinMessageEvent event) {
         String conversationId = event.getSessionId();
         if (pinJudgmentStrategy == null) {
             log.debug("[MEMORY]-[{}] 未配置 PinJudgmentStrategy", conversationId);
-            return;
+            return () -> {
+            };
+        }
+
+        try {
+            CompressionUnitOfWork unitOfWork = unitOfWork(event, workingMemoryStorage);
+            var historyPins = unitOfWork.getWorkingMemory().getActivePins();
+            var judgment = pinJudgmentStrategy.judgePins(event.getPinMessagePairs(), historyPins);
+            return () -> applyJudgment(event, unitOfWork, judgment);
+        } catch (Exception e) {
+            log.error("[MEMORY]-[{}] Pin 压缩失败", conversationId, e);
+            throw new CompressionException("Pin 压缩失败", e);
         }
+    }
 
+    /**
+     * 把 Pin 判定结果写入工作记忆，并触发 Pin 聚合。
+     */
+    private void applyJudgment(PinMessageEvent event, CompressionUnitOfWork unitOfWork,
+                               PinJudgmentStrategy.PinJudgmentResult judgment) {
+        String conversationId = event.getSessionId();
         try {
-            WorkingMemory workingMemory = workingMemoryStorage.load(conversationId);
-            var historyPins = workingMemory.getActivePins();
-            var judgment = pinJudgmentStrategy.judgePin(event.getPinMessagePair(), historyPins);
             if (judgment == null || !judgment.shouldPin()) {
                 log.info("[MEMORY]-[{}] 不需要创建 Pin", conversationId);
                 return;
@@ -50,6 +77,7 @@ public class PinMessageEventHandler extends EventHandler<PinMessageEvent> {
                 return;
             }
 
+            WorkingMemory workingMemory = unitOfWork.getWorkingMemory();
             if (judgment.getNegatesPinId() != null && !judgment.getNegatesPinId().isEmpty()) {
                 workingMemory.invalidatePin(judgment.getNegatesPinId());
                 log.info("[MEMORY]-[{}] 已失效旧 Pin, pinId: {}", conversationId, judgment.getNegatesPinId());
@@ -61,22 +89,29 @@ public class PinMessageEventHandler extends EventHandler<PinMessageEvent> {
                     .confidence(judgment.getConfidence())
                     .build();
 
-            if (event.getPinMessagePair().getUserMessage() != null) {
-                newPin.addSourceMessageId(event.getPinMessagePair().getUserMessage().getId());
-            }
-            if (event.getPinMessagePair().getAssistantMessage() != null) {
-                newPin.addSourceMessageId(event.getPinMessagePair().getAssistantMessage().getId());
+            for (MessagePair pair : event.getPinMessagePairs()) {
+                if (pair.getUserMessage() != null) {
+                    newPin.addSourceMessageId(pair.getUserMessage().getId());
+                }
+                if (pair.getAssistantMessage() != null) {
+                    newPin.addSourceMessageId(pair.getAssistantMessage().getId());
+                }
             }
 
             workingMemory.addPin(newPin);
-            workingMemoryStorage.save(workingMemory);
-            log.info("[MEMORY]-[{}] Pin 压缩完成并已保存: pinId: {}", conversationId, newPin.getPinId());
+            unitOfWork.pinsChanged();
+            commitStandalone(event);
+            log.info("[MEMORY]-[{}] Pin 压缩完成: pinId: {}", conversationId, newPin.getPinId());
 
-            // 触发 Pin 聚合事件（由 PinAggregationStrategy 判定是否需要聚合）
+            // 触发 Pin 聚合事件（由 PinAggregationStrategy 判定是否需要聚合），积压时跳过，下一次新增 Pin 时再判定
+            if (admission != null && admission.skipPinAggregation(conversationId)) {
+                return;
+            }
             PinAggregationEvent aggregationEvent = new PinAggregationEvent(conversationId);
-            eventPublisher.publishEvent(aggregationEvent);
+            publishFollowUp(event, aggregationEvent);
         } catch (Exception e) {
             log.error("[MEMORY]-[{}] Pin 压缩失败", conversationId, e);
+            throw new CompressionException("Pin 压缩失败", e);
         }
     }
 
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.compression.events;
+
+import com.glmapper.memory.config.ArtisanMemoryProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded buffer plus a single delivery thread for one {@link EventSubscriber}; the single consumer keeps
+ * the subscriber's events in publish order.
+ */
+@Slf4j
+class SubscriberChannel {
+
+    private static final long POLL_MILLIS = 200;
+
+    private final EventSubscriber<MemoryEvent> subscriber;
+    private final ArrayBlockingQueue<MemoryEvent> buffer;
+    private final ArtisanMemoryProperties.EventOverflowPolicy overflow;
+    private final long blockTimeoutMillis;
+    private final Thread worker;
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile boolean running = true;
+
+    @SuppressWarnings("unchecked")
+    SubscriberChannel(EventSubscriber<? extends MemoryEvent> subscriber, ArtisanMemoryProperties.EventBus config) {
+        this.subscriber = (EventSubscriber<MemoryEvent>) subscriber;
+        this.buffer = new ArrayBlockingQueue<>(Math.max(1, config.getBufferSize()));
+        this.overflow = config.getOverflow();
+        this.blockTimeoutMillis = Math.max(0, config.getBlockTimeoutMillis());
+        this.worker = new Thread(this::run, "artisan-memory-event-" + subscriber.getSubscriberName());
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    EventSubscriber<MemoryEvent> getSubscriber() {
+        return subscriber;
+    }
+
+    /**
+     * Enqueues an event according to the overflow policy; never blocks longer than the configured timeout.
+     */
+    void offer(MemoryEvent event) {
+        boolean accepted = running && enqueue(event);
+        if (!accepted) {
+            long count = dropped.incrementAndGet();
+            if (count == 1 || count % 1000 == 0) {
+                log.warn("[MEMORY]-[EVENT] 订阅者 {} 缓冲区已满，已丢弃 {} 个事件", subscriber.getSubscriberName(), count);
+            }
+        }
+    }
+
+    private boolean enqueue(MemoryEvent event) {
+        if (overflow == ArtisanMemoryProperties.EventOverflowPolicy.DROP_NEWEST) {
+            return buffer.offer(event);
+        }
+        if (overflow == ArtisanMemoryProperties.EventOverflowPolicy.DROP_OLDEST) {
+            while (!buffer.offer(event)) {
+                if (buffer.poll() != null) {
+                    dropped.incrementAndGet();
+                }
+            }
+            return true;
+        }
+        try {
+            return buffer.offer(event, blockTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void run() {
+        while (running || !buffer.isEmpty()) {
+            MemoryEvent event;
+            try {
+                event = buffer.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (event == null) {
+                continue;
+            }
+            try {
+                subscriber.onEvent(event);
+                delivered.incrementAndGet();
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                log.error("[MEMORY]-[{}] 订阅者 {} 处理事件失败", event.getSessionId(), subscriber.getSubscriberName(), e);
+            }
+        }
+    }
+
+    /**
+     * Stops accepting events and waits up to the timeout for the buffered ones to be delivered.
+     */
+    void close(long timeoutMillis) {
+        running = false;
+        try {
+            worker.join(Math.max(1, timeoutMillis));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (worker.isAlive()) {
+            worker.interrupt();
+            log.warn("[MEMORY]-[EVENT] 订阅者 {} 关闭超时，丢弃 {} 个未投递的事件",
+                    subscriber.getSubscriberName(), buffer.size());
+        }
+    }
+
+    SubscriberStats stats() {
+        return SubscriberStats.builder()
+                .subscriber(subscriber.getSubscriberName())
+                .eventType(subscriber.getEventType())
+                .queued(buffer.size())
+                .capacity(buffer.size() + buffer.remainingCapacity())
+                .delivered(delivered.get())
+                .dropped(dropped.get())
+                .failed(failed.get())
+                .build();
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.compression.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 单个事件订阅者的投递指标。
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubscriberStats {
+
+    /** 订阅者名称 */
+    private String subscriber;
+
+    /** 订阅的事件类型 */
+    private String eventType;
+
+    /** 缓冲区中等待投递的事件数 */
+    private int queued;
+
+    /** 缓冲区大小 */
+    private int capacity;
+
+    /** 累计投递成功的事件数 */
+    private long delivered;
+
+    /** 累计因缓冲区满而丢弃的事件数 */
+    private long dropped;
+
+    /** 累计处理失败的事件数 */
+    private long failed;
+}
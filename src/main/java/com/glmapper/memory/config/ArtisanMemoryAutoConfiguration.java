@@ -21,6 +21,7 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.glmapper.memory.SessionMemory;
 import com.glmapper.memory.compression.PromptConfig;
+import com.glmapper.memory.compression.SummaryTreeStore;
 import com.glmapper.memory.compression.WorkingMemoryCompression;
 import com.glmapper.memory.compression.events.MemoryEventPublisher;
 import com.glmapper.memory.management.StorageClientManager;
@@ -30,10 +31,12 @@ import com.glmapper.memory.storage.WorkingMemoryStorage;
 import com.glmapper.memory.storage.mongodb.MongoOriginalStorage;
 import com.glmapper.memory.storage.mongodb.OriginalMessageRepository;
 import com.glmapper.memory.storage.redis.RedisWorkingMemoryStorage;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
@@ -92,13 +95,16 @@ public class ArtisanMemoryAutoConfiguration {
     /**
      * Creates the OriginalStorage bean using Spring Data MongoDB.
      *
-     * @param repository OriginalMessageRepository bean auto-configured by Spring Boot
+     * @param repository    OriginalMessageRepository bean auto-configured by Spring Boot
+     * @param mongoTemplate MongoTemplate used for the per-session meta counters
+     * @param properties    configuration properties (history deletion and archival)
      * @return MongoOriginalStorage bean
      */
     @Bean
     @ConditionalOnMissingBean(OriginalStorage.class)
-    public OriginalStorage originalStorage(OriginalMessageRepository repository) {
-        return new MongoOriginalStorage(repository);
+    public OriginalStorage originalStorage(OriginalMessageRepository repository, MongoTemplate mongoTemplate,
+                                           ArtisanMemoryProperties properties) {
+        return new MongoOriginalStorage(repository, mongoTemplate, properties.getHistory(), properties.getToolResultDedup());
     }
 
 
@@ -117,7 +123,7 @@ public class ArtisanMemoryAutoConfiguration {
     public WorkingMemoryStorage workingMemoryStorage(RedisConnectionFactory connectionFactory, ArtisanMemoryProperties properties) {
         StringRedisTemplate stringRedisTemplate = new StringRedisTemplate(connectionFactory);
         int expireDays = properties.getWorkingMemory().getExpireDays();
-        return new RedisWorkingMemoryStorage(stringRedisTemplate, expireDays);
+        return new RedisWorkingMemoryStorage(stringRedisTemplate, expireDays, properties.getToolResultDedup());
     }
 
     /**
@@ -153,13 +159,15 @@ public class ArtisanMemoryAutoConfiguration {
      * Creates the MemoryEventPublisher bean for internal event management.
      *
      * <p>This is the central event publisher used by ArtisanMemory and all event handlers.
+     * Subscribers are stopped when the context closes.
      *
+     * @param properties configuration properties
      * @return MemoryEventPublisher bean
      */
-    @Bean
+    @Bean(destroyMethod = "shutdown")
     @ConditionalOnMissingBean
-    public MemoryEventPublisher memoryEventPublisher() {
-        return new MemoryEventPublisher();
+    public MemoryEventPublisher memoryEventPublisher(ArtisanMemoryProperties properties) {
+        return new MemoryEventPublisher(properties.getCompression().getEvents());
     }
 
     /**
@@ -171,11 +179,14 @@ public class ArtisanMemoryAutoConfiguration {
      * @param properties               configuration properties
      * @param clientManager            storage client manager
      * @param workingMemoryCompression working memory compression executor
+     * @param summaryTreeStore         summary tree store, absent when Redis is not configured
      * @return ArtisanMemory service bean
      */
     @Bean
     @ConditionalOnMissingBean
-    public SessionMemory artisanMemory(ArtisanMemoryProperties properties, StorageClientManager clientManager, WorkingMemoryCompression workingMemoryCompression) {
-        return new SessionMemory(properties, clientManager, workingMemoryCompression);
+    public SessionMemory artisanMemory(ArtisanMemoryProperties properties, StorageClientManager clientManager,
+                                       WorkingMemoryCompression workingMemoryCompression,
+                                       ObjectProvider<SummaryTreeStore> summaryTreeStore) {
+        return new SessionMemory(properties, clientManager, workingMemoryCompression, summaryTreeStore.getIfAvailable());
     }
 }
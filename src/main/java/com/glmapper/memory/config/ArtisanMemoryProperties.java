@@ -19,7 +19,9 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Spring Boot configuration properties for ArtisanMemory.
@@ -44,6 +46,11 @@ import java.util.List;
  *     session:
  *       cleanup-interval-minutes: 10
  *       max-inactive-minutes: 60
+ *     history:
+ *       delete-batch-size: 500
+ *       archive:
+ *         enabled: false
+ *         max-age-days: 90
  * </pre>
  */
 @ConfigurationProperties(prefix = "artisan.memory")
@@ -53,6 +60,8 @@ public class ArtisanMemoryProperties {
     private WorkingMemory workingMemory = new WorkingMemory();
     private Session session = new Session();
     private Compression compression = new Compression();
+    private History history = new History();
+    private ToolResultDedup toolResultDedup = new ToolResultDedup();
 
     /**
      * Working Memory 配置。
@@ -110,6 +119,33 @@ public class ArtisanMemoryProperties {
          */
         private int maxPinTokens = 300;
 
+        /**
+         * 是否增量聚合 Pin
+         * <p>开启后聚合结果按节（约束、偏好、决策、事实）保存为一个分节 Pin，之后只把新增的 Pin 逐条并入对应的节：
+         * 重复的条目直接去掉，与已有条目相近（可能冲突）时才用 LLM 只处理该节，输入不随 Pin 总数增长。
+         * maxPinCount / maxPinTokens 只统计尚未并入的 Pin。
+         * <p>默认值：false
+         */
+        private boolean incrementalPinAggregation = false;
+
+        /**
+         * 增量聚合时每节最多保留的条目数，超过时用 LLM 精简该节（不可用时去掉最旧的条目并记录告警），约束节不受限制
+         * <p>默认值：8
+         */
+        private int pinSectionMaxEntries = 8;
+
+        /**
+         * 新 Pin 与已有条目的词项相似度（Jaccard）达到该值时视为重复，直接去掉
+         * <p>默认值：0.8
+         */
+        private double pinDuplicateSimilarity = 0.8;
+
+        /**
+         * 新 Pin 与已有条目的词项相似度达到该值（且未达到重复阈值）时视为可能冲突，交给 LLM 合并该节
+         * <p>默认值：0.4
+         */
+        private double pinConflictSimilarity = 0.4;
+
         /**
          * timingContextWindow 最大条数
          * <p>当 timingContextWindow 中的消息数超过此值时，触发历史摘要压缩。
@@ -131,6 +167,21 @@ public class ArtisanMemoryProperties {
          */
         private int currentRoundTokenThreshold = 1000;
 
+        /**
+         * 是否增量生成历史摘要
+         * <p>开启后 timingContextWindow 开头的上一次历史摘要作为已有摘要，只把之后新增的消息发给 LLM 更新摘要，
+         * 每次调用的输入约为"上一次摘要 + 新增消息"，不随会话长度增长。
+         * <p>默认值：false
+         */
+        private boolean incrementalHistorySummary = false;
+
+        /**
+         * 增量历史摘要的长度上限（token）
+         * <p>写入请求中约束滚动摘要的长度，避免摘要随会话不断变长。
+         * <p>默认值：800
+         */
+        private int historySummaryMaxTokens = 800;
+
         /**
          * 历史消息总 token 阈值（已废弃）
          * @deprecated 请使用 {@link #timingContextWindowTokenThreshold} 代替
@@ -176,5 +227,638 @@ public class ArtisanMemoryProperties {
     public static class Compression {
         private boolean autoCompression = false;
         private List<String> strategies = new ArrayList<>();
+        private Dispatcher dispatcher = new Dispatcher();
+
+        /**
+         * 是否合并同一会话排队中的压缩任务
+         * <p>开启后一次调度取出的多个任务（最多 maxTasksPerDispatch 个）作为一批处理：
+         * 所有新对话对只做一次 Pin 判定，所有移出的消息对一起摘要，历史摘要只在最后检查一次。
+         * <p>默认值：false
+         */
+        private boolean coalesce = false;
+
+        /**
+         * 是否并行执行相互独立的压缩策略
+         * <p>开启后新对话对的 Pin 判定与移出消息对的当前轮次摘要同时调用 LLM（Pin 判定在独立的线程池上执行，
+         * 线程数与 dispatcher.workerThreads 相同），两者都完成后按固定顺序（先 Pin、后 TCW）写入工作记忆，
+         * 结果与串行执行一致，压缩延迟从两次调用之和降为两者中的较大值。
+         * <p>默认值：false
+         */
+        private boolean parallelStrategies = false;
+
+        /**
+         * 压缩任务的传输方式
+         * <p>LIST 为每会话一个 Redis List（弹出即删除，节点崩溃时任务丢失）；
+         * STREAM 为每会话一个 Redis Stream + 消费组，处理完成后确认，崩溃节点的任务由其他节点认领。
+         * <p>默认值：LIST
+         */
+        private TaskTransport transport = TaskTransport.LIST;
+
+        private StreamTransport stream = new StreamTransport();
+
+        private Lease lease = new Lease();
+
+        private TenantScheduling tenant = new TenantScheduling();
+
+        private Admission admission = new Admission();
+
+        private Lanes lanes = new Lanes();
+
+        private Debounce debounce = new Debounce();
+
+        private Retry retry = new Retry();
+
+        private EventBus events = new EventBus();
+
+        private Drain drain = new Drain();
+
+        private Speculative speculative = new Speculative();
+
+        private SummaryTree summaryTree = new SummaryTree();
+
+        private ToolCall toolCall = new ToolCall();
+    }
+
+    /**
+     * 工具调用压缩配置（在 strategies 中加入 TOOL_CALL_COMPRESSION 时生效）。
+     *
+     * <p>从 Tail 移出的轮次在当前轮次摘要之前先做确定性压缩（不调用 LLM）：去掉计划类工具调用，
+     * 同一工具相同参数的重复调用只保留最后一次，超长的工具输出和参数保留首尾、省略中间。
+     * 压缩后仍然超过 escalationTokenThreshold 时，可选用一次 LLM 调用把工具调用过程概括为一条摘要。
+     */
+    @Data
+    public static class ToolCall {
+        /**
+         * 是否去掉计划类工具调用及其结果
+         * <p>默认值：true
+         */
+        private boolean dropPlanTools = true;
+
+        /**
+         * 是否合并同一工具相同参数的重复调用（只保留最后一次）
+         * <p>默认值：true
+         */
+        private boolean collapseRepeatedCalls = true;
+
+        /**
+         * 单个工具输出保留的最大字符数，超过时保留首尾、省略中间
+         * <p>默认值：2000
+         */
+        private int maxResultChars = 2000;
+
+        /**
+         * 工具调用单个参数值保留的最大字符数
+         * <p>默认值：300
+         */
+        private int maxInputValueChars = 300;
+
+        /**
+         * 确定性压缩后仍然过长时，是否调用 LLM 概括工具调用过程（积压降级时不调用）
+         * <p>默认值：false
+         */
+        private boolean llmEscalation = false;
+
+        /**
+         * 触发 LLM 概括的工具调用 token 数
+         * <p>默认值：2000
+         */
+        private int escalationTokenThreshold = 2000;
+    }
+
+    /**
+     * 分层摘要树配置（在 strategies 中加入 SUMMARY_TREE 时生效）。
+     *
+     * <p>第 0 层节点对应从 Tail 移出的轮次（当前轮次摘要或原文），同一层每凑满 groupSize 个节点，
+     * 用一次 LLM 调用生成上一层的节点。每个节点记录覆盖的原始历史序号范围和子节点，
+     * 可以从粗粒度的摘要逐层展开，直到原始对话。
+     */
+    @Data
+    public static class SummaryTree {
+        /**
+         * 每个上层节点合并的下层节点数
+         * <p>默认值：4
+         */
+        private int groupSize = 4;
+
+        /**
+         * 最大层数（含第 0 层），最高层的节点不再合并
+         * <p>默认值：3
+         */
+        private int maxLevels = 3;
+    }
+
+    /**
+     * 当前轮次摘要预生成配置。
+     *
+     * <p>Tail 已满时最旧的一轮就是下一次要移出的轮次，开启后在提交对话时立即在后台为它生成摘要并缓存到 Redis
+     * （artisan:wm:spec:{sessionId}），移出时直接使用缓存的摘要，不再等待一次 LLM 调用；
+     * 未超过 currentRoundTokenThreshold 的轮次不需要摘要，不会预生成。会话结束后缓存按 TTL 过期。
+     */
+    @Data
+    public static class Speculative {
+        /**
+         * 是否开启预生成
+         * <p>默认值：false
+         */
+        private boolean enabled = false;
+
+        /**
+         * 预生成线程数
+         * <p>默认值：2
+         */
+        private int threads = 2;
+
+        /**
+         * 等待预生成的队列长度，队列满时放弃预生成（移出时照常生成摘要）
+         * <p>默认值：256
+         */
+        private int queueCapacity = 256;
+
+        /**
+         * 缓存的过期时间（秒）
+         * <p>默认值：3600
+         */
+        private long ttlSeconds = 3600;
+    }
+
+    /**
+     * 停机排空配置。
+     *
+     * <p>停机时先停止从就绪集合取出会话，正在处理的会话在截止时间内完成当前任务后，把剩余任务放回持久队列；
+     * 到达截止时间后中断工作线程，被中断的任务同样放回队列（不计入重试次数），由其他节点继续处理。
+     */
+    @Data
+    public static class Drain {
+        /**
+         * 等待正在处理的会话完成的截止时间（秒），快速通道与后台通道共用
+         * <p>默认值：30
+         */
+        private long timeoutSeconds = 30;
+    }
+
+    /**
+     * 压缩事件订阅配置。
+     *
+     * <p>事件处理器（EventHandler）在压缩线程上同步执行；订阅者（EventSubscriber）在事件处理成功后异步收到通知，
+     * 每个订阅者一个有界缓冲区和一个投递线程，同一订阅者按发布顺序收到事件，慢订阅者不会增加压缩延迟。
+     */
+    @Data
+    public static class EventBus {
+        /**
+         * 每个订阅者的缓冲区大小
+         * <p>默认值：1024
+         */
+        private int bufferSize = 1024;
+
+        /**
+         * 缓冲区满时的处理方式
+         * <p>默认值：BLOCK
+         */
+        private EventOverflowPolicy overflow = EventOverflowPolicy.BLOCK;
+
+        /**
+         * BLOCK 模式下发布线程最多等待的时间（毫秒），超时后丢弃该事件
+         * <p>默认值：50
+         */
+        private long blockTimeoutMillis = 50;
+
+        /**
+         * 关闭时等待订阅者处理完缓冲区中事件的时间（毫秒）
+         * <p>默认值：5000
+         */
+        private long shutdownTimeoutMillis = 5000;
+    }
+
+    /**
+     * 订阅者缓冲区满时的处理方式。
+     */
+    public enum EventOverflowPolicy {
+        /** 发布线程等待 blockTimeoutMillis，仍然满时丢弃新事件（反压） */
+        BLOCK,
+        /** 直接丢弃新事件 */
+        DROP_NEWEST,
+        /** 丢弃缓冲区中最旧的事件，保留新事件 */
+        DROP_OLDEST
+    }
+
+    /**
+     * 压缩任务重试配置。
+     *
+     * <p>策略执行失败（LLM 调用失败、Redis 读写失败等）的任务放回会话队列头部，按指数退避加随机抖动延迟重新调度；
+     * 达到最大尝试次数后写入死信队列（artisan:wm:dlq），可以通过管理接口查看和重放。
+     */
+    @Data
+    public static class Retry {
+        /**
+         * 最大尝试次数（含首次执行）
+         * <p>默认值：5
+         */
+        private int maxAttempts = 5;
+
+        /**
+         * 首次重试的退避时间（毫秒）
+         * <p>默认值：1000
+         */
+        private long initialBackoffMillis = 1000;
+
+        /**
+         * 退避时间上限（毫秒）
+         * <p>默认值：60000
+         */
+        private long maxBackoffMillis = 60000;
+
+        /**
+         * 退避倍数
+         * <p>默认值：2.0
+         */
+        private double multiplier = 2.0;
+
+        /**
+         * 随机抖动比例，实际退避时间在 [1 - jitter, 1 + jitter] 倍之间
+         * <p>默认值：0.2
+         */
+        private double jitter = 0.2;
+
+        /**
+         * 死信队列最多保留的条数
+         * <p>默认值：10000
+         */
+        private int deadLetterMaxSize = 10000;
+    }
+
+    /**
+     * 后台压缩防抖配置（需要同时启用 {@link Lanes}）。
+     *
+     * <p>开启后历史摘要、Pin 聚合不在提交后立即执行，而是等会话空闲 {@code idleSeconds} 后执行；
+     * 会话持续活跃时最迟在首次提交后 {@code maxDelaySeconds} 执行；工作记忆的 token 压力达到
+     * {@code pressureRatio} 时立即执行。到期时间保存在后台就绪集合的 score 中，重启后仍然有效。
+     */
+    @Data
+    public static class Debounce {
+        /**
+         * 是否启用防抖
+         * <p>默认值：false
+         */
+        private boolean enabled = false;
+
+        /**
+         * 会话空闲多久后执行后台压缩（秒）
+         * <p>默认值：30
+         */
+        private long idleSeconds = 30;
+
+        /**
+         * 首次提交后最长延迟（秒）
+         * <p>默认值：300
+         */
+        private long maxDelaySeconds = 300;
+
+        /**
+         * 立即执行历史摘要的 token 压力比例：TCW 的 token 数与阈值之比、或条数与上限之比
+         * <p>默认值：1.5
+         */
+        private double pressureRatio = 1.5;
+    }
+
+    /**
+     * 压缩优先级通道配置。
+     *
+     * <p>开启后 Pin 聚合、历史摘要从会话的压缩任务中拆出，进入后台通道：独立的就绪集合
+     * （artisan:wm:ready:background）、轮询线程和工作线程，Pin 判定与当前轮次摘要不再排在它们后面。
+     * 快速通道沿用 {@code compression.dispatcher} 的配置。
+     */
+    @Data
+    public static class Lanes {
+        /**
+         * 是否启用优先级通道
+         * <p>默认值：false
+         */
+        private boolean enabled = false;
+
+        /**
+         * 后台通道的调度配置
+         * <p>默认值：1 个轮询线程、4 个工作线程
+         */
+        private Dispatcher background = defaultBackgroundDispatcher();
+
+        private static Dispatcher defaultBackgroundDispatcher() {
+            Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setPollerThreads(1);
+            dispatcher.setWorkerThreads(4);
+            return dispatcher;
+        }
+    }
+
+    /**
+     * 压缩积压时的准入控制与降级配置。
+     *
+     * <p>以就绪集合中等待调度的会话数衡量积压程度：
+     * <ul>
+     *   <li>达到 {@code highWatermark}：跳过 Pin 聚合等可选策略</li>
+     *   <li>达到 {@code criticalWatermark}：当前轮次摘要改为确定性截断，不再调用 LLM；低价值轮次不做 Pin 判定</li>
+     *   <li>回落到 {@code lowWatermark} 以下时恢复正常（从 critical 回落到 high 以下时先恢复为 elevated）</li>
+     * </ul>
+     */
+    @Data
+    public static class Admission {
+        /**
+         * 是否启用准入控制
+         * <p>默认值：false
+         */
+        private boolean enabled = false;
+
+        /**
+         * 恢复正常的积压水位（等待调度的会话数）
+         * <p>默认值：50
+         */
+        private long lowWatermark = 50;
+
+        /**
+         * 跳过可选策略的积压水位
+         * <p>默认值：200
+         */
+        private long highWatermark = 200;
+
+        /**
+         * 改用确定性截断并丢弃低价值 Pin 判定的积压水位
+         * <p>默认值：1000
+         */
+        private long criticalWatermark = 1000;
+
+        /**
+         * 积压水位的刷新间隔（毫秒）
+         * <p>默认值：1000
+         */
+        private long refreshIntervalMillis = 1000;
+
+        /**
+         * 确定性截断时每条消息保留的最大字符数
+         * <p>默认值：200
+         */
+        private int truncateChars = 200;
+
+        /**
+         * 纯文本字符数低于该值的轮次视为低价值轮次
+         * <p>默认值：40
+         */
+        private int lowValueTurnChars = 40;
+    }
+
+    /**
+     * 多租户公平调度配置。
+     *
+     * <p>开启后，从就绪集合取出的会话按租户（sessionId 中第一个分隔符之前的前缀）分组，
+     * 使用加权赤字轮转（DRR）在租户之间分配工作线程，并限制每个租户在本节点的并发数，
+     * 避免单个高频租户占满压缩线程和 LLM 配额。
+     */
+    @Data
+    public static class TenantScheduling {
+        /**
+         * 是否启用租户公平调度
+         * <p>默认值：false
+         */
+        private boolean enabled = false;
+
+        /**
+         * sessionId 中租户前缀的分隔符
+         * <p>默认值：":"
+         */
+        private String delimiter = ":";
+
+        /**
+         * sessionId 不包含分隔符时归属的租户
+         * <p>默认值：default
+         */
+        private String defaultTenant = "default";
+
+        /**
+         * 未单独配置的租户的权重，每轮可调度的会话数与权重成正比
+         * <p>默认值：1
+         */
+        private int defaultWeight = 1;
+
+        /**
+         * 未单独配置的租户在本节点的最大并发会话数
+         * <p>默认值：4
+         */
+        private int defaultMaxConcurrency = 4;
+
+        /**
+         * 按租户配置的权重
+         */
+        private Map<String, Integer> weights = new HashMap<>();
+
+        /**
+         * 按租户配置的最大并发会话数
+         */
+        private Map<String, Integer> maxConcurrency = new HashMap<>();
+    }
+
+    /**
+     * 会话压缩租约配置（多节点部署时使用）。
+     *
+     * <p>开启后节点处理某个会话前需要先在 Redis 中获取该会话的租约（SET NX PX），
+     * 处理期间定期续约，处理完成立即释放，保证同一时刻只有一个节点压缩同一会话。
+     */
+    @Data
+    public static class Lease {
+        /**
+         * 是否启用会话租约
+         * <p>默认值：false
+         */
+        private boolean enabled = false;
+
+        /**
+         * 租约有效期（秒），节点崩溃后最多经过该时长其他节点可以接管
+         * <p>默认值：30
+         */
+        private int ttlSeconds = 30;
+
+        /**
+         * 续约间隔（秒），应明显小于 ttlSeconds
+         * <p>默认值：10
+         */
+        private int renewIntervalSeconds = 10;
+    }
+
+    /**
+     * 压缩任务传输方式。
+     */
+    public enum TaskTransport {
+        /** Redis List（LPUSH/RPOP） */
+        LIST,
+        /** Redis Streams 消费组（至少一次） */
+        STREAM
+    }
+
+    /**
+     * Redis Streams 传输配置。
+     */
+    @Data
+    public static class StreamTransport {
+        /**
+         * 已投递但超过该时长未确认的任务视为消费者已失效，可被其他节点认领（秒）
+         * <p>应大于单个任务的最长处理时间（包括 LLM 调用）。
+         * <p>默认值：120
+         */
+        private int claimIdleSeconds = 120;
+
+        /**
+         * 扫描有未完成任务的会话并重新登记调度的间隔（秒），用于接管崩溃节点的会话
+         * <p>默认值：60
+         */
+        private int recoveryIntervalSeconds = 60;
+
+        /**
+         * 会话 Stream 的过期时间（小时），每次写入时刷新
+         * <p>默认值：168
+         */
+        private int keyExpireHours = 168;
+    }
+
+    /**
+     * 压缩任务调度配置。
+     *
+     * <p>有待处理任务的会话登记在 Redis 就绪集合中，由少量轮询线程取出后交给有界的工作线程池执行，
+     * 同一会话同一时刻只会被一个工作线程处理。
+     */
+    @Data
+    public static class Dispatcher {
+        /**
+         * 轮询就绪集合的线程数（每个线程阻塞占用一个 Redis 连接）
+         * <p>默认值：2
+         */
+        private int pollerThreads = 2;
+
+        /**
+         * 执行压缩任务的工作线程数，也是同时处理的会话数上限
+         * <p>虚拟线程模式下不再创建固定线程，该值只作为并发上限，可以设置得更大。
+         * <p>默认值：16
+         */
+        private int workerThreads = 16;
+
+        /**
+         * 工作线程模式
+         * <p>压缩任务几乎全是阻塞 I/O（Redis、LLM HTTP 调用），运行在 Java 21+ 时可切换为
+         * {@link ExecutorMode#VIRTUAL}；运行时不支持虚拟线程时自动回退到平台线程。
+         * <p>默认值：PLATFORM
+         */
+        private ExecutorMode executorMode = ExecutorMode.PLATFORM;
+
+        /**
+         * 单个会话一次调度最多处理的任务数，超过后重新排队，避免长队列会话独占工作线程
+         * <p>默认值：20
+         */
+        private int maxTasksPerDispatch = 20;
+
+        /**
+         * 轮询就绪集合的阻塞超时（秒）
+         * <p>默认值：2
+         */
+        private int pollTimeoutSeconds = 2;
+    }
+
+    /**
+     * 压缩任务的线程模式。
+     */
+    public enum ExecutorMode {
+        /** 固定大小的平台线程池 */
+        PLATFORM,
+        /** 每个任务一个虚拟线程（需要 Java 21+） */
+        VIRTUAL
+    }
+
+    /**
+     * 工具结果去重配置。
+     *
+     * <p>开启后，工作记忆（Redis）、原始历史（MongoDB）和压缩任务队列在写入时，把输出达到 minChars 的工具结果
+     * 按内容哈希（SHA-256）在会话内只保存一份，消息中只保留引用；读取时自动还原，调用方和提示词看到的仍是完整内容。
+     * 关闭后已写入的引用照常还原。
+     */
+    @Data
+    public static class ToolResultDedup {
+        /**
+         * 是否开启工具结果去重
+         * <p>默认值：false
+         */
+        private boolean enabled = false;
+
+        /**
+         * 参与去重的工具输出最小长度（序列化后的字符数），较小的输出直接内联保存
+         * <p>默认值：512
+         */
+        private int minChars = 512;
+
+        /**
+         * 不再被 Head / Tail / TCW 引用的工具输出，最近一次被引用超过该时长后在保存压缩结果时清理（分钟）。
+         * 等待中的压缩任务载荷也引用这些输出，应大于任务排队与重试的最长时间
+         * <p>默认值：60
+         */
+        private int orphanGraceMinutes = 60;
+    }
+
+    /**
+     * 原始历史（OriginalStorage）维护配置。
+     *
+     * <p>包括清空会话时的后台分批删除，以及按年龄把旧轮次归档到压缩集合，
+     * 使热集合及其索引保持较小的规模。
+     */
+    @Data
+    public static class History {
+        /**
+         * 后台删除每批删除的文档数
+         * <p>默认值：500
+         */
+        private int deleteBatchSize = 500;
+
+        /**
+         * 后台删除两批之间的间隔（毫秒），用于限制删除对副本同步的影响
+         * <p>默认值：100
+         */
+        private long deleteBatchIntervalMillis = 100;
+
+        /**
+         * 归档配置
+         */
+        private Archive archive = new Archive();
+    }
+
+    /**
+     * 原始历史归档配置。
+     *
+     * <p>超过 {@link #maxAgeDays} 的轮次会被 gzip 压缩后写入归档集合，并从热集合中删除。
+     * 归档后的轮次不再出现在 getAll / getRange / 检索 / 变更流中。
+     */
+    @Data
+    public static class Archive {
+        /**
+         * 是否启用按年龄归档
+         * <p>默认值：false
+         */
+        private boolean enabled = false;
+
+        /**
+         * 轮次保留在热集合中的最大天数
+         * <p>默认值：90
+         */
+        private int maxAgeDays = 90;
+
+        /**
+         * 每批归档的文档数
+         * <p>默认值：200
+         */
+        private int batchSize = 200;
+
+        /**
+         * 两批归档之间的间隔（毫秒）
+         * <p>默认值：100
+         */
+        private long batchIntervalMillis = 100;
+
+        /**
+         * 归档任务的执行间隔（分钟）
+         * <p>默认值：60
+         */
+        private int intervalMinutes = 60;
     }
 }
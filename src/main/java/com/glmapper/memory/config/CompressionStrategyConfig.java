@@ -6,7 +6,10 @@ import com.glmapper.memory.compression.HistorySummarizationStrategy;
 import com.glmapper.memory.compression.PinAggregationStrategy;
 import com.glmapper.memory.compression.PinJudgmentStrategy;
 import com.glmapper.memory.compression.PromptConfig;
+import com.glmapper.memory.compression.SummaryTreeStrategy;
+import com.glmapper.memory.compression.ToolCallCompressionStrategy;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -21,6 +24,10 @@ import org.springframework.context.annotation.Configuration;
  *   <li>历史对话摘要策略 - 仅对 timingContextWindow 进行摘要</li>
  * </ol>
  *
+ * <p>可选的 TOOL_CALL_COMPRESSION 策略在当前轮次摘要之前压缩移出轮次中的工具调用，不依赖 LLM。
+ *
+ * <p>可选的 SUMMARY_TREE 策略在此之外维护分层摘要树，可以从概括摘要逐层展开到原始对话。
+ *
  * <p>默认不开启自动压缩。
  *
  * @author glmapper
@@ -67,4 +74,21 @@ public class CompressionStrategyConfig {
             PromptConfig promptConfig) {
         return new HistorySummarizationStrategy(chatClient, promptConfig, memoryProperties);
     }
+
+    @Bean
+    @ConditionalOnStrategyEnabled("TOOL_CALL_COMPRESSION")
+    public ToolCallCompressionStrategy toolCallCompressionStrategy(
+            ObjectProvider<ChatClient> chatClient,
+            PromptConfig promptConfig) {
+        // 确定性压缩不需要 LLM，未配置 ChatClient 时只是无法升级为 LLM 概括
+        return new ToolCallCompressionStrategy(chatClient.getIfAvailable(), promptConfig, memoryProperties);
+    }
+
+    @Bean
+    @ConditionalOnStrategyEnabled("SUMMARY_TREE")
+    public SummaryTreeStrategy summaryTreeStrategy(
+            ChatClient chatClient,
+            PromptConfig promptConfig) {
+        return new SummaryTreeStrategy(chatClient, promptConfig, memoryProperties);
+    }
 }
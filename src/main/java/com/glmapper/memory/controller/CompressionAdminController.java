@@ -0,0 +1,147 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.controller;
+
+import com.glmapper.memory.compression.DeadLetter;
+import com.glmapper.memory.compression.DrainStats;
+import com.glmapper.memory.compression.LaneStats;
+import com.glmapper.memory.compression.TenantStats;
+import com.glmapper.memory.compression.WorkingMemoryCompression;
+import com.glmapper.memory.compression.events.MemoryEventPublisher;
+import com.glmapper.memory.compression.events.SubscriberStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Admin endpoints for the background compression pipeline.
+ */
+@RestController
+@RequestMapping("/api/admin/compression")
+public class CompressionAdminController {
+
+    @Autowired
+    private WorkingMemoryCompression compression;
+
+    @Autowired
+    private MemoryEventPublisher eventPublisher;
+
+    /**
+     * Per-lane scheduling metrics (ready sessions, in-flight sessions, wait time).
+     */
+    @GetMapping("/lanes")
+    public Map<String, Object> getLaneStats() {
+        List<LaneStats> lanes = compression.getLaneStats();
+        Map<String, Object> result = new HashMap<>();
+        result.put("lanes", lanes);
+        result.put("count", lanes.size());
+        return result;
+    }
+
+    /**
+     * Drains this node before shutdown (e.g. from a preStop hook): stops taking sessions, waits for in-flight
+     * sessions up to the configured deadline and returns unfinished tasks to the shared queue. Idempotent.
+     */
+    @PostMapping("/drain")
+    public Map<String, Object> drain() {
+        List<DrainStats> lanes = compression.drain();
+        Map<String, Object> result = new HashMap<>();
+        result.put("lanes", lanes);
+        result.put("count", lanes.size());
+        return result;
+    }
+
+    /**
+     * Delivery metrics of the asynchronous event subscribers (buffered, delivered, dropped, failed).
+     */
+    @GetMapping("/subscribers")
+    public Map<String, Object> getSubscriberStats() {
+        List<SubscriberStats> subscribers = eventPublisher.getSubscriberStats();
+        Map<String, Object> result = new HashMap<>();
+        result.put("subscribers", subscribers);
+        result.put("count", subscribers.size());
+        return result;
+    }
+
+    /**
+     * Per-tenant scheduling metrics of this node (queue depth, running sessions, wait time).
+     */
+    @GetMapping("/tenants")
+    public Map<String, Object> getTenantStats() {
+        List<TenantStats> tenants = compression.getTenantStats();
+        Map<String, Object> result = new HashMap<>();
+        result.put("tenants", tenants);
+        result.put("count", tenants.size());
+        return result;
+    }
+
+    /**
+     * Backlog level and degradation counters of the compression admission control.
+     */
+    @GetMapping("/admission")
+    public Map<String, Object> getAdmissionStats() {
+        return compression.getAdmissionStats();
+    }
+
+    /**
+     * Dead-lettered compression tasks, newest first.
+     */
+    @GetMapping("/dlq")
+    public Map<String, Object> getDeadLetters(@RequestParam(value = "offset", defaultValue = "0") int offset,
+                                              @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        List<DeadLetter> deadLetters = compression.getDeadLetters(offset, limit);
+        Map<String, Object> result = new HashMap<>();
+        result.put("deadLetters", deadLetters);
+        result.put("count", deadLetters.size());
+        result.put("total", compression.getDeadLetterCount());
+        return result;
+    }
+
+    /**
+     * Removes a task from the dead-letter queue and submits it again.
+     */
+    @PostMapping("/dlq/{id}/replay")
+    public DeadLetter replayDeadLetter(@PathVariable("id") String id) {
+        DeadLetter deadLetter = compression.replayDeadLetter(id);
+        if (deadLetter == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Dead letter not found: " + id);
+        }
+        return deadLetter;
+    }
+
+    /**
+     * Discards a task from the dead-letter queue.
+     */
+    @DeleteMapping("/dlq/{id}")
+    public DeadLetter discardDeadLetter(@PathVariable("id") String id) {
+        DeadLetter deadLetter = compression.discardDeadLetter(id);
+        if (deadLetter == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Dead letter not found: " + id);
+        }
+        return deadLetter;
+    }
+}
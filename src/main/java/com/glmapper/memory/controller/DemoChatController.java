@@ -21,6 +21,7 @@ import com.glmapper.memory.model.Msg;
 import com.glmapper.memory.model.MsgRole;
 import com.glmapper.memory.model.TextBlock;
 import com.glmapper.memory.service.MockVectorStore;
+import com.glmapper.memory.storage.OriginalSearchHit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
@@ -157,6 +158,41 @@ public class DemoChatController {
         return result;
     }
 
+    /**
+     * Get interaction messages (user messages and final assistant responses only).
+     */
+    @GetMapping("/interactions")
+    public Map<String, Object> getInteractionMessages(@RequestParam(value = "userId", defaultValue = "default-user") String userId) {
+        String sessionId = "user:" + userId;
+        log.info("Getting interaction messages for session: {}", sessionId);
+
+        List<Msg> interactions = memoryService.getInteractionMessages(sessionId);
+        Map<String, Object> result = new HashMap<>();
+        result.put("sessionId", sessionId);
+        result.put("messages", interactions);
+        result.put("count", interactions.size());
+
+        return result;
+    }
+
+    /**
+     * Full-text search over the original history.
+     */
+    @GetMapping("/search")
+    public Map<String, Object> searchOriginalMessages(@RequestParam(value = "userId", defaultValue = "default-user") String userId,
+                                                      @RequestParam("query") String query,
+                                                      @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        String sessionId = "user:" + userId;
+        log.info("Searching original messages for session: {}, query: {}", sessionId, query);
+
+        List<OriginalSearchHit> hits = memoryService.searchOriginalMessages(sessionId, query, limit);
+        Map<String, Object> result = new HashMap<>();
+        result.put("sessionId", sessionId);
+        result.put("hits", hits);
+        result.put("count", hits.size());
+
+        return result;
+    }
 
     /**
      * Simulate RAG context retrieval with vector search.
@@ -35,6 +35,8 @@ public class MessagePair {
     private Msg assistantMessage;
     // Tool calls/results between user and assistant
     private List<Msg> intermediateMessages;
+    // Sequence of this turn in the session's original history, assigned by OriginalStorage#append; null if unknown
+    private Long sequence;
 
     public MessagePair() {
         this.intermediateMessages = new ArrayList<>();
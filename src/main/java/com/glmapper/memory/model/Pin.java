@@ -15,6 +15,7 @@
  */
 package com.glmapper.memory.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -23,7 +24,9 @@ import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -103,6 +106,23 @@ public class Pin {
     @Builder.Default
     private LocalDateTime updatedAt = LocalDateTime.now();
 
+    /**
+     * 增量聚合生成的分节条目（节名 -> 陈述句列表）
+     * <p>为空表示普通 Pin；非空时 content 是各节条目的渲染结果
+     */
+    @Builder.Default
+    private Map<String, List<String>> sections = new LinkedHashMap<>();
+
+    /**
+     * 检查 Pin 是否为增量聚合生成的分节 Pin
+     *
+     * @return 包含分节条目时返回 true
+     */
+    @JsonIgnore
+    public boolean isSectioned() {
+        return sections != null && !sections.isEmpty();
+    }
+
     /**
      * 检查 Pin 是否有效
      *
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分层摘要树的节点。
+ *
+ * <p>第 0 层节点覆盖从 Tail 移出的一个（合并模式下为一批）轮次，内容为当前轮次摘要或原文；
+ * 第 N 层节点由若干个相邻的第 N-1 层节点合并生成。每个节点记录覆盖的原始历史序号范围
+ * （{@link MessagePair#getSequence()}），可以展开为子节点或原始对话。
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SummaryNode {
+
+    /** 节点标识，由层级和序号范围确定（见 {@link #idOf}），重复生成同一节点时覆盖写入 */
+    private String nodeId;
+
+    /** 层级，0 为单个轮次 */
+    private int level;
+
+    /** 覆盖的第一个原始历史序号（含） */
+    private long fromSequence;
+
+    /** 覆盖的最后一个原始历史序号（含） */
+    private long toSequence;
+
+    /** 摘要内容 */
+    private String content;
+
+    /** 子节点标识，按时间顺序排列；第 0 层为空 */
+    @Builder.Default
+    private List<String> childIds = new ArrayList<>();
+
+    /** 创建时间（毫秒） */
+    private long createdAt;
+
+    /**
+     * 节点标识。
+     *
+     * @param level        层级
+     * @param fromSequence 第一个序号
+     * @param toSequence   最后一个序号
+     * @return 节点标识
+     */
+    public static String idOf(int level, long fromSequence, long toSequence) {
+        return "L" + level + "-" + fromSequence + "-" + toSequence;
+    }
+}
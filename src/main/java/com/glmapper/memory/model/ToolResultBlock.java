@@ -15,6 +15,8 @@
  */
 package com.glmapper.memory.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -25,6 +27,8 @@ public class ToolResultBlock extends ContentBlock {
     private String id;
     private String name;
     private List<ContentBlock> output = new ArrayList<>();
+    /** Content hash of the output when it has been stored once per session and replaced by a reference. */
+    private String contentHash;
 
     public ToolResultBlock() {
         // Type is automatically handled by @JsonTypeInfo - no need to set it manually
@@ -54,6 +58,24 @@ public class ToolResultBlock extends ContentBlock {
         this.output = output;
     }
 
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    /**
+     * Checks whether the output has been replaced by a reference to deduplicated content.
+     *
+     * <p>References are resolved by the storages on read; an unresolved reference has an empty output.
+     */
+    @JsonIgnore
+    public boolean isReference() {
+        return contentHash != null && (output == null || output.isEmpty());
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
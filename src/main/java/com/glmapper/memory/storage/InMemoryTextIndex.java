@@ -0,0 +1,104 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.storage;
+
+import com.glmapper.memory.model.MessagePair;
+import com.glmapper.memory.util.MsgUtils;
+import com.glmapper.memory.util.TextTokenizer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pure-Java inverted index over message pairs, ranked with BM25.
+ *
+ * <p>This is the fallback used by {@link OriginalStorage#search(String, String, int)} for storages
+ * without a native text index (e.g. file-backed or test storages). Documents are tokenized with
+ * {@link TextTokenizer}, so results are consistent with the database-backed implementation.
+ *
+ * <p>Not thread-safe; build one per search or guard it externally.
+ */
+public class InMemoryTextIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final Map<String, Map<Integer, Integer>> postings = new HashMap<>();
+    private final List<Long> sequences = new ArrayList<>();
+    private final List<MessagePair> pairs = new ArrayList<>();
+    private final List<Integer> docLengths = new ArrayList<>();
+    private long totalLength;
+
+    /**
+     * Adds a message pair to the index.
+     *
+     * @param sequence the sequence of the pair within its session
+     * @param pair     the message pair
+     */
+    public void add(Long sequence, MessagePair pair) {
+        int docId = pairs.size();
+        List<String> tokens = TextTokenizer.tokenize(MsgUtils.extractPlainText(pair.getAllMessages()));
+        for (String token : tokens) {
+            postings.computeIfAbsent(token, t -> new HashMap<>()).merge(docId, 1, Integer::sum);
+        }
+        sequences.add(sequence);
+        pairs.add(pair);
+        docLengths.add(tokens.size());
+        totalLength += tokens.size();
+    }
+
+    /**
+     * Searches the index.
+     *
+     * @param query the free-text query
+     * @param limit maximum number of hits
+     * @return hits ordered by descending score, ties broken by ascending sequence
+     */
+    public List<OriginalSearchHit> search(String query, int limit) {
+        Set<String> terms = new LinkedHashSet<>(TextTokenizer.tokenize(query));
+        if (terms.isEmpty() || pairs.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        int docCount = pairs.size();
+        double avgLength = Math.max(1.0, (double) totalLength / docCount);
+        Map<Integer, Double> scores = new HashMap<>();
+        for (String term : terms) {
+            Map<Integer, Integer> docs = postings.get(term);
+            if (docs == null) {
+                continue;
+            }
+            double idf = Math.log(1 + (docCount - docs.size() + 0.5) / (docs.size() + 0.5));
+            for (Map.Entry<Integer, Integer> entry : docs.entrySet()) {
+                int tf = entry.getValue();
+                double norm = K1 * (1 - B + B * docLengths.get(entry.getKey()) / avgLength);
+                scores.merge(entry.getKey(), idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+            }
+        }
+        List<OriginalSearchHit> hits = new ArrayList<>();
+        for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+            int docId = entry.getKey();
+            hits.add(new OriginalSearchHit(sequences.get(docId), entry.getValue(), pairs.get(docId)));
+        }
+        hits.sort(Comparator.comparingDouble(OriginalSearchHit::getScore).reversed()
+                .thenComparing(OriginalSearchHit::getSequence, Comparator.nullsLast(Comparator.naturalOrder())));
+        return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.storage;
+
+import com.glmapper.memory.model.MessagePair;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A single appended turn as seen by the change feed of original storage.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OriginalChange {
+
+    /** Global append sequence across all sessions; strictly increasing. */
+    private long globalSequence;
+
+    /** The storage key of the session the turn belongs to. */
+    private String storageKey;
+
+    /** Sequence of the turn within its session. */
+    private Long sequence;
+
+    /** Append time in epoch milliseconds. */
+    private Long timestamp;
+
+    /** The appended message pair. */
+    private MessagePair messagePair;
+}
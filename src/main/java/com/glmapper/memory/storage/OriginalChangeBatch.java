@@ -0,0 +1,41 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A page of the original storage change feed.
+ *
+ * <p>Consumers persist {@link #getNextCursor()} after processing {@link #getChanges()} and pass it to the
+ * next {@link OriginalStorage#changesSince(long, int)} call to resume where they stopped.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OriginalChangeBatch {
+
+    /** Changes ordered by ascending global sequence. */
+    private List<OriginalChange> changes = new ArrayList<>();
+
+    /** Cursor to resume from; equals the input cursor when there are no new changes. */
+    private long nextCursor;
+}
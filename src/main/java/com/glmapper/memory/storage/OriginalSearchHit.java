@@ -0,0 +1,39 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.storage;
+
+import com.glmapper.memory.model.MessagePair;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A ranked full-text search result over the original history of a session.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OriginalSearchHit {
+
+    /** Sequence (1-based position) of the matched turn within its session, or null if unknown. */
+    private Long sequence;
+
+    /** Relevance score; higher is more relevant. Only comparable within one search call. */
+    private double score;
+
+    /** The matched message pair. */
+    private MessagePair messagePair;
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Per-session statistics of original storage.
+ *
+ * <p>Implementations backed by a database should maintain these values on every append,
+ * so that reading them is a single point lookup instead of a scan over the session history.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OriginalSessionStats {
+
+    /** The storage key of the session. */
+    private String storageKey;
+
+    /** Number of message pairs (turns) stored for the session. */
+    private long turnCount;
+
+    /** Sequence of the oldest stored turn (1-based), or 0 if the session is empty. */
+    private long firstSequence;
+
+    /** Sequence of the latest stored turn, or 0 if the session is empty. */
+    private long lastSequence;
+
+    /** Estimated total tokens of all stored turns. */
+    private long totalTokens;
+
+    /** Time of the last append in epoch milliseconds, or null if never written. */
+    private Long lastWriteTime;
+
+    /**
+     * Creates stats for a session without any stored turns.
+     *
+     * @param storageKey the storage key
+     * @return empty stats
+     */
+    public static OriginalSessionStats empty(String storageKey) {
+        return OriginalSessionStats.builder().storageKey(storageKey).build();
+    }
+}
@@ -16,6 +16,8 @@
 package com.glmapper.memory.storage;
 
 import com.glmapper.memory.model.MessagePair;
+import com.glmapper.memory.util.TokenCounterUtil;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -29,6 +31,9 @@ public interface OriginalStorage {
     /**
      * Appends a message pair to original storage.
      *
+     * <p>Implementations that number the turns of a session should record the assigned sequence on the
+     * pair via {@link MessagePair#setSequence(Long)}, so that summaries derived from it can link back.
+     *
      * @param key the storage key (e.g., session ID)
      * @param pair the message pair to append
      */
@@ -66,4 +71,123 @@ public interface OriginalStorage {
      * @return list of message pairs within the range
      */
     List<MessagePair> getRange(String key, int offset, int limit);
+
+    /**
+     * Gets the message pairs whose sequence lies within the given inclusive range.
+     *
+     * <p>The default implementation loads the whole history and treats pairs without a recorded sequence
+     * as numbered by position (1-based); implementations with a sequence index should query it directly.
+     *
+     * @param key          the storage key
+     * @param fromSequence first sequence (inclusive)
+     * @param toSequence   last sequence (inclusive)
+     * @return message pairs in ascending sequence order
+     */
+    default List<MessagePair> getSequenceRange(String key, long fromSequence, long toSequence) {
+        List<MessagePair> pairs = getAll(key);
+        List<MessagePair> result = new ArrayList<>();
+        for (int i = 0; i < pairs.size(); i++) {
+            MessagePair pair = pairs.get(i);
+            long sequence = pair.getSequence() != null ? pair.getSequence() : i + 1;
+            if (sequence >= fromSequence && sequence <= toSequence) {
+                result.add(pair);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets all message pairs in chronological order without their intermediate messages.
+     *
+     * <p>This is the lightweight projection used by chat-transcript views, which only need the user
+     * message and the assistant response of each turn. Implementations should avoid transferring
+     * tool calls and tool results at all; the default implementation strips them after loading.
+     *
+     * @param key the storage key
+     * @return list of message pairs whose intermediate messages are empty
+     */
+    default List<MessagePair> getInteractionPairs(String key) {
+        List<MessagePair> pairs = new ArrayList<>();
+        for (MessagePair pair : getAll(key)) {
+            pairs.add(new MessagePair(pair.getUserMessage(), pair.getAssistantMessage()));
+        }
+        return pairs;
+    }
+
+    /**
+     * Full-text search over the original history of a session.
+     *
+     * <p>Matches the user, assistant and tool text of each turn and returns the best matching turns
+     * together with their sequences, numbered the same way as {@link #getSequenceRange}. The default implementation builds an
+     * {@link InMemoryTextIndex} over {@link #getAll(String)}; database-backed implementations
+     * should override it with a native text index.
+     *
+     * @param key   the storage key
+     * @param query the free-text query
+     * @param limit the maximum number of hits to return
+     * @return hits ordered by descending relevance, or empty list if nothing matches
+     */
+    default List<OriginalSearchHit> search(String key, String query, int limit) {
+        InMemoryTextIndex index = new InMemoryTextIndex();
+        List<MessagePair> pairs = getAll(key);
+        for (int i = 0; i < pairs.size(); i++) {
+            MessagePair pair = pairs.get(i);
+            index.add(pair.getSequence() != null ? pair.getSequence() : i + 1, pair);
+        }
+        return index.search(query, limit);
+    }
+
+    /**
+     * Reads the change feed of appended turns across all sessions.
+     *
+     * <p>Turns are ordered by a global append sequence. The cursor is the last global sequence the
+     * consumer has processed ({@code 0} to start from the beginning); the returned batch carries the
+     * cursor to resume from, so consumers only touch new data.
+     *
+     * @param cursor the last processed global sequence
+     * @param limit  the maximum number of changes to return
+     * @return the next batch of changes
+     * @throws UnsupportedOperationException if {@link #supportsChangeFeed()} returns {@code false}
+     */
+    default OriginalChangeBatch changesSince(long cursor, int limit) {
+        throw new UnsupportedOperationException("Change feed is not supported by " + getClass().getSimpleName());
+    }
+
+    /**
+     * Whether this storage maintains the global append sequence behind {@link #changesSince(long, int)}.
+     *
+     * <p>Callers should check this before reading the change feed instead of relying on the exception.
+     *
+     * @return {@code true} if the change feed is available
+     */
+    default boolean supportsChangeFeed() {
+        return false;
+    }
+
+    /**
+     * Gets the statistics of a session (turn count, sequence range, token estimate, last write time).
+     *
+     * <p>The default implementation scans the whole history; implementations should override it
+     * with a point read of maintained per-session counters.
+     *
+     * @param key the storage key
+     * @return the session statistics, never null
+     */
+    default OriginalSessionStats getStats(String key) {
+        List<MessagePair> pairs = getAll(key);
+        if (pairs.isEmpty()) {
+            return OriginalSessionStats.empty(key);
+        }
+        long totalTokens = 0;
+        for (MessagePair pair : pairs) {
+            totalTokens += TokenCounterUtil.calculateToken(pair.getAllMessages());
+        }
+        return OriginalSessionStats.builder()
+                .storageKey(key)
+                .turnCount(pairs.size())
+                .firstSequence(1)
+                .lastSequence(pairs.size())
+                .totalTokens(totalTokens)
+                .build();
+    }
 }
@@ -53,6 +53,60 @@ public interface WorkingMemoryStorage {
      */
     void save(WorkingMemory workingMemory);
 
+    /**
+     * 只保存对话提交路径维护的 Head / Tail，不覆盖由压缩链路维护的 timingContextWindow 与 pinnedFacts。
+     *
+     * <p>默认实现回退为 {@link #save(WorkingMemory)}，实现类应覆盖为只替换 Head / Tail，
+     * 否则请求路径可能覆盖并发提交的压缩结果。
+     *
+     * @param workingMemory 工作记忆
+     */
+    default void saveHeadAndTail(WorkingMemory workingMemory) {
+        save(workingMemory);
+    }
+
+    /**
+     * 只保存压缩链路修改的区域（timingContextWindow 与 pinnedFacts），不覆盖由对话提交路径维护的 Head / Tail。
+     *
+     * <p>默认实现逐个区域调用单项操作，实现类可以覆盖为一次原子写入，避免读取方看到中间状态。
+     *
+     * @param workingMemory       工作记忆
+     * @param timingContextWindow 是否保存 timingContextWindow
+     * @param pins                是否保存 pinnedFacts
+     */
+    default void saveCompressed(WorkingMemory workingMemory, boolean timingContextWindow, boolean pins) {
+        String conversationId = workingMemory.getConversationId();
+        if (timingContextWindow) {
+            setTimingContextWindow(conversationId, workingMemory.getTimingContextWindow());
+        }
+        if (pins) {
+            for (Pin pin : getAllPins(conversationId)) {
+                deletePin(conversationId, pin.getPinId());
+            }
+            for (Pin pin : workingMemory.getPinnedFacts()) {
+                addPin(conversationId, pin);
+            }
+        }
+    }
+
+    /**
+     * 在 fence 仍成立时保存压缩链路修改的区域，检查与写入原子完成。
+     *
+     * <p>用于把压缩租约带到存储层：检查租约之后、写入之前租约被其他节点取得时，本次写入不会生效。
+     * 默认实现无法原子检查，直接写入并返回 true，实现类应覆盖。
+     *
+     * @param workingMemory       工作记忆
+     * @param timingContextWindow 是否保存 timingContextWindow
+     * @param pins                是否保存 pinnedFacts
+     * @param fence               写入条件，为 null 时不检查
+     * @return 已写入时返回 true，fence 不成立而放弃写入时返回 false
+     */
+    default boolean saveCompressed(WorkingMemory workingMemory, boolean timingContextWindow, boolean pins,
+                                   WriteFence fence) {
+        saveCompressed(workingMemory, timingContextWindow, pins);
+        return true;
+    }
+
     /**
      * 清空指定会话的工作记忆
      *
@@ -183,4 +237,32 @@ public interface WorkingMemoryStorage {
      * @return 如果找到并删除成功返回 true，否则返回 false
      */
     boolean deletePin(String conversationId, String pinId);
+
+    // ==================== 工具结果去重 ====================
+
+    /**
+     * 把消息对中较大的工具结果保存到会话的去重存储，返回只包含引用的副本，供压缩任务队列等外部载荷使用。
+     *
+     * <p>默认实现不去重，原样返回。
+     *
+     * @param conversationId 会话标识符
+     * @param pair           消息对
+     * @return 工具结果替换为引用的消息对
+     */
+    default MessagePair externalizeToolResults(String conversationId, MessagePair pair) {
+        return pair;
+    }
+
+    /**
+     * 还原 {@link #externalizeToolResults} 生成的引用。
+     *
+     * <p>默认实现原样返回。
+     *
+     * @param conversationId 会话标识符
+     * @param pair           消息对
+     * @return 工具结果已还原的消息对
+     */
+    default MessagePair resolveToolResults(String conversationId, MessagePair pair) {
+        return pair;
+    }
 }
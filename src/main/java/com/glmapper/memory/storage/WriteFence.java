@@ -0,0 +1,37 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * A condition that guards a write: the write only takes effect while {@link #getKey()} still holds
+ * {@link #getExpectedValue()}.
+ *
+ * <p>Used to carry a compression lease (and thereby its fencing token) down to the storage, so that a
+ * holder whose lease was taken over cannot overwrite the results of the new holder.
+ */
+@Data
+@AllArgsConstructor
+public class WriteFence {
+
+    /** The key whose value is checked, e.g. the compression lease key of a session. */
+    private String key;
+
+    /** The value the key must still hold for the write to be applied. */
+    private String expectedValue;
+}
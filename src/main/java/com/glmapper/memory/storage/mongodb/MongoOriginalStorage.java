@@ -15,52 +15,175 @@
  */
 package com.glmapper.memory.storage.mongodb;
 
+import com.glmapper.memory.config.ArtisanMemoryProperties;
 import com.glmapper.memory.model.MessagePair;
+import com.glmapper.memory.storage.OriginalChange;
+import com.glmapper.memory.storage.OriginalChangeBatch;
+import com.glmapper.memory.storage.OriginalSearchHit;
+import com.glmapper.memory.storage.OriginalSessionStats;
 import com.glmapper.memory.storage.OriginalStorage;
+import com.glmapper.memory.util.MsgUtils;
+import com.glmapper.memory.util.TextTokenizer;
+import com.glmapper.memory.util.TokenCounterUtil;
+import com.glmapper.memory.util.ToolResultRefs;
+import com.mongodb.client.model.IndexOptions;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.data.mongodb.core.query.Update;
 
 /**
  * MongoDB-based implementation of OriginalStorage using Spring Data MongoDB.
  *
  * <p>Uses Spring Data MongoDB Repository for storing original message pairs,
  * indexed by timestamp for efficient chronological queries.
+ *
+ * <p>Per-session counters (turn count, sequence range, token estimate, last write time) are kept in
+ * {@link OriginalSessionMetaEntity}, so {@link #count(String)} and {@link #getStats(String)} are point reads
+ * instead of counting queries. An append reserves its sequence as a pending turn and counts it only after the
+ * pair is saved; a pending turn left behind by a crash is settled against the documents on the next read.
+ * Reserving uses a pipeline update and therefore requires MongoDB 4.2 or later.
+ *
+ * <p>Full-text search uses a {@code {storageKey: 1, searchText: "text"}} index with language {@code none};
+ * the text is pre-tokenized by {@link TextTokenizer} so that CJK content is searchable as well.
+ *
+ * <p>Every append is also stamped with a global sequence from {@link OriginalSequenceCounterEntity}, which
+ * orders the cross-session change feed served by {@link #changesSince(long, int)}. The counter also tracks which
+ * allocated sequences are still being written, so the feed can tell an in-flight gap from an abandoned one.
+ *
+ * <p>{@link #clear(String)} only resets the counters and records the session's last sequence as the cutoff;
+ * documents are removed in bounded, throttled batches by {@link OriginalHistoryMaintainer}, which also archives
+ * turns older than the configured age. Until the deletion finishes, reads skip documents at or before the cutoff.
+ * The cutoff is a sequence rather than a time, so turns appended concurrently or by a node with a lagging clock
+ * are never hidden or deleted; only legacy documents without a sequence are cut off by time.
+ *
+ * <p>With tool result deduplication enabled, large tool outputs are stored once per session in
+ * {@link OriginalToolResultEntity} and referenced by content hash; every read path resolves the references.
  */
 @Slf4j
-public class MongoOriginalStorage implements OriginalStorage {
+public class MongoOriginalStorage implements OriginalStorage, InitializingBean, DisposableBean {
+
+    private static final String SEARCH_INDEX_NAME = "storageKey_searchText";
+    private static final String GLOBAL_SEQUENCE_INDEX_NAME = "globalSequence";
+    private static final String TEXT_LANGUAGE = "none";
+    private static final String GLOBAL_SEQUENCE_COUNTER = "global";
+    /**
+     * 全局序号分配后记为待写入，变更流遇到待写入的序号时停止；同一序号在本节点持续待写入超过该时长，
+     * 视为写入进程已中断，撤销该序号后越过。写入方发现序号被撤销时会换新序号，变更不会丢失。
+     */
+    private static final long PENDING_SEQUENCE_GRACE_MILLIS = 30_000;
+    /** 写入方因序号被撤销而重新分配序号的最大次数 */
+    private static final int MAX_RESTAMP_ATTEMPTS = 3;
+    /**
+     * 待计数轮次超过该时长仍未确认时，视为写入进程已中断，按文档是否存在补记或丢弃。
+     */
+    private static final long PENDING_TURN_GRACE_MILLIS = 60_000;
 
     private final OriginalMessageRepository repository;
+    private final MongoTemplate mongoTemplate;
+    private final OriginalHistoryMaintainer maintainer;
+    /** 参与去重的工具输出最小长度，0 表示不去重 */
+    private final int dedupMinChars;
+    /** 变更流在本节点首次观察到各待写入序号的时间（单调时钟），不依赖写入节点的时钟 */
+    private final Map<Long, Long> pendingSequenceSeenAt = new ConcurrentHashMap<>();
 
-    public MongoOriginalStorage(OriginalMessageRepository repository) {
+    public MongoOriginalStorage(OriginalMessageRepository repository, MongoTemplate mongoTemplate) {
+        this(repository, mongoTemplate, new ArtisanMemoryProperties.History());
+    }
+
+    public MongoOriginalStorage(OriginalMessageRepository repository, MongoTemplate mongoTemplate,
+                                ArtisanMemoryProperties.History historyConfig) {
+        this(repository, mongoTemplate, historyConfig, new ArtisanMemoryProperties.ToolResultDedup());
+    }
+
+    public MongoOriginalStorage(OriginalMessageRepository repository, MongoTemplate mongoTemplate,
+                                ArtisanMemoryProperties.History historyConfig,
+                                ArtisanMemoryProperties.ToolResultDedup dedupConfig) {
         this.repository = repository;
+        this.mongoTemplate = mongoTemplate;
+        this.maintainer = new OriginalHistoryMaintainer(mongoTemplate, historyConfig);
+        this.dedupMinChars = dedupConfig.isEnabled() ? Math.max(1, dedupConfig.getMinChars()) : 0;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        ensureSearchIndex();
+        ensureGlobalSequenceIndex();
+        maintainer.start();
+    }
+
+    @Override
+    public void destroy() {
+        maintainer.stop();
     }
 
+    /**
+     * 追加消息对。
+     *
+     * <p>先原子预留序号并记为待计数轮次，文档写入成功后再把该轮计入计数。两步之间失败或进程中断时，
+     * 待计数轮次由下一次读取按文档是否存在补记或丢弃，计数不会永久偏差；序号允许出现空洞。
+     */
     @Override
     public void append(String key, MessagePair pair) {
+        long tokens = TokenCounterUtil.calculateToken(pair.getAllMessages());
+        long sequence;
         try {
-            OriginalMessageEntity entity =
-                    new OriginalMessageEntity(key, System.currentTimeMillis(), pair);
-            repository.save(entity);
+            long now = System.currentTimeMillis();
+            sequence = reserveTurn(key, tokens, now);
+            pair.setSequence(sequence);
+            MessagePair stored = externalizeToolResults(key, pair, sequence, now);
+            OriginalMessageEntity entity = new OriginalMessageEntity(key, now, sequence, stored);
+            // 检索文本取自去重后的消息对，已去重的大段工具输出只存一份，不在每个引用它的轮次中重复索引
+            entity.setSearchText(TextTokenizer.toIndexText(MsgUtils.extractPlainText(stored.getAllMessages())));
+            long globalSequence = reserveGlobalSequence();
+            entity.setGlobalSequence(globalSequence);
+            try {
+                repository.save(entity);
+            } catch (Exception e) {
+                releaseGlobalSequence(globalSequence);
+                throw e;
+            }
+            settleGlobalSequence(entity);
             log.debug(
-                    "Appended message pair to original storage: key={}, userMsgId={}",
+                    "Appended message pair to original storage: key={}, sequence={}, userMsgId={}",
                     key,
+                    sequence,
                     pair.getUserMessage() != null ? pair.getUserMessage().getId() : "null");
         } catch (Exception e) {
             log.error("Failed to append message pair to original storage: key={}", key, e);
             throw new RuntimeException("Failed to append message pair to MongoDB", e);
         }
+        confirmTurn(key, sequence, tokens);
     }
 
     @Override
     public List<MessagePair> getAll(String key) {
         try {
-            List<OriginalMessageEntity> entities =
-                    repository.findByStorageKeyOrderByTimestampAsc(key);
+            Query query = Query.query(visibleCriteria(key)).with(Sort.by(Sort.Direction.ASC, "timestamp"));
+            query.fields().exclude("searchText");
+            List<OriginalMessageEntity> entities = mongoTemplate.find(query, OriginalMessageEntity.class);
+            resolveToolResults(entities);
             List<MessagePair> pairs =
                     entities.stream()
                             .map(OriginalMessageEntity::getMessagePair)
@@ -74,11 +197,164 @@ public class MongoOriginalStorage implements OriginalStorage {
         }
     }
 
+    /**
+     * 使用投影排除 {@code messagePair.intermediateMessages} 和 {@code searchText}，工具调用、工具结果及其检索文本不会从 MongoDB 传输。
+     */
+    @Override
+    public List<MessagePair> getInteractionPairs(String key) {
+        try {
+            Query query = Query.query(visibleCriteria(key)).with(Sort.by(Sort.Direction.ASC, "timestamp"));
+            query.fields().exclude("messagePair.intermediateMessages").exclude("searchText");
+            List<MessagePair> pairs = mongoTemplate.find(query, OriginalMessageEntity.class).stream()
+                    .map(OriginalMessageEntity::getMessagePair)
+                    .filter(pair -> pair != null)
+                    .collect(Collectors.toList());
+            log.debug("Retrieved {} interaction pairs from original storage: key={}", pairs.size(), key);
+            return pairs;
+        } catch (Exception e) {
+            log.error("Failed to get interaction pairs from original storage: key={}", key, e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * 基于 MongoDB 文本索引的全文检索，按相关度排序。
+     *
+     * <p>引入全文检索之前写入的消息对没有 {@code searchText}，不会被检索到。
+     */
+    @Override
+    public List<OriginalSearchHit> search(String key, String query, int limit) {
+        List<String> terms = TextTokenizer.tokenize(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        try {
+            TextCriteria textCriteria = TextCriteria.forLanguage(TEXT_LANGUAGE)
+                    .matchingAny(terms.toArray(new String[0]));
+            Query textQuery = TextQuery.queryText(textCriteria).sortByScore().includeScore()
+                    .addCriteria(visibleCriteria(key))
+                    .limit(limit);
+            textQuery.fields().exclude("searchText");
+            List<OriginalMessageEntity> entities = mongoTemplate.find(textQuery, OriginalMessageEntity.class);
+            resolveToolResults(entities);
+            List<OriginalSearchHit> hits = entities.stream()
+                    .filter(entity -> entity.getMessagePair() != null)
+                    .map(entity -> new OriginalSearchHit(
+                            entity.getSequence(),
+                            entity.getScore() != null ? entity.getScore() : 0.0,
+                            entity.getMessagePair()))
+                    .collect(Collectors.toList());
+            log.debug("Searched original storage: key={}, terms={}, hits={}", key, terms.size(), hits.size());
+            return hits;
+        } catch (Exception e) {
+            log.error("Failed to search original storage: key={}", key, e);
+            return new ArrayList<>();
+        }
+    }
+
+    @Override
+    public boolean supportsChangeFeed() {
+        return true;
+    }
+
+    /**
+     * 按全局序号读取变更。
+     *
+     * <p>全局序号在写入消息对之前分配，并发写入时较大的序号可能先于较小的序号可见。
+     * 先读取计数器快照再读取文档：快照中仍待写入的序号形成的空洞会让本批次在此停止，
+     * 已不在待写入集合中的空洞（写入失败、已删除或已换号）直接越过。待写入序号在本节点等待超过
+     * {@link #PENDING_SEQUENCE_GRACE_MILLIS} 后被撤销，判断只依赖计数器状态和本节点的单调时钟，不比较写入节点的时钟。
+     *
+     * <p>已被 {@link #clear(String)} 隐藏的轮次不会返回，但游标仍会越过它们。读取失败时抛出异常，
+     * 消费者不会把失败误认为没有新变更。
+     */
+    @Override
+    public OriginalChangeBatch changesSince(long cursor, int limit) {
+        if (limit <= 0) {
+            return new OriginalChangeBatch(new ArrayList<>(), cursor);
+        }
+        try {
+            OriginalSequenceCounterEntity counter =
+                    mongoTemplate.findById(GLOBAL_SEQUENCE_COUNTER, OriginalSequenceCounterEntity.class);
+            if (counter == null || counter.getValue() <= cursor) {
+                return new OriginalChangeBatch(new ArrayList<>(), cursor);
+            }
+            List<Long> pending = counter.getPending() != null
+                    ? counter.getPending().stream().sorted().collect(Collectors.toList())
+                    : new ArrayList<>();
+            // 快照之后分配的序号不在 pending 中，只读取快照范围内的文档，避免误把它们的空洞当作已结束
+            Query query = Query.query(Criteria.where("globalSequence").gt(cursor).lte(counter.getValue()))
+                    .with(Sort.by(Sort.Direction.ASC, "globalSequence"))
+                    .limit(limit);
+            query.fields().exclude("searchText");
+            List<OriginalMessageEntity> entities = mongoTemplate.find(query, OriginalMessageEntity.class);
+
+            List<OriginalMessageEntity> visible = new ArrayList<>();
+            Map<String, OriginalSessionMetaEntity> clearMarks = new HashMap<>();
+            long nextCursor = cursor;
+            for (OriginalMessageEntity entity : entities) {
+                long globalSequence = entity.getGlobalSequence();
+                if (!canPassGap(nextCursor, globalSequence, pending)) {
+                    log.debug("Change feed stopped at pending sequence: cursor={}, found={}", nextCursor, globalSequence);
+                    break;
+                }
+                nextCursor = globalSequence;
+                OriginalSessionMetaEntity meta =
+                        clearMarks.computeIfAbsent(entity.getStorageKey(), this::loadClearMarks);
+                if (!OriginalHistoryMaintainer.isCleared(entity, meta)) {
+                    visible.add(entity);
+                }
+            }
+            long resolvedCursor = nextCursor;
+            pendingSequenceSeenAt.keySet().removeIf(sequence -> sequence <= resolvedCursor);
+            resolveToolResults(visible);
+
+            List<OriginalChange> changes = new ArrayList<>();
+            for (OriginalMessageEntity entity : visible) {
+                changes.add(OriginalChange.builder()
+                        .globalSequence(entity.getGlobalSequence())
+                        .storageKey(entity.getStorageKey())
+                        .sequence(entity.getSequence())
+                        .timestamp(entity.getTimestamp())
+                        .messagePair(entity.getMessagePair())
+                        .build());
+            }
+            log.debug("Read {} changes from original storage: cursor={}, nextCursor={}", changes.size(), cursor, nextCursor);
+            return new OriginalChangeBatch(changes, nextCursor);
+        } catch (Exception e) {
+            log.error("Failed to read change feed of original storage: cursor={}", cursor, e);
+            throw new RuntimeException("Failed to read change feed from MongoDB", e);
+        }
+    }
+
+    /**
+     * 清空会话的原始历史。
+     *
+     * <p>同步部分在一次原子更新中重置计数，并把当前的 {@code lastSequence} 记为截止序号，
+     * 序号不大于截止序号的文档立即对读取不可见，实际删除交给后台分批执行。
+     * 截止条件不依赖时钟，同一毫秒内或由时钟偏慢的节点写入的新轮次不会被误删；
+     * 清空时间只用于没有序号的历史文档。{@code lastSequence} 保持不变，清空后的新轮次序号继续递增。
+     */
     @Override
     public void clear(String key) {
         try {
-            repository.deleteByStorageKey(key);
-            log.debug("Cleared original storage: key={}", key);
+            long now = System.currentTimeMillis();
+            ensureMeta(key);
+            Document set = new Document("turnCount", 0L)
+                    .append("totalTokens", 0L)
+                    .append("firstSequence", new Document("$add", List.of("$lastSequence", 1L)))
+                    .append("clearedSequence", "$lastSequence")
+                    .append("clearedBefore", now)
+                    .append("deletionPending", true)
+                    .append("pendingTurns", List.of());
+            AggregationUpdate update = AggregationUpdate.from(List.of(context -> new Document("$set", set)));
+            OriginalSessionMetaEntity meta = mongoTemplate.findAndModify(metaQuery(key), update,
+                    FindAndModifyOptions.options().returnNew(true), OriginalSessionMetaEntity.class);
+            if (meta == null) {
+                throw new IllegalStateException("Session meta of original storage not found: " + key);
+            }
+            maintainer.submitDeletion(key, meta.getClearedSequence(), now);
+            log.debug("Cleared original storage: key={}, cutoffSequence={}", key, meta.getClearedSequence());
         } catch (Exception e) {
             log.error("Failed to clear original storage: key={}", key, e);
         }
@@ -87,13 +363,53 @@ public class MongoOriginalStorage implements OriginalStorage {
     @Override
     public long count(String key) {
         try {
-            return repository.countByStorageKey(key);
+            return loadMeta(key).getTurnCount();
         } catch (Exception e) {
             log.error("Failed to count message pairs in original storage: key={}", key, e);
             return 0;
         }
     }
 
+    @Override
+    public OriginalSessionStats getStats(String key) {
+        try {
+            OriginalSessionMetaEntity meta = loadMeta(key);
+            if (meta.getTurnCount() == 0) {
+                return OriginalSessionStats.empty(key);
+            }
+            return OriginalSessionStats.builder()
+                    .storageKey(key)
+                    .turnCount(meta.getTurnCount())
+                    .firstSequence(meta.getFirstSequence())
+                    .lastSequence(meta.getLastSequence())
+                    .totalTokens(meta.getTotalTokens())
+                    .lastWriteTime(meta.getLastWriteTime())
+                    .build();
+        } catch (Exception e) {
+            log.error("Failed to get stats of original storage: key={}", key, e);
+            return OriginalSessionStats.empty(key);
+        }
+    }
+
+    @Override
+    public List<MessagePair> getSequenceRange(String key, long fromSequence, long toSequence) {
+        try {
+            Query query = Query.query(visibleCriteria(key).and("sequence").gte(fromSequence).lte(toSequence))
+                    .with(Sort.by(Sort.Direction.ASC, "sequence"));
+            query.fields().exclude("searchText");
+            List<OriginalMessageEntity> entities = mongoTemplate.find(query, OriginalMessageEntity.class);
+            resolveToolResults(entities);
+            return entities.stream()
+                    .map(OriginalMessageEntity::getMessagePair)
+                    .filter(pair -> pair != null)
+                    .collect(Collectors.toList());
+        } catch (Exception e) {
+            log.error("Failed to get sequence range from original storage: key={}, from={}, to={}",
+                    key, fromSequence, toSequence, e);
+            return new ArrayList<>();
+        }
+    }
+
     @Override
     public List<MessagePair> getRange(String key, int offset, int limit) {
         try {
@@ -103,7 +419,10 @@ public class MongoOriginalStorage implements OriginalStorage {
             
             PageRequest pageRequest =
                     PageRequest.of(pageNumber, limit, Sort.by(Sort.Direction.ASC, "timestamp"));
-            List<OriginalMessageEntity> entities = repository.findByStorageKey(key, pageRequest);
+            Criteria visible = visibleCriteria(key);
+            List<OriginalMessageEntity> entities =
+                    mongoTemplate.find(pageQuery(visible, pageRequest), OriginalMessageEntity.class);
+            resolveToolResults(entities);
             
             // If offset is not a multiple of limit, skip additional items within the page
             // and potentially fetch more pages to ensure we return exactly 'limit' items
@@ -120,8 +439,9 @@ public class MongoOriginalStorage implements OriginalStorage {
                     int remainingNeeded = limit - allPairs.size();
                     PageRequest nextPageRequest =
                             PageRequest.of(pageNumber + 1, limit, Sort.by(Sort.Direction.ASC, "timestamp"));
-                    List<OriginalMessageEntity> nextPageEntities = 
-                            repository.findByStorageKey(key, nextPageRequest);
+                    List<OriginalMessageEntity> nextPageEntities =
+                            mongoTemplate.find(pageQuery(visible, nextPageRequest), OriginalMessageEntity.class);
+                    resolveToolResults(nextPageEntities);
                     
                     allPairs.addAll(nextPageEntities.stream()
                             .limit(remainingNeeded)
@@ -149,4 +469,402 @@ public class MongoOriginalStorage implements OriginalStorage {
             return new ArrayList<>();
         }
     }
+
+    private Query pageQuery(Criteria criteria, PageRequest pageRequest) {
+        Query query = Query.query(criteria).with(pageRequest);
+        query.fields().exclude("searchText");
+        return query;
+    }
+
+    /**
+     * 读取会话已归档的消息对（按时间顺序）。归档的轮次不再出现在其他读取方法中。
+     *
+     * @param key 存储键
+     * @return 归档的消息对
+     */
+    public List<MessagePair> getArchivedPairs(String key) {
+        try {
+            List<MessagePair> pairs = maintainer.getArchivedPairs(key);
+            List<OriginalMessageEntity> entities = new ArrayList<>(pairs.size());
+            for (MessagePair pair : pairs) {
+                entities.add(new OriginalMessageEntity(key, null, pair));
+            }
+            resolveToolResults(entities);
+            return entities.stream().map(OriginalMessageEntity::getMessagePair).collect(Collectors.toList());
+        } catch (Exception e) {
+            log.error("Failed to get archived message pairs from original storage: key={}", key, e);
+            return new ArrayList<>();
+        }
+    }
+
+    // ==================== 工具结果去重 ====================
+
+    /**
+     * 把较大的工具输出按内容哈希写入去重集合，返回只包含引用的副本；全文检索文本仍由完整的消息对生成。
+     */
+    private MessagePair externalizeToolResults(String key, MessagePair pair, long sequence, long now) {
+        if (dedupMinChars <= 0) {
+            return pair;
+        }
+        Map<String, String> results = new HashMap<>();
+        MessagePair externalized = ToolResultRefs.externalize(pair, dedupMinChars, results);
+        for (Map.Entry<String, String> result : results.entrySet()) {
+            Update update = new Update()
+                    .setOnInsert("storageKey", key)
+                    .setOnInsert("contentHash", result.getKey())
+                    .setOnInsert("content", result.getValue())
+                    .set("lastReferencedAt", now)
+                    .max("lastReferencedSequence", sequence);
+            mongoTemplate.upsert(Query.query(Criteria.where("_id").is(OriginalToolResultEntity.idOf(key, result.getKey()))),
+                    update, OriginalToolResultEntity.class);
+        }
+        return externalized;
+    }
+
+    /**
+     * 还原实体中消息对引用的工具输出，所有实体的引用用一次查询读取。
+     */
+    private void resolveToolResults(List<OriginalMessageEntity> entities) {
+        Set<String> ids = new HashSet<>();
+        for (OriginalMessageEntity entity : entities) {
+            for (String hash : ToolResultRefs.referencedHashes(entity.getMessagePair())) {
+                ids.add(OriginalToolResultEntity.idOf(entity.getStorageKey(), hash));
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        Map<String, String> contentById = new HashMap<>();
+        for (OriginalToolResultEntity result : mongoTemplate.find(
+                Query.query(Criteria.where("_id").in(ids)), OriginalToolResultEntity.class)) {
+            contentById.put(result.getId(), result.getContent());
+        }
+        if (contentById.size() < ids.size()) {
+            log.warn("Missing deduplicated tool results in original storage: missing={}", ids.size() - contentById.size());
+        }
+        for (OriginalMessageEntity entity : entities) {
+            Map<String, String> results = new HashMap<>();
+            for (String hash : ToolResultRefs.referencedHashes(entity.getMessagePair())) {
+                String content = contentById.get(OriginalToolResultEntity.idOf(entity.getStorageKey(), hash));
+                if (content != null) {
+                    results.put(hash, content);
+                }
+            }
+            entity.setMessagePair(ToolResultRefs.resolve(entity.getMessagePair(), results));
+        }
+    }
+
+    // ==================== 索引 ====================
+
+    /**
+     * 创建全文检索索引。
+     *
+     * <p>文本索引需要指定 default_language，注解方式无法表达，因此在启动时显式创建（已存在时为幂等操作）。
+     */
+    private void ensureSearchIndex() {
+        try {
+            Document keys = new Document("storageKey", 1).append("searchText", "text");
+            IndexOptions options = new IndexOptions().name(SEARCH_INDEX_NAME).defaultLanguage(TEXT_LANGUAGE);
+            mongoTemplate.getCollection(mongoTemplate.getCollectionName(OriginalMessageEntity.class))
+                    .createIndex(keys, options);
+        } catch (Exception e) {
+            log.warn("Failed to ensure search index of original storage, full-text search may be unavailable", e);
+        }
+    }
+
+    private void ensureGlobalSequenceIndex() {
+        try {
+            IndexOptions options = new IndexOptions().name(GLOBAL_SEQUENCE_INDEX_NAME).unique(true).sparse(true);
+            mongoTemplate.getCollection(mongoTemplate.getCollectionName(OriginalMessageEntity.class))
+                    .createIndex(new Document("globalSequence", 1), options);
+        } catch (Exception e) {
+            log.warn("Failed to ensure global sequence index of original storage, change feed may be slow", e);
+        }
+    }
+
+    /**
+     * 分配全局追加序号（跨会话单调递增），并在同一次更新中把它记为待写入。
+     */
+    private long reserveGlobalSequence() {
+        Document nextValue = new Document("$add", List.of(new Document("$ifNull", List.of("$value", 0L)), 1L));
+        Document set = new Document("value", nextValue)
+                .append("pending", new Document("$concatArrays", List.of(
+                        new Document("$ifNull", List.of("$pending", List.of())), List.of(nextValue))));
+        AggregationUpdate update = AggregationUpdate.from(List.of(context -> new Document("$set", set)));
+        OriginalSequenceCounterEntity counter = mongoTemplate.findAndModify(
+                globalCounterQuery(),
+                update,
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                OriginalSequenceCounterEntity.class);
+        if (counter == null) {
+            throw new IllegalStateException("Failed to allocate global sequence of original storage");
+        }
+        return counter.getValue();
+    }
+
+    /**
+     * 把全局序号移出待写入集合。
+     *
+     * @return 序号仍处于待写入状态并被本次移出时返回 true；已被变更流撤销时返回 false
+     */
+    private boolean releaseGlobalSequence(long globalSequence) {
+        try {
+            Query query = globalCounterQuery().addCriteria(Criteria.where("pending").is(globalSequence));
+            return mongoTemplate.updateFirst(query, new Update().pull("pending", globalSequence),
+                    OriginalSequenceCounterEntity.class).getModifiedCount() > 0;
+        } catch (Exception e) {
+            log.warn("Failed to release global sequence of original storage: globalSequence={}", globalSequence, e);
+            return false;
+        }
+    }
+
+    /**
+     * 文档写入后结束其全局序号的待写入状态。序号已被变更流撤销时（写入耗时超过等待时长），
+     * 变更流可能已越过该序号，改用新分配的序号，保证变更仍会被消费者读到。
+     */
+    private void settleGlobalSequence(OriginalMessageEntity entity) {
+        for (int attempt = 0; attempt < MAX_RESTAMP_ATTEMPTS; attempt++) {
+            if (releaseGlobalSequence(entity.getGlobalSequence())) {
+                return;
+            }
+            long restamped = reserveGlobalSequence();
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(entity.getId())),
+                    Update.update("globalSequence", restamped), OriginalMessageEntity.class);
+            log.warn("Global sequence was revoked by change feed, restamped: key={}, from={}, to={}",
+                    entity.getStorageKey(), entity.getGlobalSequence(), restamped);
+            entity.setGlobalSequence(restamped);
+        }
+        log.warn("Failed to settle global sequence of original storage, change feed will revoke it: key={}, globalSequence={}",
+                entity.getStorageKey(), entity.getGlobalSequence());
+    }
+
+    /**
+     * 判断变更流能否越过 (from, to) 之间的序号空洞。
+     *
+     * <p>空洞中不在待写入快照里的序号已经结束（写入失败、已删除或已换号），可以越过；
+     * 仍待写入的序号只有在本节点等待超时并被成功撤销、且撤销时文档确实不存在时才越过。
+     */
+    private boolean canPassGap(long from, long to, List<Long> pending) {
+        for (Long sequence : pending) {
+            if (sequence <= from) {
+                continue;
+            }
+            if (sequence >= to) {
+                break;
+            }
+            if (!revokePendingSequence(sequence)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean revokePendingSequence(long globalSequence) {
+        long now = System.nanoTime();
+        Long seenAt = pendingSequenceSeenAt.putIfAbsent(globalSequence, now);
+        if (seenAt == null || now - seenAt < TimeUnit.MILLISECONDS.toNanos(PENDING_SEQUENCE_GRACE_MILLIS)) {
+            return false;
+        }
+        if (!releaseGlobalSequence(globalSequence)) {
+            // 写入方刚好完成，下一次读取时文档可见
+            return false;
+        }
+        pendingSequenceSeenAt.remove(globalSequence);
+        boolean written = mongoTemplate.exists(
+                Query.query(Criteria.where("globalSequence").is(globalSequence)), OriginalMessageEntity.class);
+        log.warn("Revoked pending global sequence of original storage: globalSequence={}, written={}",
+                globalSequence, written);
+        // 文档已存在时不越过，下一次读取按连续序号返回
+        return !written;
+    }
+
+    private Query globalCounterQuery() {
+        return Query.query(Criteria.where("_id").is(GLOBAL_SEQUENCE_COUNTER));
+    }
+
+    // ==================== 会话元数据 ====================
+
+    /**
+     * 原子分配本轮序号，并把本轮记为待计数轮次。
+     *
+     * <p>序号和待计数记录需要在同一次更新中引用递增后的 {@code lastSequence}，因此使用管道更新。
+     */
+    private long reserveTurn(String key, long tokens, long now) {
+        Document nextSequence = new Document("$add", List.of(new Document("$ifNull", List.of("$lastSequence", 0L)), 1L));
+        Document pendingTurn = new Document("sequence", nextSequence).append("tokens", tokens).append("createdAt", now);
+        Document set = new Document("lastSequence", nextSequence)
+                .append("lastWriteTime", now)
+                .append("pendingTurns", new Document("$concatArrays", List.of(
+                        new Document("$ifNull", List.of("$pendingTurns", List.of())), List.of(pendingTurn))));
+        AggregationUpdate update = AggregationUpdate.from(List.of(context -> new Document("$set", set)));
+        FindAndModifyOptions options = FindAndModifyOptions.options().returnNew(true);
+        OriginalSessionMetaEntity meta =
+                mongoTemplate.findAndModify(metaQuery(key), update, options, OriginalSessionMetaEntity.class);
+        if (meta == null) {
+            // 会话首次写入（或历史会话尚未回填），初始化后重试
+            ensureMeta(key);
+            meta = mongoTemplate.findAndModify(metaQuery(key), update, options, OriginalSessionMetaEntity.class);
+        }
+        if (meta == null) {
+            throw new IllegalStateException("Session meta of original storage not found: " + key);
+        }
+        return meta.getLastSequence();
+    }
+
+    /**
+     * 把待计数轮次计入会话计数。只有待计数记录仍存在时才生效，重复确认或清空之后的确认不会重复计数。
+     * 失败时只记录日志，留给读取时的补偿处理。
+     */
+    private void confirmTurn(String key, long sequence, long tokens) {
+        try {
+            Query query = Query.query(Criteria.where("_id").is(key).and("pendingTurns.sequence").is(sequence));
+            Update update = new Update()
+                    .inc("turnCount", 1)
+                    .inc("totalTokens", tokens)
+                    .pull("pendingTurns", new Document("sequence", sequence));
+            mongoTemplate.updateFirst(query, update, OriginalSessionMetaEntity.class);
+        } catch (Exception e) {
+            log.warn("Failed to count appended turn of original storage, will reconcile on read: key={}, sequence={}",
+                    key, sequence, e);
+        }
+    }
+
+    private void discardTurn(String key, long sequence) {
+        mongoTemplate.updateFirst(metaQuery(key), new Update().pull("pendingTurns", new Document("sequence", sequence)),
+                OriginalSessionMetaEntity.class);
+    }
+
+    /**
+     * 读取会话元数据。
+     *
+     * <p>会话没有元数据（引入元数据之前写入的历史会话）时一次性回填并保存，与追加路径使用相同的 setOnInsert，
+     * 之后的读取都是单点查询；没有任何文档的会话不创建元数据。
+     * 此外只有存在超时的待计数轮次时才会写入，用于补偿追加过程中断留下的记录。
+     */
+    private OriginalSessionMetaEntity loadMeta(String key) {
+        OriginalSessionMetaEntity meta = mongoTemplate.findById(key, OriginalSessionMetaEntity.class);
+        if (meta == null) {
+            if (repository.countByStorageKey(key) == 0) {
+                OriginalSessionMetaEntity empty = new OriginalSessionMetaEntity();
+                empty.setStorageKey(key);
+                return empty;
+            }
+            ensureMeta(key);
+            meta = mongoTemplate.findById(key, OriginalSessionMetaEntity.class);
+            return meta != null ? meta : metaFromDocuments(key);
+        }
+        if (reconcilePendingTurns(key, meta)) {
+            OriginalSessionMetaEntity reloaded = mongoTemplate.findById(key, OriginalSessionMetaEntity.class);
+            return reloaded != null ? reloaded : meta;
+        }
+        return meta;
+    }
+
+    /**
+     * 处理超时的待计数轮次：文档已写入则补记计数，否则丢弃。
+     *
+     * @return 是否修改了元数据
+     */
+    private boolean reconcilePendingTurns(String key, OriginalSessionMetaEntity meta) {
+        if (meta.getPendingTurns() == null || meta.getPendingTurns().isEmpty()) {
+            return false;
+        }
+        long deadline = System.currentTimeMillis() - PENDING_TURN_GRACE_MILLIS;
+        boolean changed = false;
+        for (OriginalSessionMetaEntity.PendingTurn turn : meta.getPendingTurns()) {
+            if (turn.getCreatedAt() >= deadline) {
+                continue;
+            }
+            boolean saved = mongoTemplate.exists(
+                    Query.query(Criteria.where("storageKey").is(key).and("sequence").is(turn.getSequence())),
+                    OriginalMessageEntity.class);
+            if (saved) {
+                confirmTurn(key, turn.getSequence(), turn.getTokens());
+            } else {
+                discardTurn(key, turn.getSequence());
+            }
+            log.info("Reconciled pending turn of original storage: key={}, sequence={}, saved={}",
+                    key, turn.getSequence(), saved);
+            changed = true;
+        }
+        return changed;
+    }
+
+    /**
+     * 确保会话元数据文档存在。
+     *
+     * <p>引入元数据之前写入的会话需要一次性从已有文档回填计数，之后只做原子更新。
+     * 使用 setOnInsert 保证并发初始化时只有一个写入生效。
+     */
+    private void ensureMeta(String key) {
+        if (mongoTemplate.exists(metaQuery(key), OriginalSessionMetaEntity.class)) {
+            return;
+        }
+        OriginalSessionMetaEntity backfill = metaFromDocuments(key);
+        Update update = new Update()
+                .setOnInsert("turnCount", backfill.getTurnCount())
+                .setOnInsert("firstSequence", backfill.getFirstSequence())
+                .setOnInsert("lastSequence", backfill.getLastSequence())
+                .setOnInsert("totalTokens", backfill.getTotalTokens())
+                .setOnInsert("lastWriteTime", backfill.getLastWriteTime());
+        mongoTemplate.upsert(metaQuery(key), update, OriginalSessionMetaEntity.class);
+        if (backfill.getTurnCount() > 0) {
+            log.info("Initialized session meta of original storage from history: key={}, turnCount={}",
+                    key, backfill.getTurnCount());
+        }
+    }
+
+    /**
+     * 从已有文档计算会话计数（不写入）。按时间顺序流式读取，不传输全文检索文本。
+     */
+    private OriginalSessionMetaEntity metaFromDocuments(String key) {
+        OriginalSessionMetaEntity meta = new OriginalSessionMetaEntity();
+        meta.setStorageKey(key);
+        meta.setFirstSequence(1L);
+        long turnCount = 0;
+        long totalTokens = 0;
+        Query query = Query.query(Criteria.where("storageKey").is(key)).with(Sort.by(Sort.Direction.ASC, "timestamp"));
+        query.fields().exclude("searchText");
+        try (Stream<OriginalMessageEntity> entities = mongoTemplate.stream(query, OriginalMessageEntity.class)) {
+            for (OriginalMessageEntity entity : (Iterable<OriginalMessageEntity>) entities::iterator) {
+                turnCount++;
+                if (entity.getMessagePair() != null) {
+                    totalTokens += TokenCounterUtil.calculateToken(entity.getMessagePair().getAllMessages());
+                }
+                meta.setLastWriteTime(entity.getTimestamp());
+            }
+        }
+        meta.setTurnCount(turnCount);
+        meta.setLastSequence(turnCount);
+        meta.setTotalTokens(totalTokens);
+        return meta;
+    }
+
+    /**
+     * 返回会话可见文档的查询条件，排除最近一次清空之前的文档。
+     */
+    private Criteria visibleCriteria(String key) {
+        OriginalSessionMetaEntity meta = loadClearMarks(key);
+        Criteria criteria = Criteria.where("storageKey").is(key);
+        if (meta == null || meta.getClearedBefore() == null) {
+            return criteria;
+        }
+        if (meta.getClearedSequence() == null) {
+            // 序号截止引入之前的清空，只能按时间判断
+            return criteria.and("timestamp").gt(meta.getClearedBefore());
+        }
+        return criteria.orOperator(
+                Criteria.where("sequence").gt(meta.getClearedSequence()),
+                Criteria.where("sequence").exists(false).and("timestamp").gt(meta.getClearedBefore()));
+    }
+
+    private OriginalSessionMetaEntity loadClearMarks(String key) {
+        Query query = metaQuery(key);
+        query.fields().include("clearedBefore").include("clearedSequence");
+        return mongoTemplate.findOne(query, OriginalSessionMetaEntity.class);
+    }
+
+    private Query metaQuery(String key) {
+        return Query.query(Criteria.where("_id").is(key));
+    }
 }
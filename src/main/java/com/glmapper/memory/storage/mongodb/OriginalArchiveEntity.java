@@ -0,0 +1,45 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.storage.mongodb;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * MongoDB entity holding a compressed chunk of archived original message pairs.
+ *
+ * <p>Each document contains one batch of turns of a single session, serialized as a JSON array of
+ * {@link OriginalMessageEntity} and gzip-compressed into {@code payload}. The sequence and timestamp
+ * bounds allow archives to be located without decompressing them.
+ */
+@Document(collection = "artisan_original_archive")
+@CompoundIndex(name = "storageKey_fromTimestamp", def = "{'storageKey': 1, 'fromTimestamp': 1}")
+@Data
+public class OriginalArchiveEntity {
+
+    @Id
+    private String id;
+    private String storageKey;
+    private Long fromSequence;
+    private Long toSequence;
+    private Long fromTimestamp;
+    private Long toTimestamp;
+    private int count;
+    private long archivedAt;
+    private byte[] payload;
+}
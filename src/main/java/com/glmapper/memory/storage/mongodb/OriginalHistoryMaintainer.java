@@ -0,0 +1,408 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.storage.mongodb;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.glmapper.memory.config.ArtisanMemoryProperties;
+import com.glmapper.memory.model.MessagePair;
+import com.glmapper.memory.util.TokenCounterUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 原始历史的后台维护：分批删除和按年龄归档。
+ *
+ * <p>所有维护任务在同一个守护线程上串行执行：
+ * <ul>
+ *   <li>删除：{@link #submitDeletion(String, Long, long)} 提交后，按 {@code _id} 分批删除
+ *       {@code sequence <= cutoffSequence} 的文档（没有序号的历史文档按清空时间判断），
+ *       每批之间休眠，避免单次大删除拉高副本延迟。</li>
+ *   <li>归档：按固定间隔扫描超过最大年龄的文档，按会话分组后 gzip 压缩写入
+ *       {@link OriginalArchiveEntity}，再从热集合删除并同步更新会话计数。
+ *       归档需要持有 {@link OriginalMaintenanceLeaseEntity} 租约，同一时间只有一个节点执行，
+ *       避免多个节点重复归档同一批文档。</li>
+ * </ul>
+ *
+ * <p>未完成的删除记录在会话元数据的 {@code deletionPending} 上，启动时会自动恢复。
+ * 归档先写归档文档再删除热数据，中途失败最多导致重复归档，不会丢数据。
+ */
+@Slf4j
+public class OriginalHistoryMaintainer {
+
+    private final MongoTemplate mongoTemplate;
+    private final ArtisanMemoryProperties.History config;
+    private final ObjectMapper objectMapper;
+    private final ScheduledExecutorService executor;
+    private final String nodeId;
+
+    private static final String ARCHIVE_LEASE = "archive";
+    /**
+     * 归档租约的有效期，每批归档前续约；节点中途退出时，租约过期后其他节点才能接手。
+     */
+    private static final long ARCHIVE_LEASE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    public OriginalHistoryMaintainer(MongoTemplate mongoTemplate, ArtisanMemoryProperties.History config) {
+        this.mongoTemplate = mongoTemplate;
+        this.config = config;
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+        this.objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.nodeId = ManagementFactory.getRuntimeMXBean().getName() + ":"
+                + UUID.randomUUID().toString().substring(0, 8);
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "artisan-history-maintainer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 启动维护线程：恢复未完成的删除，并按配置启动归档任务。
+     */
+    public void start() {
+        executor.execute(this::resumePendingDeletions);
+        ArtisanMemoryProperties.Archive archive = config.getArchive();
+        if (archive.isEnabled()) {
+            long interval = Math.max(1, archive.getIntervalMinutes());
+            executor.scheduleWithFixedDelay(this::archiveExpired, interval, interval, TimeUnit.MINUTES);
+            log.info("[MEMORY]-[HISTORY] Archival enabled: maxAgeDays={}, intervalMinutes={}",
+                    archive.getMaxAgeDays(), interval);
+        }
+    }
+
+    /**
+     * 停止维护线程。未完成的删除会在下次启动时恢复。
+     */
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 提交后台删除任务：删除会话中序号不大于截止序号的所有消息对及归档。
+     *
+     * @param storageKey     存储键
+     * @param cutoffSequence 截止序号，为 null 时（序号截止引入之前的清空）只按时间判断
+     * @param clearedAt      清空时间（毫秒），只用于没有序号的文档
+     */
+    public void submitDeletion(String storageKey, Long cutoffSequence, long clearedAt) {
+        executor.execute(() -> deleteSession(storageKey, cutoffSequence, clearedAt));
+    }
+
+    /**
+     * 返回会话中已被清空的文档条件。
+     *
+     * @param storageKey     存储键
+     * @param cutoffSequence 截止序号，为 null 时只按时间判断
+     * @param clearedAt      清空时间（毫秒）
+     * @return 查询条件
+     */
+    static Criteria clearedCriteria(String storageKey, Long cutoffSequence, long clearedAt) {
+        Criteria criteria = Criteria.where("storageKey").is(storageKey);
+        if (cutoffSequence == null) {
+            return criteria.and("timestamp").lte(clearedAt);
+        }
+        return criteria.orOperator(
+                Criteria.where("sequence").lte(cutoffSequence),
+                Criteria.where("sequence").exists(false).and("timestamp").lte(clearedAt));
+    }
+
+    /**
+     * 判断文档是否已被清空，与 {@link #clearedCriteria(String, Long, long)} 一致。
+     */
+    static boolean isCleared(OriginalMessageEntity entity, OriginalSessionMetaEntity meta) {
+        if (meta == null || meta.getClearedBefore() == null) {
+            return false;
+        }
+        if (meta.getClearedSequence() != null && entity.getSequence() != null) {
+            return entity.getSequence() <= meta.getClearedSequence();
+        }
+        return entity.getTimestamp() != null && entity.getTimestamp() <= meta.getClearedBefore();
+    }
+
+    /**
+     * 读取会话已归档的消息对，按时间顺序返回。
+     *
+     * @param storageKey 存储键
+     * @return 归档的消息对
+     */
+    public List<MessagePair> getArchivedPairs(String storageKey) {
+        Query query = Query.query(Criteria.where("storageKey").is(storageKey))
+                .with(Sort.by(Sort.Direction.ASC, "fromTimestamp"));
+        List<MessagePair> pairs = new ArrayList<>();
+        for (OriginalArchiveEntity archive : mongoTemplate.find(query, OriginalArchiveEntity.class)) {
+            for (OriginalMessageEntity entity : decompress(archive.getPayload())) {
+                if (entity.getMessagePair() != null) {
+                    pairs.add(entity.getMessagePair());
+                }
+            }
+        }
+        return pairs;
+    }
+
+    // ==================== 删除 ====================
+
+    private void resumePendingDeletions() {
+        try {
+            Query query = Query.query(Criteria.where("deletionPending").is(true));
+            for (OriginalSessionMetaEntity meta : mongoTemplate.find(query, OriginalSessionMetaEntity.class)) {
+                if (meta.getClearedBefore() != null) {
+                    log.info("[MEMORY]-[HISTORY] Resuming pending deletion: key={}", meta.getStorageKey());
+                    submitDeletion(meta.getStorageKey(), meta.getClearedSequence(), meta.getClearedBefore());
+                }
+            }
+        } catch (Exception e) {
+            log.error("[MEMORY]-[HISTORY] Failed to resume pending deletions", e);
+        }
+    }
+
+    private void deleteSession(String storageKey, Long cutoffSequence, long clearedAt) {
+        try {
+            long deleted = deleteInBatches(clearedCriteria(storageKey, cutoffSequence, clearedAt));
+            // 清空之后写入的轮次会提高 lastReferencedSequence，仍被引用的工具输出不会删除
+            if (cutoffSequence == null) {
+                mongoTemplate.remove(Query.query(Criteria.where("storageKey").is(storageKey)
+                        .and("toTimestamp").lte(clearedAt)), OriginalArchiveEntity.class);
+                mongoTemplate.remove(Query.query(Criteria.where("storageKey").is(storageKey)
+                        .and("lastReferencedAt").lte(clearedAt)), OriginalToolResultEntity.class);
+            } else {
+                mongoTemplate.remove(Query.query(Criteria.where("storageKey").is(storageKey).orOperator(
+                        Criteria.where("toSequence").lte(cutoffSequence),
+                        Criteria.where("toSequence").exists(false).and("toTimestamp").lte(clearedAt))),
+                        OriginalArchiveEntity.class);
+                mongoTemplate.remove(Query.query(Criteria.where("storageKey").is(storageKey).orOperator(
+                        Criteria.where("lastReferencedSequence").lte(cutoffSequence),
+                        Criteria.where("lastReferencedSequence").exists(false).and("lastReferencedAt").lte(clearedAt))),
+                        OriginalToolResultEntity.class);
+            }
+            // 删除期间如果再次清空，清空时间会变化，由后提交的任务负责清除标记
+            mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(storageKey).and("clearedBefore").is(clearedAt)),
+                    new Update().unset("deletionPending"),
+                    OriginalSessionMetaEntity.class);
+            log.info("[MEMORY]-[HISTORY] Deleted original history: key={}, documents={}", storageKey, deleted);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("[MEMORY]-[HISTORY] Failed to delete original history: key={}", storageKey, e);
+        }
+    }
+
+    private long deleteInBatches(Criteria criteria) throws InterruptedException {
+        int batchSize = Math.max(1, config.getDeleteBatchSize());
+        long deleted = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            Query idQuery = Query.query(criteria).limit(batchSize);
+            idQuery.fields().include("_id");
+            List<String> ids = mongoTemplate.find(idQuery, OriginalMessageEntity.class).stream()
+                    .map(OriginalMessageEntity::getId)
+                    .collect(Collectors.toList());
+            if (ids.isEmpty()) {
+                break;
+            }
+            deleted += mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)), OriginalMessageEntity.class)
+                    .getDeletedCount();
+            if (ids.size() < batchSize) {
+                break;
+            }
+            pause(config.getDeleteBatchIntervalMillis());
+        }
+        return deleted;
+    }
+
+    // ==================== 归档 ====================
+
+    private void archiveExpired() {
+        if (!acquireLease(ARCHIVE_LEASE)) {
+            log.debug("[MEMORY]-[HISTORY] Archival is running on another node, skipped");
+            return;
+        }
+        ArtisanMemoryProperties.Archive archive = config.getArchive();
+        long cutoff = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(archive.getMaxAgeDays());
+        int batchSize = Math.max(1, archive.getBatchSize());
+        long archived = 0;
+        try {
+            String lastId = null;
+            while (!Thread.currentThread().isInterrupted()) {
+                if (lastId != null && !acquireLease(ARCHIVE_LEASE)) {
+                    log.warn("[MEMORY]-[HISTORY] Archival lease lost, stopping this run");
+                    break;
+                }
+                Criteria criteria = Criteria.where("timestamp").lt(cutoff);
+                if (lastId != null) {
+                    criteria = criteria.and("_id").gt(lastId);
+                }
+                Query query = Query.query(criteria).with(Sort.by(Sort.Direction.ASC, "_id")).limit(batchSize);
+                query.fields().exclude("searchText");
+                List<OriginalMessageEntity> batch = mongoTemplate.find(query, OriginalMessageEntity.class);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                lastId = batch.get(batch.size() - 1).getId();
+                Map<String, List<OriginalMessageEntity>> bySession = batch.stream()
+                        .collect(Collectors.groupingBy(OriginalMessageEntity::getStorageKey,
+                                LinkedHashMap::new, Collectors.toList()));
+                for (Map.Entry<String, List<OriginalMessageEntity>> entry : bySession.entrySet()) {
+                    archived += archiveSession(entry.getKey(), entry.getValue());
+                }
+                if (batch.size() < batchSize) {
+                    break;
+                }
+                pause(archive.getBatchIntervalMillis());
+            }
+            if (archived > 0) {
+                log.info("[MEMORY]-[HISTORY] Archived {} original message pairs older than {} days",
+                        archived, archive.getMaxAgeDays());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("[MEMORY]-[HISTORY] Failed to archive original history", e);
+        } finally {
+            releaseLease(ARCHIVE_LEASE);
+        }
+    }
+
+    // ==================== 租约 ====================
+
+    /**
+     * 获取或续约维护任务租约。租约已过期或由本节点持有时生效，否则插入与现有文档主键冲突，返回 false。
+     */
+    private boolean acquireLease(String name) {
+        long now = System.currentTimeMillis();
+        Query query = Query.query(Criteria.where("_id").is(name).orOperator(
+                Criteria.where("expiresAt").lt(now),
+                Criteria.where("owner").is(nodeId)));
+        Update update = new Update().set("owner", nodeId).set("expiresAt", now + ARCHIVE_LEASE_MILLIS);
+        try {
+            mongoTemplate.upsert(query, update, OriginalMaintenanceLeaseEntity.class);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    private void releaseLease(String name) {
+        try {
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(name).and("owner").is(nodeId)),
+                    new Update().set("expiresAt", 0L), OriginalMaintenanceLeaseEntity.class);
+        } catch (Exception e) {
+            // 释放失败时等待租约自然过期
+            log.warn("[MEMORY]-[HISTORY] Failed to release maintenance lease: name={}", name, e);
+        }
+    }
+
+    /**
+     * 归档一个会话的一批文档。已被清空（等待后台删除）的文档直接跳过。
+     */
+    private int archiveSession(String storageKey, List<OriginalMessageEntity> entities) throws IOException {
+        OriginalSessionMetaEntity meta = mongoTemplate.findById(storageKey, OriginalSessionMetaEntity.class);
+        List<OriginalMessageEntity> live = entities.stream()
+                .filter(entity -> !isCleared(entity, meta))
+                .sorted((a, b) -> Long.compare(a.getTimestamp(), b.getTimestamp()))
+                .collect(Collectors.toList());
+        if (live.isEmpty()) {
+            return 0;
+        }
+
+        long tokens = 0;
+        Long maxSequence = null;
+        for (OriginalMessageEntity entity : live) {
+            if (entity.getMessagePair() != null) {
+                tokens += TokenCounterUtil.calculateToken(entity.getMessagePair().getAllMessages());
+            }
+            if (entity.getSequence() != null && (maxSequence == null || entity.getSequence() > maxSequence)) {
+                maxSequence = entity.getSequence();
+            }
+        }
+
+        OriginalArchiveEntity archive = new OriginalArchiveEntity();
+        archive.setStorageKey(storageKey);
+        archive.setFromSequence(live.get(0).getSequence());
+        archive.setToSequence(live.get(live.size() - 1).getSequence());
+        archive.setFromTimestamp(live.get(0).getTimestamp());
+        archive.setToTimestamp(live.get(live.size() - 1).getTimestamp());
+        archive.setCount(live.size());
+        archive.setArchivedAt(System.currentTimeMillis());
+        archive.setPayload(compress(live));
+        mongoTemplate.insert(archive);
+
+        List<String> ids = live.stream().map(OriginalMessageEntity::getId).collect(Collectors.toList());
+        long removed = mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)), OriginalMessageEntity.class)
+                .getDeletedCount();
+
+        if (meta != null && removed > 0) {
+            Update update = new Update().inc("turnCount", -removed).inc("totalTokens", -tokens);
+            if (maxSequence != null) {
+                update.max("firstSequence", maxSequence + 1);
+            }
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(storageKey)), update,
+                    OriginalSessionMetaEntity.class);
+        }
+        return (int) removed;
+    }
+
+    private byte[] compress(List<OriginalMessageEntity> entities) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(out, entities);
+        }
+        return bytes.toByteArray();
+    }
+
+    private List<OriginalMessageEntity> decompress(byte[] payload) {
+        if (payload == null || payload.length == 0) {
+            return new ArrayList<>();
+        }
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(payload))) {
+            return objectMapper.readValue(in, new TypeReference<List<OriginalMessageEntity>>() {});
+        } catch (IOException e) {
+            log.error("[MEMORY]-[HISTORY] Failed to decompress archived original history", e);
+            return new ArrayList<>();
+        }
+    }
+
+    private void pause(long millis) throws InterruptedException {
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+}
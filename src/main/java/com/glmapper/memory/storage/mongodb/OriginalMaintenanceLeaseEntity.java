@@ -0,0 +1,36 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.storage.mongodb;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * MongoDB entity for cluster-wide leases of original history maintenance jobs.
+ *
+ * <p>One document per job, keyed by the job name. A node runs the job only while it owns an unexpired lease,
+ * so jobs such as archival are not executed by several nodes at once.
+ */
+@Document(collection = "artisan_original_maintenance_leases")
+@Data
+public class OriginalMaintenanceLeaseEntity {
+
+    @Id
+    private String name;
+    private String owner;
+    private long expiresAt;
+}
@@ -19,16 +19,30 @@ import com.glmapper.memory.model.MessagePair;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.TextScore;
 
 /**
  * MongoDB entity for storing original message pairs.
  *
  * <p>Each message pair is stored with its storage key and timestamp for efficient querying.
+ * The sequence is the 1-based position of the turn within its session, allocated from
+ * {@link OriginalSessionMetaEntity}; it is null for pairs written before sequences were introduced.
+ *
+ * <p>{@code globalSequence} orders appends across all sessions and drives the change feed; it is null for
+ * pairs written before the change feed was introduced. Its unique sparse index is created by
+ * {@link MongoOriginalStorage} at startup rather than declared here.
+ *
+ * <p>{@code searchText} holds the tokenized text of the pair (see {@link com.glmapper.memory.util.TextTokenizer})
+ * and backs the {@code storageKey + searchText} text index used for full-text search.
  */
 @Document(collection = "artisan_original_message_pairs")
-@CompoundIndex(name = "storageKey_timestamp", def = "{'storageKey': 1, 'timestamp': 1}")
+@CompoundIndexes({
+        @CompoundIndex(name = "storageKey_timestamp", def = "{'storageKey': 1, 'timestamp': 1}"),
+        @CompoundIndex(name = "storageKey_sequence", def = "{'storageKey': 1, 'sequence': 1}")
+})
 @Data
 public class OriginalMessageEntity {
 
@@ -38,7 +52,12 @@ public class OriginalMessageEntity {
     private String storageKey;
     @Indexed
     private Long timestamp;
+    private Long sequence;
+    private Long globalSequence;
     private MessagePair messagePair;
+    private String searchText;
+    @TextScore
+    private Float score;
 
     public OriginalMessageEntity() {
     }
@@ -48,4 +67,11 @@ public class OriginalMessageEntity {
         this.timestamp = timestamp;
         this.messagePair = messagePair;
     }
+
+    public OriginalMessageEntity(String storageKey, Long timestamp, Long sequence, MessagePair messagePair) {
+        this.storageKey = storageKey;
+        this.timestamp = timestamp;
+        this.sequence = sequence;
+        this.messagePair = messagePair;
+    }
 }
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.storage.mongodb;
+
+import java.util.List;
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * MongoDB entity for named monotonic counters of original storage.
+ *
+ * <p>Currently holds the global append sequence that orders the change feed across all sessions.
+ * {@code pending} lists the sequences that are allocated but whose documents are not yet confirmed written;
+ * the change feed waits for them instead of guessing from timestamps.
+ */
+@Document(collection = "artisan_original_counters")
+@Data
+public class OriginalSequenceCounterEntity {
+
+    @Id
+    private String name;
+    private long value;
+    private List<Long> pending;
+}
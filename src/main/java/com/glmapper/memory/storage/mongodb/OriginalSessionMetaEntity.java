@@ -0,0 +1,65 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.storage.mongodb;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.List;
+
+/**
+ * MongoDB entity holding per-session counters of original storage.
+ *
+ * <p>One document per storage key, keyed by the storage key itself. The counters are updated
+ * in two steps on every append, so statistics reads are point lookups: reserving the sequence records a
+ * {@link PendingTurn}, and once the pair is saved a second atomic update moves the turn into the counters.
+ * A pending turn left behind by a crash is reconciled against the documents on the next read.
+ *
+ * <p>{@code clearedSequence} hides pairs whose sequence is at or before the last clear while the background
+ * deletion is still running; {@code clearedBefore} (the clear time) applies only to legacy pairs without a
+ * sequence. {@code deletionPending} marks that deletion so it can be resumed after a restart.
+ */
+@Document(collection = "artisan_original_session_meta")
+@Data
+public class OriginalSessionMetaEntity {
+
+    @Id
+    private String storageKey;
+    private long turnCount;
+    private long firstSequence;
+    private long lastSequence;
+    private long totalTokens;
+    private Long lastWriteTime;
+    private Long clearedBefore;
+    private Long clearedSequence;
+    private Boolean deletionPending;
+    private List<PendingTurn> pendingTurns;
+
+    /**
+     * A turn whose sequence has been reserved but whose pair is not yet counted.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PendingTurn {
+        private long sequence;
+        private long tokens;
+        private long createdAt;
+    }
+}
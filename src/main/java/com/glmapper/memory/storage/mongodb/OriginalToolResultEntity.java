@@ -0,0 +1,48 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.storage.mongodb;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * MongoDB entity holding one deduplicated tool result output of a session.
+ *
+ * <p>Keyed by {@code storageKey:contentHash}; message pairs only keep the hash. {@code lastReferencedSequence}
+ * is raised whenever a pair referencing the output is appended, so clearing a session removes only outputs
+ * that are not referenced by pairs written after the clear. Outputs stored before the sequence was tracked
+ * fall back to {@code lastReferencedAt}.
+ */
+@Document(collection = "artisan_original_tool_results")
+@Data
+public class OriginalToolResultEntity {
+
+    @Id
+    private String id;
+    @Indexed
+    private String storageKey;
+    private String contentHash;
+    /** Serialized output blocks. */
+    private String content;
+    private Long lastReferencedAt;
+    private Long lastReferencedSequence;
+
+    public static String idOf(String storageKey, String contentHash) {
+        return storageKey + ":" + contentHash;
+    }
+}
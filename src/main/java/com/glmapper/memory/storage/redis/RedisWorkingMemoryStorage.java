@@ -18,19 +18,34 @@ package com.glmapper.memory.storage.redis;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.glmapper.memory.config.ArtisanMemoryProperties;
 import com.glmapper.memory.model.MessagePair;
 import com.glmapper.memory.model.Msg;
 import com.glmapper.memory.model.Pin;
 import com.glmapper.memory.model.PinStatus;
 import com.glmapper.memory.model.WorkingMemory;
 import com.glmapper.memory.storage.WorkingMemoryStorage;
+import com.glmapper.memory.storage.WriteFence;
+import com.glmapper.memory.util.ToolResultRefs;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
 
 import java.time.Duration;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -42,8 +57,13 @@ import java.util.stream.Collectors;
  *   <li>artisan:wm:{conversationId}:tail - List，存储 Tail 区域</li>
  *   <li>artisan:wm:{conversationId}:tcw - List，存储 timingContextWindow</li>
  *   <li>artisan:wm:{conversationId}:pins - Hash，存储 pinnedFacts</li>
+ *   <li>artisan:wm:{conversationId}:results - Hash，开启工具结果去重时按内容哈希存储工具输出</li>
+ *   <li>artisan:wm:{conversationId}:results:seen - ZSet，工具输出最近一次被引用的时间，用于清理不再引用的输出</li>
  * </ul>
  *
+ * <p>{@link #clear(String)} 同时删除压缩链路为会话写入的摘要树（artisan:wm:tree:{conversationId} 及各层未合并集合）
+ * 和预摘要（artisan:wm:spec:{conversationId}），这些 key 由 SummaryTreeStore 与 SpeculativeSummarizer 维护。
+ *
  * @author glsong
  * @since 1.0.0
  */
@@ -55,16 +75,46 @@ public class RedisWorkingMemoryStorage implements WorkingMemoryStorage {
     private static final String TAIL_SUFFIX = ":tail";
     private static final String TCW_SUFFIX = ":tcw";
     private static final String PINS_SUFFIX = ":pins";
+    private static final String RESULTS_SUFFIX = ":results";
+    private static final String RESULTS_SEEN_SUFFIX = ":results:seen";
+    /**
+     * 删除最近引用时间仍不晚于截止时间的工具输出。KEYS[1] 为输出 Hash，KEYS[2] 为引用时间 ZSet，
+     * ARGV[1] 为截止时间，其余参数为候选哈希；检查与删除原子完成，期间重新被引用的输出会保留。
+     */
+    private static final DefaultRedisScript<Long> PRUNE_RESULTS_SCRIPT = new DefaultRedisScript<>(
+            "local cutoff = tonumber(ARGV[1]) local removed = 0 "
+                    + "for i = 2, #ARGV do "
+                    + "  local seen = redis.call('zscore', KEYS[2], ARGV[i]) "
+                    + "  if not seen or tonumber(seen) <= cutoff then "
+                    + "    removed = removed + redis.call('hdel', KEYS[1], ARGV[i]) "
+                    + "    redis.call('zrem', KEYS[2], ARGV[i]) "
+                    + "  end "
+                    + "end "
+                    + "return removed", Long.class);
+    /** 摘要树与预摘要的 key 前缀，与 SummaryTreeStore、SpeculativeSummarizer 保持一致 */
+    private static final String TREE_KEY_PREFIX = "artisan:wm:tree:";
+    private static final String SPEC_KEY_PREFIX = "artisan:wm:spec:";
 
     private final StringRedisTemplate redisTemplate;
     private final ObjectMapper objectMapper;
     private final int expireDays;
+    /** 参与去重的工具输出最小长度，0 表示不去重 */
+    private final int dedupMinChars;
+    /** 不再引用的工具输出保留时长（毫秒） */
+    private final long orphanGraceMillis;
 
     public RedisWorkingMemoryStorage(StringRedisTemplate redisTemplate, int expireDays) {
+        this(redisTemplate, expireDays, new ArtisanMemoryProperties.ToolResultDedup());
+    }
+
+    public RedisWorkingMemoryStorage(StringRedisTemplate redisTemplate, int expireDays,
+                                     ArtisanMemoryProperties.ToolResultDedup dedupConfig) {
         this.redisTemplate = redisTemplate;
         this.objectMapper = new ObjectMapper();
         this.objectMapper.registerModule(new JavaTimeModule());
         this.expireDays = expireDays;
+        this.dedupMinChars = dedupConfig.isEnabled() ? Math.max(1, dedupConfig.getMinChars()) : 0;
+        this.orphanGraceMillis = TimeUnit.MINUTES.toMillis(Math.max(1, dedupConfig.getOrphanGraceMinutes()));
     }
 
     // ==================== 完整 WorkingMemory 操作 ====================
@@ -98,7 +148,7 @@ public class RedisWorkingMemoryStorage implements WorkingMemoryStorage {
             redisTemplate.delete(headKey);
             if (workingMemory.getHead() != null && !workingMemory.getHead().isEmpty()) {
                 for (MessagePair pair : workingMemory.getHead()) {
-                    redisTemplate.opsForList().rightPush(headKey, serialize(pair));
+                    redisTemplate.opsForList().rightPush(headKey, serialize(externalizeToolResults(conversationId, pair)));
                 }
             }
 
@@ -107,7 +157,7 @@ public class RedisWorkingMemoryStorage implements WorkingMemoryStorage {
             redisTemplate.delete(tailKey);
             if (workingMemory.getTail() != null && !workingMemory.getTail().isEmpty()) {
                 for (MessagePair pair : workingMemory.getTail()) {
-                    redisTemplate.opsForList().rightPush(tailKey, serialize(pair));
+                    redisTemplate.opsForList().rightPush(tailKey, serialize(externalizeToolResults(conversationId, pair)));
                 }
             }
 
@@ -116,7 +166,7 @@ public class RedisWorkingMemoryStorage implements WorkingMemoryStorage {
             redisTemplate.delete(tcwKey);
             if (workingMemory.getTimingContextWindow() != null && !workingMemory.getTimingContextWindow().isEmpty()) {
                 for (Msg msg : workingMemory.getTimingContextWindow()) {
-                    redisTemplate.opsForList().rightPush(tcwKey, serialize(msg));
+                    redisTemplate.opsForList().rightPush(tcwKey, serialize(externalizeToolResults(conversationId, msg)));
                 }
             }
 
@@ -135,6 +185,7 @@ public class RedisWorkingMemoryStorage implements WorkingMemoryStorage {
             redisTemplate.expire(tailKey, expireDuration);
             redisTemplate.expire(tcwKey, expireDuration);
             redisTemplate.expire(pinsKey, expireDuration);
+            touchToolResults(conversationId);
 
             log.debug("Saved working memory: conversationId={}, expireDays={}", conversationId, expireDays);
         } catch (Exception e) {
@@ -143,13 +194,174 @@ public class RedisWorkingMemoryStorage implements WorkingMemoryStorage {
         }
     }
 
+    /**
+     * 在一个 MULTI/EXEC 事务中替换 Head 和 Tail。
+     */
+    @Override
+    public void saveHeadAndTail(WorkingMemory workingMemory) {
+        if (workingMemory == null || workingMemory.getConversationId() == null) {
+            return;
+        }
+        String conversationId = workingMemory.getConversationId();
+        String headKey = getHeadKey(conversationId);
+        String tailKey = getTailKey(conversationId);
+        String resultsKey = getResultsKey(conversationId);
+        List<String> headValues = new ArrayList<>();
+        if (workingMemory.getHead() != null) {
+            for (MessagePair pair : workingMemory.getHead()) {
+                headValues.add(serialize(externalizeToolResults(conversationId, pair)));
+            }
+        }
+        List<String> tailValues = new ArrayList<>();
+        if (workingMemory.getTail() != null) {
+            for (MessagePair pair : workingMemory.getTail()) {
+                tailValues.add(serialize(externalizeToolResults(conversationId, pair)));
+            }
+        }
+        Duration expireDuration = Duration.ofDays(expireDays);
+        try {
+            redisTemplate.execute(new SessionCallback<List<Object>>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> List<Object> execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                    ops.multi();
+                    ops.delete(headKey);
+                    if (!headValues.isEmpty()) {
+                        ops.opsForList().rightPushAll(headKey, headValues);
+                        ops.expire(headKey, expireDuration);
+                    }
+                    ops.delete(tailKey);
+                    if (!tailValues.isEmpty()) {
+                        ops.opsForList().rightPushAll(tailKey, tailValues);
+                        ops.expire(tailKey, expireDuration);
+                    }
+                    if (dedupMinChars > 0) {
+                        ops.expire(resultsKey, expireDuration);
+                        ops.expire(getResultsSeenKey(conversationId), expireDuration);
+                    }
+                    return ops.exec();
+                }
+            });
+            log.debug("Saved head and tail of working memory: conversationId={}", conversationId);
+        } catch (Exception e) {
+            log.error("Failed to save head and tail of working memory: conversationId={}", conversationId, e);
+            throw new RuntimeException("Failed to save head and tail of working memory to Redis", e);
+        }
+    }
+
+    /**
+     * 在一个 MULTI/EXEC 事务中替换 timingContextWindow 和 / 或 pinnedFacts。
+     */
+    @Override
+    public void saveCompressed(WorkingMemory workingMemory, boolean timingContextWindow, boolean pins) {
+        saveCompressed(workingMemory, timingContextWindow, pins, null);
+    }
+
+    /**
+     * 在一个事务中写入压缩结果。指定 fence 时先 WATCH fence 的 key 并确认其值，
+     * 值不符或在 EXEC 之前被修改（租约被其他节点取得）时事务被放弃，不写入任何区域。
+     */
+    @Override
+    public boolean saveCompressed(WorkingMemory workingMemory, boolean timingContextWindow, boolean pins,
+                                  WriteFence fence) {
+        if (workingMemory == null || workingMemory.getConversationId() == null || (!timingContextWindow && !pins)) {
+            return true;
+        }
+        String conversationId = workingMemory.getConversationId();
+        String tcwKey = getTcwKey(conversationId);
+        String pinsKey = getPinsKey(conversationId);
+        String resultsKey = getResultsKey(conversationId);
+        List<String> tcwValues = new ArrayList<>();
+        Set<String> tcwHashes = new HashSet<>();
+        if (timingContextWindow && workingMemory.getTimingContextWindow() != null) {
+            for (Msg msg : workingMemory.getTimingContextWindow()) {
+                // 去重的工具输出在事务之前写入，事务失败时只留下未被引用的输出，由之后的清理删除
+                Msg externalized = externalizeToolResults(conversationId, msg);
+                tcwHashes.addAll(ToolResultRefs.referencedHashes(List.of(externalized)));
+                tcwValues.add(serialize(externalized));
+            }
+        }
+        Map<String, String> pinValues = new LinkedHashMap<>();
+        if (pins && workingMemory.getPinnedFacts() != null) {
+            for (Pin pin : workingMemory.getPinnedFacts()) {
+                pinValues.put(pin.getPinId(), serialize(pin));
+            }
+        }
+        Duration expireDuration = Duration.ofDays(expireDays);
+        try {
+            Boolean saved = redisTemplate.execute(new SessionCallback<Boolean>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Boolean execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                    if (fence != null) {
+                        ops.watch(fence.getKey());
+                        if (!fence.getExpectedValue().equals(ops.opsForValue().get(fence.getKey()))) {
+                            ops.unwatch();
+                            return false;
+                        }
+                    }
+                    ops.multi();
+                    if (timingContextWindow) {
+                        ops.delete(tcwKey);
+                        if (!tcwValues.isEmpty()) {
+                            ops.opsForList().rightPushAll(tcwKey, tcwValues);
+                            ops.expire(tcwKey, expireDuration);
+                        }
+                    }
+                    if (pins) {
+                        ops.delete(pinsKey);
+                        if (!pinValues.isEmpty()) {
+                            ops.opsForHash().putAll(pinsKey, pinValues);
+                            ops.expire(pinsKey, expireDuration);
+                        }
+                    }
+                    if (timingContextWindow && dedupMinChars > 0) {
+                        ops.expire(resultsKey, expireDuration);
+                        ops.expire(getResultsSeenKey(conversationId), expireDuration);
+                    }
+                    // WATCH 的 key 被修改时 EXEC 放弃事务，返回空结果
+                    List<Object> results = ops.exec();
+                    return results != null && !results.isEmpty();
+                }
+            });
+            if (!Boolean.TRUE.equals(saved)) {
+                log.warn("Fence no longer holds, compressed working memory not saved: conversationId={}", conversationId);
+                return false;
+            }
+            log.debug("Saved compressed working memory: conversationId={}, tcw={}, pins={}", conversationId, timingContextWindow, pins);
+            if (timingContextWindow) {
+                pruneToolResults(conversationId, tcwHashes);
+            }
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to save compressed working memory: conversationId={}", conversationId, e);
+            throw new RuntimeException("Failed to save compressed working memory to Redis", e);
+        }
+    }
+
     @Override
     public void clear(String conversationId) {
         try {
-            redisTemplate.delete(getHeadKey(conversationId));
-            redisTemplate.delete(getTailKey(conversationId));
-            redisTemplate.delete(getTcwKey(conversationId));
-            redisTemplate.delete(getPinsKey(conversationId));
+            List<String> keys = new ArrayList<>(List.of(
+                    getHeadKey(conversationId),
+                    getTailKey(conversationId),
+                    getTcwKey(conversationId),
+                    getPinsKey(conversationId),
+                    getResultsKey(conversationId),
+                    TREE_KEY_PREFIX + conversationId,
+                    SPEC_KEY_PREFIX + conversationId));
+            // 摘要树各层的未合并集合，层数由压缩配置决定，按模式查找
+            ScanOptions options = ScanOptions.scanOptions()
+                    .match(TREE_KEY_PREFIX + escapeGlob(conversationId) + ":open:*")
+                    .count(100)
+                    .build();
+            try (Cursor<String> cursor = redisTemplate.scan(options)) {
+                cursor.forEachRemaining(keys::add);
+            }
+            keys.add(getResultsSeenKey(conversationId));
+            redisTemplate.delete(keys);
             log.debug("Cleared working memory: conversationId={}", conversationId);
         } catch (Exception e) {
             log.error("Failed to clear working memory: conversationId={}", conversationId, e);
@@ -164,7 +376,7 @@ public class RedisWorkingMemoryStorage implements WorkingMemoryStorage {
             String key = getHeadKey(conversationId);
             Long currentSize = redisTemplate.opsForList().size(key);
             if (currentSize == null || currentSize < maxSize) {
-                redisTemplate.opsForList().rightPush(key, serialize(pair));
+                redisTemplate.opsForList().rightPush(key, serialize(externalizeToolResults(conversationId, pair)));
                 log.debug("Added to head: conversationId={}", conversationId);
             }
         } catch (Exception e) {
@@ -181,7 +393,8 @@ public class RedisWorkingMemoryStorage implements WorkingMemoryStorage {
             if (jsonList == null || jsonList.isEmpty()) {
                 return new ArrayList<>();
             }
-            return jsonList.stream().map(json -> deserialize(json, MessagePair.class)).collect(Collectors.toList());
+            return resolveToolResults(conversationId,
+                    jsonList.stream().map(json -> deserialize(json, MessagePair.class)).collect(Collectors.toList()));
         } catch (Exception e) {
             log.error("Failed to get head: conversationId={}", conversationId, e);
             return new ArrayList<>();
@@ -194,7 +407,7 @@ public class RedisWorkingMemoryStorage implements WorkingMemoryStorage {
     public void addToTail(String conversationId, MessagePair pair, int maxSize) {
         try {
             String key = getTailKey(conversationId);
-            redisTemplate.opsForList().rightPush(key, serialize(pair));
+            redisTemplate.opsForList().rightPush(key, serialize(externalizeToolResults(conversationId, pair)));
             // 如果超过最大数量，移除最旧的
             Long size = redisTemplate.opsForList().size(key);
             if (size != null && size > maxSize) {
@@ -215,7 +428,8 @@ public class RedisWorkingMemoryStorage implements WorkingMemoryStorage {
             if (jsonList == null || jsonList.isEmpty()) {
                 return new ArrayList<>();
             }
-            return jsonList.stream().map(json -> deserialize(json, MessagePair.class)).collect(Collectors.toList());
+            return resolveToolResults(conversationId,
+                    jsonList.stream().map(json -> deserialize(json, MessagePair.class)).collect(Collectors.toList()));
         } catch (Exception e) {
             log.error("Failed to get tail: conversationId={}", conversationId, e);
             return new ArrayList<>();
@@ -228,7 +442,7 @@ public class RedisWorkingMemoryStorage implements WorkingMemoryStorage {
     public void addToTimingContextWindow(String conversationId, Msg message) {
         try {
             String key = getTcwKey(conversationId);
-            redisTemplate.opsForList().rightPush(key, serialize(message));
+            redisTemplate.opsForList().rightPush(key, serialize(externalizeToolResults(conversationId, message)));
             log.debug("Added to timingContextWindow: conversationId={}", conversationId);
         } catch (Exception e) {
             log.error("Failed to add to timingContextWindow: conversationId={}", conversationId, e);
@@ -244,7 +458,8 @@ public class RedisWorkingMemoryStorage implements WorkingMemoryStorage {
             if (jsonList == null || jsonList.isEmpty()) {
                 return new ArrayList<>();
             }
-            return jsonList.stream().map(json -> deserialize(json, Msg.class)).collect(Collectors.toList());
+            List<Msg> messages = jsonList.stream().map(json -> deserialize(json, Msg.class)).collect(Collectors.toList());
+            return ToolResultRefs.resolve(messages, loadToolResults(conversationId, ToolResultRefs.referencedHashes(messages)));
         } catch (Exception e) {
             log.error("Failed to get timingContextWindow: conversationId={}", conversationId, e);
             return new ArrayList<>();
@@ -269,7 +484,7 @@ public class RedisWorkingMemoryStorage implements WorkingMemoryStorage {
             redisTemplate.delete(key);
             if (messages != null && !messages.isEmpty()) {
                 for (Msg msg : messages) {
-                    redisTemplate.opsForList().rightPush(key, serialize(msg));
+                    redisTemplate.opsForList().rightPush(key, serialize(externalizeToolResults(conversationId, msg)));
                 }
             }
             log.debug("Set timingContextWindow: conversationId={}, size={}", conversationId, messages != null ? messages.size() : 0);
@@ -350,6 +565,17 @@ public class RedisWorkingMemoryStorage implements WorkingMemoryStorage {
 
     // ==================== 辅助方法 ====================
 
+    /**
+     * 转义 SCAN 模式中的通配字符，避免会话标识符中的字符匹配到其他会话的 key。
+     */
+    private String escapeGlob(String value) {
+        return value.replaceAll("([*?\\[\\]\\\\])", "\\\\$1");
+    }
+
+    private String getResultsSeenKey(String conversationId) {
+        return KEY_PREFIX + conversationId + RESULTS_SEEN_SUFFIX;
+    }
+
     private String getHeadKey(String conversationId) {
         return KEY_PREFIX + conversationId + HEAD_SUFFIX;
     }
@@ -366,6 +592,10 @@ public class RedisWorkingMemoryStorage implements WorkingMemoryStorage {
         return KEY_PREFIX + conversationId + PINS_SUFFIX;
     }
 
+    private String getResultsKey(String conversationId) {
+        return KEY_PREFIX + conversationId + RESULTS_SUFFIX;
+    }
+
     private String serialize(Object obj) {
         try {
             return objectMapper.writeValueAsString(obj);
@@ -382,6 +612,143 @@ public class RedisWorkingMemoryStorage implements WorkingMemoryStorage {
         }
     }
 
+    // ==================== 工具结果去重 ====================
+
+    @Override
+    public MessagePair externalizeToolResults(String conversationId, MessagePair pair) {
+        if (dedupMinChars <= 0 || pair == null) {
+            return pair;
+        }
+        Map<String, String> results = new HashMap<>();
+        MessagePair externalized = ToolResultRefs.externalize(pair, dedupMinChars, results);
+        storeToolResults(conversationId, results);
+        return externalized;
+    }
+
+    @Override
+    public MessagePair resolveToolResults(String conversationId, MessagePair pair) {
+        return ToolResultRefs.resolve(pair, loadToolResults(conversationId, ToolResultRefs.referencedHashes(pair)));
+    }
+
+    private Msg externalizeToolResults(String conversationId, Msg msg) {
+        if (dedupMinChars <= 0 || msg == null) {
+            return msg;
+        }
+        Map<String, String> results = new HashMap<>();
+        Msg externalized = ToolResultRefs.externalize(msg, dedupMinChars, results);
+        storeToolResults(conversationId, results);
+        return externalized;
+    }
+
+    private List<MessagePair> resolveToolResults(String conversationId, List<MessagePair> pairs) {
+        Set<String> hashes = new LinkedHashSet<>();
+        for (MessagePair pair : pairs) {
+            hashes.addAll(ToolResultRefs.referencedHashes(pair));
+        }
+        Map<String, String> results = loadToolResults(conversationId, hashes);
+        if (results.isEmpty()) {
+            return pairs;
+        }
+        return pairs.stream().map(pair -> ToolResultRefs.resolve(pair, results)).collect(Collectors.toList());
+    }
+
+    /**
+     * 写入去重的工具输出。相同内容的哈希相同，使用 HSETNX 只写入新的哈希，已存在的输出不产生写入；
+     * 只有写入了新输出时才设置过期时间，其余情况由各保存操作统一续期（见 {@link #touchToolResults}）。
+     *
+     * <p>每次引用都刷新输出的最近引用时间，且先于 HSETNX 执行：清理与本次写入交错时，
+     * 要么清理看到新的引用时间而保留输出，要么输出先被删除、再由 HSETNX 重新写入。
+     */
+    private void storeToolResults(String conversationId, Map<String, String> results) {
+        if (results.isEmpty()) {
+            return;
+        }
+        String key = getResultsKey(conversationId);
+        String seenKey = getResultsSeenKey(conversationId);
+        double now = System.currentTimeMillis();
+        List<Object> replies = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                results.keySet().forEach(hash -> ops.opsForZSet().add(seenKey, hash, now));
+                results.forEach((hash, content) -> ops.opsForHash().putIfAbsent(key, hash, content));
+                return null;
+            }
+        });
+        if (replies.subList(results.size(), replies.size()).contains(Boolean.TRUE)) {
+            redisTemplate.expire(key, Duration.ofDays(expireDays));
+            redisTemplate.expire(seenKey, Duration.ofDays(expireDays));
+        }
+    }
+
+    /**
+     * 清理不再引用的工具输出。
+     *
+     * <p>保留 Head / Tail / 刚写入的 TCW 引用的输出，以及最近 {@code orphanGraceMinutes} 内被引用过的输出
+     * （等待中的压缩任务载荷只携带引用，且在提交任务时刷新引用时间）。清理失败只记录日志，下次保存时重试。
+     */
+    private void pruneToolResults(String conversationId, Set<String> tcwHashes) {
+        if (dedupMinChars <= 0) {
+            return;
+        }
+        try {
+            String seenKey = getResultsSeenKey(conversationId);
+            long cutoff = System.currentTimeMillis() - orphanGraceMillis;
+            Set<String> candidates = redisTemplate.opsForZSet().rangeByScore(seenKey, Double.NEGATIVE_INFINITY, cutoff);
+            if (candidates == null || candidates.isEmpty()) {
+                return;
+            }
+            Set<String> referenced = new HashSet<>(tcwHashes);
+            for (String key : List.of(getHeadKey(conversationId), getTailKey(conversationId))) {
+                List<String> values = redisTemplate.opsForList().range(key, 0, -1);
+                if (values != null) {
+                    values.forEach(value -> referenced.addAll(ToolResultRefs.referencedHashes(deserialize(value, MessagePair.class))));
+                }
+            }
+            List<String> args = new ArrayList<>();
+            args.add(String.valueOf(cutoff));
+            candidates.stream().filter(hash -> !referenced.contains(hash)).forEach(args::add);
+            if (args.size() == 1) {
+                return;
+            }
+            Long removed = redisTemplate.execute(PRUNE_RESULTS_SCRIPT,
+                    List.of(getResultsKey(conversationId), seenKey), args.toArray());
+            log.debug("Pruned unreferenced tool results: conversationId={}, removed={}", conversationId, removed);
+        } catch (Exception e) {
+            log.warn("Failed to prune unreferenced tool results: conversationId={}", conversationId, e);
+        }
+    }
+
+    /**
+     * 续期去重的工具输出，与工作记忆其他分区的过期时间保持一致。
+     */
+    private void touchToolResults(String conversationId) {
+        if (dedupMinChars > 0) {
+            redisTemplate.expire(getResultsKey(conversationId), Duration.ofDays(expireDays));
+            redisTemplate.expire(getResultsSeenKey(conversationId), Duration.ofDays(expireDays));
+        }
+    }
+
+    private Map<String, String> loadToolResults(String conversationId, Set<String> hashes) {
+        Map<String, String> results = new HashMap<>();
+        if (hashes.isEmpty()) {
+            return results;
+        }
+        List<Object> hashKeys = new ArrayList<>(hashes);
+        List<Object> values = redisTemplate.opsForHash().multiGet(getResultsKey(conversationId), hashKeys);
+        for (int i = 0; i < hashKeys.size(); i++) {
+            Object value = values != null && i < values.size() ? values.get(i) : null;
+            if (value != null) {
+                results.put(hashKeys.get(i).toString(), value.toString());
+            }
+        }
+        if (results.size() < hashes.size()) {
+            log.warn("Missing deduplicated tool results: conversationId={}, missing={}", conversationId, hashes.size() - results.size());
+        }
+        return results;
+    }
+
     @Override
     public WorkingMemory recover(String conversationId, List<MessagePair> originalPairs) {
         if (originalPairs == null || originalPairs.isEmpty()) {
@@ -22,6 +22,7 @@ import com.glmapper.memory.model.TextBlock;
 import com.glmapper.memory.model.ToolResultBlock;
 import com.glmapper.memory.model.ToolUseBlock;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -327,6 +328,78 @@ public class MsgUtils {
         return totalCharCount;
     }
 
+    /**
+     * Extracts the plain text of a list of messages, including tool inputs and text outputs of tool results.
+     *
+     * <p>Used to build full-text search documents; structure is flattened into newline separated text.
+     *
+     * @param messages the messages to extract text from
+     * @return the extracted text, or an empty string if there is none
+     */
+    public static String extractPlainText(List<Msg> messages) {
+        if (messages == null || messages.isEmpty()) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Msg msg : messages) {
+            if (msg == null || msg.getContent() == null) {
+                continue;
+            }
+            for (ContentBlock block : msg.getContent()) {
+                if (block instanceof TextBlock) {
+                    appendLine(sb, ((TextBlock) block).getText());
+                } else if (block instanceof ToolUseBlock) {
+                    ToolUseBlock toolUse = (ToolUseBlock) block;
+                    appendLine(sb, toolUse.getName());
+                    if (toolUse.getInput() != null && !toolUse.getInput().isEmpty()) {
+                        appendLine(sb, toolUse.getInput().toString());
+                    }
+                    appendLine(sb, toolUse.getContent());
+                } else if (block instanceof ToolResultBlock) {
+                    ToolResultBlock toolResult = (ToolResultBlock) block;
+                    if (toolResult.getOutput() != null) {
+                        for (ContentBlock outputBlock : toolResult.getOutput()) {
+                            if (outputBlock instanceof TextBlock) {
+                                appendLine(sb, ((TextBlock) outputBlock).getText());
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Creates a shallow copy of a message with different content blocks.
+     *
+     * <p>Used when compression or deduplication rewrites blocks, so the original message is never modified.
+     *
+     * @param msg     the message to copy
+     * @param content the content blocks of the copy
+     * @return the copy
+     */
+    public static Msg copyWithContent(Msg msg, List<ContentBlock> content) {
+        Msg copy = new Msg();
+        copy.setId(msg.getId());
+        copy.setRole(msg.getRole());
+        copy.setName(msg.getName());
+        copy.setMetadata(msg.getMetadata() != null ? new HashMap<>(msg.getMetadata()) : new HashMap<>());
+        copy.setStatus(msg.getStatus());
+        copy.setContent(content);
+        return copy;
+    }
+
+    private static void appendLine(StringBuilder sb, String text) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        if (sb.length() > 0) {
+            sb.append('\n');
+        }
+        sb.append(text);
+    }
+
     private MsgUtils() {
         // Utility class
     }
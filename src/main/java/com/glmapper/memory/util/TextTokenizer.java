@@ -0,0 +1,115 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Language-agnostic tokenizer used for full-text search over message history.
+ *
+ * <p>Runs of letters and digits become lower-cased word tokens. CJK text has no word delimiters,
+ * so runs of CJK characters are split into overlapping bigrams (a single isolated character is kept
+ * as-is). The same tokenizer is applied to indexed text and to queries, which keeps the database text
+ * index and the in-memory fallback consistent.
+ */
+public class TextTokenizer {
+
+    private TextTokenizer() {
+        // Utility class
+    }
+
+    /**
+     * Tokenizes the given text.
+     *
+     * @param text the text to tokenize
+     * @return tokens in order of appearance (duplicates kept), never null
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        StringBuilder word = new StringBuilder();
+        List<Integer> cjkRun = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            int cp = text.codePointAt(i);
+            i += Character.charCount(cp);
+            if (isCjk(cp)) {
+                flushWord(word, tokens);
+                cjkRun.add(cp);
+            } else if (Character.isLetterOrDigit(cp)) {
+                flushCjk(cjkRun, tokens);
+                word.appendCodePoint(Character.toLowerCase(cp));
+            } else {
+                flushWord(word, tokens);
+                flushCjk(cjkRun, tokens);
+            }
+        }
+        flushWord(word, tokens);
+        flushCjk(cjkRun, tokens);
+        return tokens;
+    }
+
+    /**
+     * Tokenizes the given text and joins the tokens with spaces, ready to be stored in a text index.
+     *
+     * @param text the text to tokenize
+     * @return space separated tokens
+     */
+    public static String toIndexText(String text) {
+        return String.join(" ", tokenize(text));
+    }
+
+    private static void flushWord(StringBuilder word, List<String> tokens) {
+        if (word.length() == 0) {
+            return;
+        }
+        String token = word.toString();
+        // 单个字母区分度太低，数字保留
+        if (token.length() > 1 || Character.isDigit(token.charAt(0))) {
+            tokens.add(token.toLowerCase(Locale.ROOT));
+        }
+        word.setLength(0);
+    }
+
+    private static void flushCjk(List<Integer> run, List<String> tokens) {
+        if (run.isEmpty()) {
+            return;
+        }
+        if (run.size() == 1) {
+            tokens.add(new String(Character.toChars(run.get(0))));
+        } else {
+            for (int j = 0; j + 1 < run.size(); j++) {
+                tokens.add(new StringBuilder()
+                        .appendCodePoint(run.get(j))
+                        .appendCodePoint(run.get(j + 1))
+                        .toString());
+            }
+        }
+        run.clear();
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
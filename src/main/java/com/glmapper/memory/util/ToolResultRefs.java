@@ -0,0 +1,277 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.glmapper.memory.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.glmapper.memory.model.ContentBlock;
+import com.glmapper.memory.model.MessagePair;
+import com.glmapper.memory.model.Msg;
+import com.glmapper.memory.model.ToolResultBlock;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * Content-addressed deduplication of tool results.
+ *
+ * <p>Storages call {@link #externalize(MessagePair, int, Map)} before writing: every tool result whose
+ * serialized output reaches the size threshold is replaced by a reference ({@link ToolResultBlock#getContentHash()}
+ * with an empty output), and the output is collected by its SHA-256 hash so the storage can keep it once per
+ * session. On read, {@link #referencedHashes(MessagePair)} tells the storage which outputs to load and
+ * {@link #resolve(MessagePair, Map)} puts them back.
+ *
+ * <p>Messages and pairs are never modified in place; a copy is returned when something changes.
+ */
+public class ToolResultRefs {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    private static final TypeReference<List<ContentBlock>> OUTPUT_TYPE = new TypeReference<>() {
+    };
+
+    private ToolResultRefs() {
+        // Utility class
+    }
+
+    /**
+     * Replaces large tool results of a pair by references.
+     *
+     * @param pair     the message pair
+     * @param minChars minimum serialized output length to deduplicate
+     * @param blobs    receives the serialized outputs by content hash
+     * @return the pair with references, or the same pair if nothing was replaced
+     */
+    public static MessagePair externalize(MessagePair pair, int minChars, Map<String, String> blobs) {
+        if (pair == null) {
+            return null;
+        }
+        Msg user = externalize(pair.getUserMessage(), minChars, blobs);
+        Msg assistant = externalize(pair.getAssistantMessage(), minChars, blobs);
+        List<Msg> intermediate = externalize(pair.getIntermediateMessages(), minChars, blobs);
+        return copyIfChanged(pair, user, assistant, intermediate);
+    }
+
+    /**
+     * Replaces large tool results of a message by references.
+     *
+     * @param msg      the message
+     * @param minChars minimum serialized output length to deduplicate
+     * @param blobs    receives the serialized outputs by content hash
+     * @return the message with references, or the same message if nothing was replaced
+     */
+    public static Msg externalize(Msg msg, int minChars, Map<String, String> blobs) {
+        if (msg == null || msg.getContent() == null || !msg.hasContentBlocks(ToolResultBlock.class)) {
+            return msg;
+        }
+        boolean changed = false;
+        List<ContentBlock> content = new ArrayList<>(msg.getContent().size());
+        for (ContentBlock block : msg.getContent()) {
+            if (block instanceof ToolResultBlock toolResult && !toolResult.isReference()
+                    && toolResult.getOutput() != null && !toolResult.getOutput().isEmpty()) {
+                String serialized = serialize(toolResult.getOutput());
+                if (serialized.length() >= minChars) {
+                    String hash = hash(serialized);
+                    blobs.put(hash, serialized);
+                    content.add(copy(toolResult, new ArrayList<>(), hash));
+                    changed = true;
+                    continue;
+                }
+            }
+            content.add(block);
+        }
+        return changed ? MsgUtils.copyWithContent(msg, content) : msg;
+    }
+
+    /**
+     * Replaces large tool results of several messages by references.
+     *
+     * @param messages the messages
+     * @param minChars minimum serialized output length to deduplicate
+     * @param blobs    receives the serialized outputs by content hash
+     * @return the messages with references, or the same list if nothing was replaced
+     */
+    public static List<Msg> externalize(List<Msg> messages, int minChars, Map<String, String> blobs) {
+        return map(messages, msg -> externalize(msg, minChars, blobs));
+    }
+
+    /**
+     * Collects the content hashes referenced by a pair.
+     *
+     * @param pair the message pair
+     * @return referenced hashes, empty if the pair has no references
+     */
+    public static Set<String> referencedHashes(MessagePair pair) {
+        Set<String> hashes = new LinkedHashSet<>();
+        if (pair != null) {
+            for (Msg msg : pair.getAllMessages()) {
+                collectHashes(msg, hashes);
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * Collects the content hashes referenced by messages.
+     *
+     * @param messages the messages
+     * @return referenced hashes, empty if there are no references
+     */
+    public static Set<String> referencedHashes(List<Msg> messages) {
+        Set<String> hashes = new LinkedHashSet<>();
+        if (messages != null) {
+            for (Msg msg : messages) {
+                collectHashes(msg, hashes);
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * Puts the deduplicated outputs back into a pair. References without a stored output stay unresolved.
+     *
+     * @param pair  the message pair
+     * @param blobs serialized outputs by content hash
+     * @return the resolved pair, or the same pair if it had nothing to resolve
+     */
+    public static MessagePair resolve(MessagePair pair, Map<String, String> blobs) {
+        if (pair == null || blobs.isEmpty()) {
+            return pair;
+        }
+        Msg user = resolve(pair.getUserMessage(), blobs);
+        Msg assistant = resolve(pair.getAssistantMessage(), blobs);
+        List<Msg> intermediate = resolve(pair.getIntermediateMessages(), blobs);
+        return copyIfChanged(pair, user, assistant, intermediate);
+    }
+
+    /**
+     * Puts the deduplicated outputs back into a message.
+     *
+     * @param msg   the message
+     * @param blobs serialized outputs by content hash
+     * @return the resolved message, or the same message if it had nothing to resolve
+     */
+    public static Msg resolve(Msg msg, Map<String, String> blobs) {
+        if (msg == null || msg.getContent() == null || blobs.isEmpty()) {
+            return msg;
+        }
+        boolean changed = false;
+        List<ContentBlock> content = new ArrayList<>(msg.getContent().size());
+        for (ContentBlock block : msg.getContent()) {
+            if (block instanceof ToolResultBlock toolResult && toolResult.isReference()
+                    && blobs.get(toolResult.getContentHash()) != null) {
+                content.add(copy(toolResult, deserialize(blobs.get(toolResult.getContentHash())), null));
+                changed = true;
+            } else {
+                content.add(block);
+            }
+        }
+        return changed ? MsgUtils.copyWithContent(msg, content) : msg;
+    }
+
+    /**
+     * Puts the deduplicated outputs back into several messages.
+     *
+     * @param messages the messages
+     * @param blobs    serialized outputs by content hash
+     * @return the resolved messages, or the same list if there was nothing to resolve
+     */
+    public static List<Msg> resolve(List<Msg> messages, Map<String, String> blobs) {
+        if (blobs.isEmpty()) {
+            return messages;
+        }
+        return map(messages, msg -> resolve(msg, blobs));
+    }
+
+    private static void collectHashes(Msg msg, Set<String> hashes) {
+        if (msg == null || msg.getContent() == null) {
+            return;
+        }
+        for (ContentBlock block : msg.getContent()) {
+            if (block instanceof ToolResultBlock toolResult && toolResult.isReference()) {
+                hashes.add(toolResult.getContentHash());
+            }
+        }
+    }
+
+    private static List<Msg> map(List<Msg> messages, UnaryOperator<Msg> mapper) {
+        if (messages == null || messages.isEmpty()) {
+            return messages;
+        }
+        boolean changed = false;
+        List<Msg> mapped = new ArrayList<>(messages.size());
+        for (Msg msg : messages) {
+            Msg result = mapper.apply(msg);
+            changed |= result != msg;
+            mapped.add(result);
+        }
+        return changed ? mapped : messages;
+    }
+
+    private static MessagePair copyIfChanged(MessagePair pair, Msg user, Msg assistant, List<Msg> intermediate) {
+        if (user == pair.getUserMessage() && assistant == pair.getAssistantMessage()
+                && intermediate == pair.getIntermediateMessages()) {
+            return pair;
+        }
+        MessagePair copy = new MessagePair(user, assistant, intermediate);
+        copy.setSequence(pair.getSequence());
+        return copy;
+    }
+
+    private static ToolResultBlock copy(ToolResultBlock toolResult, List<ContentBlock> output, String contentHash) {
+        ToolResultBlock copy = new ToolResultBlock();
+        copy.setId(toolResult.getId());
+        copy.setName(toolResult.getName());
+        copy.setOutput(output);
+        copy.setContentHash(contentHash);
+        return copy;
+    }
+
+    private static String serialize(List<ContentBlock> output) {
+        try {
+            return MAPPER.writerFor(OUTPUT_TYPE).writeValueAsString(output);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize tool result output", e);
+        }
+    }
+
+    private static List<ContentBlock> deserialize(String serialized) {
+        try {
+            return MAPPER.readValue(serialized, OUTPUT_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to deserialize tool result output", e);
+        }
+    }
+
+    private static String hash(String serialized) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(serialized.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}